@@ -0,0 +1,328 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Bounding volume hierarchy (BVH) over the members of a {@link Geometries} collection.
+ * The tree itself - its build by SAH or from Morton codes, and its refit - is kept in {@link BVHNodes}, that is
+ * shared with the hierarchy of the faces of a {@link TriangleMesh}; this class keeps the intersectables and
+ * traverses the tree. Infinite intersectables (without a bounding box) can't be put in the tree, so they are kept
+ * aside and tested against every ray.<br/>
+ * The items of the leaves are kept in the order of the leaves, with their boxes in a flat array,
+ * so the traversal tests the boxes without calling the intersectables.<br/>
+ * When the intersectables move a little (e.g. between the frames of an animation), the boxes can be refitted
+ * bottom-up in linear time, keeping the structure of the tree - see {@link #refit()}.
+ */
+class BVH {
+    private static final double INTERSECTION_COST = 2; //relative cost of an exact intersection test
+    private static final int MAX_LEAF_SIZE = 8; //a larger node is always split
+    private static final int NODE_SIZE = BVHNodes.NODE_SIZE;
+    private static final int LINK = BVHNodes.LINK;
+    private static final int COUNT = BVHNodes.COUNT;
+
+    private final Geometries owner; //the collection that tests the intersectables in the leaves
+    private final BVHNodes tree; //null if there is no finite intersectable
+    private final int[] nodes; //flat nodes of the tree, the root is node 0 - empty if there is no tree
+    private final Intersectable[] items; //items of the leaves, in the order of the leaves
+    private final double[] itemBounds; //boxes of the items - minX, minY, minZ, maxX, maxY, maxZ of every item
+    private final Intersectable[] unbounded;
+    private final double builtCost; //SAH cost of the tree right after the build
+    private BVHStatistics statistics;
+
+    /**
+     * Builds the hierarchy over the given intersectables.<br/>
+     * When it is called from a fork-join pool (like the pool of a render) the build runs on the threads
+     * of that pool, otherwise on the common pool.
+     *
+     * @param owner      the collection of the intersectables
+     * @param geometries intersectables to organize
+     * @param builder    the build algorithm
+     */
+    BVH(Geometries owner, List<Intersectable> geometries, BVHBuilder builder) {
+        long start = System.nanoTime();
+        this.owner = owner;
+        List<Intersectable> bounded = new ArrayList<>(geometries.size());
+        List<Intersectable> infinite = new ArrayList<>();
+        double[] boxes = new double[6 * geometries.size()];
+        for (Intersectable item : geometries) {
+            BoundingBox box = item.getBoundingBox();
+            if (box == null)
+                infinite.add(item);
+            else {
+                setBox(boxes, bounded.size(), box);
+                bounded.add(item);
+            }
+        }
+        unbounded = infinite.toArray(new Intersectable[0]);
+        int n = bounded.size();
+        tree = n == 0 ? null
+                : new BVHNodes(Arrays.copyOf(boxes, 6 * n), builder, INTERSECTION_COST, MAX_LEAF_SIZE);
+        nodes = tree == null ? new int[0] : tree.nodes;
+        items = new Intersectable[n];
+        itemBounds = new double[6 * n];
+        for (int i = 0; i < n; ++i) {
+            int item = tree.order[i];
+            items[i] = bounded.get(item);
+            System.arraycopy(boxes, 6 * item, itemBounds, 6 * i, 6);
+        }
+        long buildTime = System.nanoTime() - start;
+        statistics = tree == null ? new BVHStatistics(buildTime, 0, 0, 0, 0, unbounded.length, 0)
+                : tree.measure(buildTime, unbounded.length);
+        builtCost = statistics.getSahCost();
+    }
+
+    /**
+     * Writes a box into a flat array of boxes
+     *
+     * @param boxes the flat array - minX, minY, minZ, maxX, maxY, maxZ of every box
+     * @param index index of the box
+     * @param box   the box
+     */
+    private static void setBox(double[] boxes, int index, BoundingBox box) {
+        int j = 6 * index;
+        boxes[j] = box.minX;
+        boxes[j + 1] = box.minY;
+        boxes[j + 2] = box.minZ;
+        boxes[j + 3] = box.maxX;
+        boxes[j + 4] = box.maxY;
+        boxes[j + 5] = box.maxZ;
+    }
+
+    /**
+     * Returns the build time and the quality of the hierarchy
+     *
+     * @return the statistics of the build
+     */
+    BVHStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the SAH cost of the tree right after its build, to compare with the cost after refits
+     *
+     * @return the SAH cost of the built tree
+     */
+    double getBuiltCost() {
+        return builtCost;
+    }
+
+    /**
+     * Updates the boxes of the tree to the current boxes of the intersectables, keeping the structure of the tree,
+     * see {@link BVHNodes#refit(double[])}. The statistics are updated with the new cost and the time of the refit,
+     * and keep the time of the build.<br/>
+     * The tree is changed in place, so it must not run during a render.
+     *
+     * @return the new SAH cost, or infinity if one of the intersectables has no bounding box anymore
+     */
+    double refit() {
+        if (tree == null)
+            return 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < items.length; ++i) {
+            BoundingBox box = items[i].getBoundingBox();
+            if (box == null)
+                return Double.POSITIVE_INFINITY;
+            setBox(itemBounds, i, box);
+        }
+        double cost = tree.refit(itemBounds);
+        statistics = statistics.refitted(System.nanoTime() - start, cost);
+        return cost;
+    }
+
+    /**
+     * Finds all the intersections of the ray with the intersectables in the hierarchy
+     *
+     * @param ray         the ray
+     * @param maxDistance maximal distance of an intersection from the ray head
+     * @return list of intersections, or null if there are none
+     */
+    List<GeoPoint> findGeoIntersections(Ray ray, double maxDistance) {
+        List<GeoPoint> result = null;
+        for (Intersectable item : unbounded)
+            result = addAll(result, owner.findItemIntersections(item, null, ray, maxDistance));
+        if (nodes.length == 0)
+            return result;
+
+        Point p0 = ray.getP0();
+        Vector v = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double invX = 1 / v.getX(), invY = 1 / v.getY(), invZ = 1 / v.getZ();
+
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int k = NODE_SIZE * node;
+            if (BoundingBox.intersect(nodes, k, ox, oy, oz, invX, invY, invZ, maxDistance) == Double.POSITIVE_INFINITY)
+                continue;
+            int count = nodes[k + COUNT];
+            if (count > 0) {
+                for (int i = nodes[k + LINK], end = i + count; i < end; ++i)
+                    if (!owner.cullItem(itemBounds, 6 * i, ox, oy, oz, invX, invY, invZ, maxDistance))
+                        result = addAll(result, items[i].findGeoIntersectionsHelper(ray, maxDistance));
+            } else {
+                if (top + 2 > stack.length)
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[top++] = nodes[k + LINK];
+                stack[top++] = node + 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Records the closest hit of the ray with the intersectables in the hierarchy.
+     * The children of a node are visited front to back, and a node is skipped if the ray enters its box
+     * only beyond the closest hit that was found so far. The traversal stacks are taken from the record.
+     *
+     * @param ray the ray
+     * @param hit the record to fill in place
+     * @return true if the record was updated
+     */
+    boolean findClosestHit(Ray ray, HitRecord hit) {
+        boolean found = false;
+        for (Intersectable item : unbounded)
+            if (owner.findItemClosestHit(item, null, ray, hit))
+                found = true;
+        if (nodes.length == 0)
+            return found;
+
+        Point p0 = ray.getP0();
+        Vector v = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double invX = 1 / v.getX(), invY = 1 / v.getY(), invZ = 1 / v.getZ();
+
+        //a nested hierarchy continues on the same stacks, above the part that is in use
+        int[] stack = hit.nodeStack;
+        double[] entries = hit.entryStack; //distance where the ray enters the box of each node in the stack
+        int base = hit.stackBase;
+        int top = base;
+        double rootEntry = BoundingBox.intersect(nodes, 0, ox, oy, oz, invX, invY, invZ, hit.t);
+        if (rootEntry != Double.POSITIVE_INFINITY) {
+            stack[top] = 0;
+            entries[top++] = rootEntry;
+        }
+        while (top > base) {
+            int node = stack[--top];
+            if (entries[top] > hit.t)
+                continue;
+            int k = NODE_SIZE * node;
+            int count = nodes[k + COUNT];
+            if (count > 0) {
+                hit.stackBase = top;
+                for (int i = nodes[k + LINK], end = i + count; i < end; ++i)
+                    if (!owner.cullItem(itemBounds, 6 * i, ox, oy, oz, invX, invY, invZ, hit.t)
+                            && items[i].findClosestHitHelper(ray, hit))
+                        found = true;
+                //a nested hierarchy may have grown the stacks
+                stack = hit.nodeStack;
+                entries = hit.entryStack;
+                continue;
+            }
+
+            int near = node + 1, far = nodes[k + LINK];
+            double nearEntry = BoundingBox.intersect(nodes, NODE_SIZE * near, ox, oy, oz, invX, invY, invZ, hit.t);
+            double farEntry = BoundingBox.intersect(nodes, NODE_SIZE * far, ox, oy, oz, invX, invY, invZ, hit.t);
+            if (farEntry < nearEntry) {
+                near = far;
+                far = node + 1;
+                double temp = nearEntry;
+                nearEntry = farEntry;
+                farEntry = temp;
+            }
+            if (top + 2 > stack.length) {
+                //the record keeps the grown stacks for the next queries
+                hit.nodeStack = stack = Arrays.copyOf(stack, stack.length * 2);
+                hit.entryStack = entries = Arrays.copyOf(entries, entries.length * 2);
+            }
+            //the nearer child is pushed last, so it is visited first
+            if (farEntry != Double.POSITIVE_INFINITY) {
+                stack[top] = far;
+                entries[top++] = farEntry;
+            }
+            if (nearEntry != Double.POSITIVE_INFINITY) {
+                stack[top] = near;
+                entries[top++] = nearEntry;
+            }
+        }
+        hit.stackBase = base;
+        return found;
+    }
+
+    /**
+     * Occlusion query - multiplies the transparency of the intersectables in the boxes that the ray passes through,
+     * and stops as soon as it drops below the minimal factor. The order of the visit doesn't matter here.
+     *
+     * @param ray         ray from the shaded point towards the light
+     * @param maxDistance distance of the light from the ray head
+     * @param ktr         transparency accumulated so far
+     * @param minK        minimal transparency factor that still affects the color
+     * @return the accumulated transparency, or zero if it is below minK
+     */
+    Double3 findTransparency(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        for (Intersectable item : unbounded) {
+            ktr = owner.findItemTransparency(item, null, ray, maxDistance, ktr, minK);
+            if (ktr.lowerThan(minK))
+                return ktr;
+        }
+        if (nodes.length == 0)
+            return ktr;
+
+        Point p0 = ray.getP0();
+        Vector v = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double invX = 1 / v.getX(), invY = 1 / v.getY(), invZ = 1 / v.getZ();
+
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int k = NODE_SIZE * node;
+            if (BoundingBox.intersect(nodes, k, ox, oy, oz, invX, invY, invZ, maxDistance) == Double.POSITIVE_INFINITY)
+                continue;
+            int count = nodes[k + COUNT];
+            if (count > 0) {
+                for (int i = nodes[k + LINK], end = i + count; i < end; ++i) {
+                    if (owner.cullItem(itemBounds, 6 * i, ox, oy, oz, invX, invY, invZ, maxDistance))
+                        continue;
+                    ktr = items[i].findTransparencyHelper(ray, maxDistance, ktr, minK);
+                    if (ktr.lowerThan(minK))
+                        return ktr;
+                }
+            } else {
+                if (top + 2 > stack.length)
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[top++] = nodes[k + LINK];
+                stack[top++] = node + 1;
+            }
+        }
+        return ktr;
+    }
+
+    /**
+     * Adds the points to the result list, creating the list on the first addition
+     *
+     * @param result the result list, may be null
+     * @param points points to add, may be null
+     * @return the result list
+     */
+    private static List<GeoPoint> addAll(List<GeoPoint> result, List<GeoPoint> points) {
+        if (points == null)
+            return result;
+        if (result == null)
+            result = new LinkedList<>();
+        result.addAll(points);
+        return result;
+    }
+}
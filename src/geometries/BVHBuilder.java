@@ -0,0 +1,17 @@
+package geometries;
+
+/**
+ * Algorithms that build the bounding volume hierarchy of a {@link Geometries} collection
+ */
+public enum BVHBuilder {
+    /**
+     * Top-down build by the surface area heuristic - the fastest tree to trace, the slowest to build
+     */
+    SAH,
+    /**
+     * Linear BVH - the intersectables are sorted along a Morton (Z-order) curve and split by the bits
+     * of their codes. The build is several times faster and the trace is a little slower,
+     * so it suits scenes that change every frame
+     */
+    LBVH
+}
@@ -0,0 +1,609 @@
+package geometries;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Flat nodes of a bounding volume hierarchy over primitives that are known only by their index and box -
+ * the intersectables of a {@link Geometries} collection (see {@link BVH}) or the faces of a {@link TriangleMesh}.
+ * The owner keeps the primitives and traverses the nodes with its own intersection tests.<br/>
+ * The tree is built top-down, each node is split where the surface area heuristic (SAH)
+ * estimates the cheapest traversal. The candidate splits are the borders of a few bins along each axis,
+ * and big sub-trees are built in parallel on a fork-join pool. Alternatively, the tree can be built in linear time
+ * from the Morton codes of the box centers, see {@link BVHBuilder#LBVH}.<br/>
+ * The nodes are kept in depth first order in an int array, 32 bytes each: the box in 6 floats (rounded outwards),
+ * then the index of the second child for an inner node (the first child comes right after its parent) or the first
+ * place in the order for a leaf, then the number of primitives (0 for an inner node). The order holds the indexes
+ * of the primitives, the primitives of every leaf in a range of it.<br/>
+ * When the primitives move a little, the boxes can be refitted bottom-up in linear time, keeping the structure
+ * of the tree - see {@link #refit(double[])}.
+ */
+final class BVHNodes {
+    static final int NODE_SIZE = 8; //ints of a flat node
+    static final int LINK = 6; //place of the second child or the first place in the order in a flat node
+    static final int COUNT = 7; //place of the number of primitives in a flat node
+
+    private static final double TRAVERSAL_COST = 1; //relative cost of testing a ray against a box
+    private static final int BINS = 16; //number of candidate splits on each axis
+    private static final int PARALLEL_THRESHOLD = 1024; //a smaller sub-tree is built by the thread that splits it
+    private static final int LINEAR_LEAF_SIZE = 4; //a larger range of Morton codes is always split
+
+    /**
+     * Tree node of the build - inner nodes have two children, leaves have a range of the order
+     */
+    private static class Node {
+        final double minX, minY, minZ, maxX, maxY, maxZ;
+        Node left;
+        Node right;
+        int from; //first place of the primitives of a leaf in the order
+        int count; //number of primitives of a leaf, 0 in inner nodes
+
+        Node(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+        }
+    }
+
+    /**
+     * State of a build - the boxes of the primitives and the order that the build reorders
+     */
+    private static class Build {
+        final double[] boxes; //minX, minY, minZ, maxX, maxY, maxZ of every primitive, by index
+        final int[] order;
+        final double intersectionCost;
+        final int maxLeafSize;
+        long[] codes; //Morton codes by place in the order for the linear build, null for SAH
+
+        Build(double[] boxes, double intersectionCost, int maxLeafSize) {
+            this.boxes = boxes;
+            this.intersectionCost = intersectionCost;
+            this.maxLeafSize = maxLeafSize;
+            int n = boxes.length / 6;
+            order = new int[n];
+            for (int i = 0; i < n; ++i)
+                order[i] = i;
+        }
+
+        /**
+         * Center of the box of a primitive
+         *
+         * @param place place of the primitive in the order
+         * @param axis  0 for x, 1 for y, 2 for z
+         * @return the coordinate of the center
+         */
+        double center(int place, int axis) {
+            int b = 6 * order[place] + axis;
+            return (boxes[b] + boxes[b + 3]) / 2;
+        }
+    }
+
+    /**
+     * Builds the sub-tree of a range of the order. The two halves of a big range are built in parallel:
+     * the ranges don't overlap, so the tasks don't have to synchronize.
+     */
+    private static class BuildTask extends RecursiveTask<Node> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Build build;
+        private final int from;
+        private final int to;
+
+        BuildTask(Build build, int from, int to) {
+            this.build = build;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Node compute() {
+            return build.codes == null ? buildSAH(build, from, to) : buildLinear(build, from, to);
+        }
+    }
+
+    final int[] nodes; //flat nodes, the root is node 0
+    final int[] order; //indexes of the primitives, in the order of the leaves
+    private final double intersectionCost;
+
+    /**
+     * Builds the hierarchy over the boxes of the primitives.<br/>
+     * When it is called from a fork-join pool (like the pool of a render) the build runs on the threads
+     * of that pool, otherwise on the common pool.
+     *
+     * @param boxes            boxes of the primitives - minX, minY, minZ, maxX, maxY, maxZ of every primitive,
+     *                         there must be at least one
+     * @param builder          the build algorithm
+     * @param intersectionCost cost of an exact intersection test of a primitive, relative to a box test
+     * @param maxLeafSize      a node with more primitives is always split by SAH
+     */
+    BVHNodes(double[] boxes, BVHBuilder builder, double intersectionCost, int maxLeafSize) {
+        this.intersectionCost = intersectionCost;
+        Build build = new Build(boxes, intersectionCost, maxLeafSize);
+        int n = build.order.length;
+        if (builder == BVHBuilder.LBVH)
+            build.codes = sortByMortonCodes(build);
+        Node root = new BuildTask(build, 0, n).invoke();
+        order = build.order;
+        nodes = new int[NODE_SIZE * countNodes(root)];
+        flatten(root, 0);
+    }
+
+    /**
+     * Constructor of a hierarchy that is already built, e.g. read from a file
+     *
+     * @param nodes            the flat nodes
+     * @param order            indexes of the primitives in the order of the leaves
+     * @param intersectionCost cost of an exact intersection test of a primitive, relative to a box test
+     */
+    BVHNodes(int[] nodes, int[] order, double intersectionCost) {
+        this.nodes = nodes;
+        this.order = order;
+        this.intersectionCost = intersectionCost;
+    }
+
+    /**
+     * Returns the box of the root, that contains all the primitives
+     *
+     * @return the box of the root
+     */
+    BoundingBox getBox() {
+        return new BoundingBox(Float.intBitsToFloat(nodes[0]), Float.intBitsToFloat(nodes[1]),
+                Float.intBitsToFloat(nodes[2]), Float.intBitsToFloat(nodes[3]), Float.intBitsToFloat(nodes[4]),
+                Float.intBitsToFloat(nodes[5]));
+    }
+
+    /**
+     * Counts the nodes of a sub-tree
+     *
+     * @param node root of the sub-tree
+     * @return number of nodes
+     */
+    private static int countNodes(Node node) {
+        return node.left == null ? 1 : 1 + countNodes(node.left) + countNodes(node.right);
+    }
+
+    /**
+     * Writes a sub-tree into the flat array, in depth first order
+     *
+     * @param node  root of the sub-tree
+     * @param index index of the flat node of the root
+     * @return index of the next free flat node
+     */
+    private int flatten(Node node, int index) {
+        int k = NODE_SIZE * index;
+        setNodeBox(k, node.minX, node.minY, node.minZ, node.maxX, node.maxY, node.maxZ);
+        if (node.left == null) {
+            //the leaves are in the order of their ranges, so a leaf refers to its range as it is
+            nodes[k + LINK] = node.from;
+            nodes[k + COUNT] = node.count;
+            return index + 1;
+        }
+        int right = flatten(node.left, index + 1);
+        nodes[k + LINK] = right;
+        return flatten(node.right, right);
+    }
+
+    /**
+     * Writes the box of a flat node, rounded outwards to floats
+     *
+     * @param k    place of the node in the flat array
+     * @param minX minimal x value
+     * @param minY minimal y value
+     * @param minZ minimal z value
+     * @param maxX maximal x value
+     * @param maxY maximal y value
+     * @param maxZ maximal z value
+     */
+    private void setNodeBox(int k, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        nodes[k] = Float.floatToRawIntBits(roundDown(minX));
+        nodes[k + 1] = Float.floatToRawIntBits(roundDown(minY));
+        nodes[k + 2] = Float.floatToRawIntBits(roundDown(minZ));
+        nodes[k + 3] = Float.floatToRawIntBits(roundUp(maxX));
+        nodes[k + 4] = Float.floatToRawIntBits(roundUp(maxY));
+        nodes[k + 5] = Float.floatToRawIntBits(roundUp(maxZ));
+    }
+
+    /**
+     * Rounds a coordinate to the closest float that is not above it
+     *
+     * @param value the coordinate
+     * @return the float
+     */
+    private static float roundDown(double value) {
+        float result = (float) value;
+        return result > value ? Math.nextDown(result) : result;
+    }
+
+    /**
+     * Rounds a coordinate to the closest float that is not below it
+     *
+     * @param value the coordinate
+     * @return the float
+     */
+    private static float roundUp(double value) {
+        float result = (float) value;
+        return result < value ? Math.nextUp(result) : result;
+    }
+
+    /**
+     * Updates the boxes of the tree to new boxes of the primitives, keeping the structure of the tree.
+     * A child is always after its parent in the flat array, so a single backward pass updates the leaves
+     * before their parents.<br/>
+     * The tree is changed in place, so it must not run during a render.
+     *
+     * @param boxes the new boxes of the primitives, by their place in the order (not by their index)
+     * @return the new SAH cost
+     */
+    double refit(double[] boxes) {
+        for (int k = nodes.length - NODE_SIZE; k >= 0; k -= NODE_SIZE) {
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+            int count = nodes[k + COUNT];
+            if (count > 0) {
+                for (int b = 6 * nodes[k + LINK], end = b + 6 * count; b < end; b += 6) {
+                    minX = Math.min(minX, boxes[b]);
+                    minY = Math.min(minY, boxes[b + 1]);
+                    minZ = Math.min(minZ, boxes[b + 2]);
+                    maxX = Math.max(maxX, boxes[b + 3]);
+                    maxY = Math.max(maxY, boxes[b + 4]);
+                    maxZ = Math.max(maxZ, boxes[b + 5]);
+                }
+            } else {
+                //the union of the (already rounded) boxes of the children
+                int l = k + NODE_SIZE, r = NODE_SIZE * nodes[k + LINK];
+                minX = Math.min(Float.intBitsToFloat(nodes[l]), Float.intBitsToFloat(nodes[r]));
+                minY = Math.min(Float.intBitsToFloat(nodes[l + 1]), Float.intBitsToFloat(nodes[r + 1]));
+                minZ = Math.min(Float.intBitsToFloat(nodes[l + 2]), Float.intBitsToFloat(nodes[r + 2]));
+                maxX = Math.max(Float.intBitsToFloat(nodes[l + 3]), Float.intBitsToFloat(nodes[r + 3]));
+                maxY = Math.max(Float.intBitsToFloat(nodes[l + 4]), Float.intBitsToFloat(nodes[r + 4]));
+                maxZ = Math.max(Float.intBitsToFloat(nodes[l + 5]), Float.intBitsToFloat(nodes[r + 5]));
+            }
+            setNodeBox(k, minX, minY, minZ, maxX, maxY, maxZ);
+        }
+        return sahCost();
+    }
+
+    /**
+     * Calculates the SAH cost of the tree - the expected cost of a ray that crosses the root box,
+     * in units of box tests
+     *
+     * @return the SAH cost
+     */
+    double sahCost() {
+        double rootArea = nodeArea(0);
+        double cost = 0;
+        for (int k = 0; k < nodes.length; k += NODE_SIZE) {
+            //a flat root is hit by every ray that hits the scene
+            double probability = rootArea == 0 ? 1 : nodeArea(k) / rootArea;
+            int count = nodes[k + COUNT];
+            cost += probability * (count > 0 ? intersectionCost * count : TRAVERSAL_COST);
+        }
+        return cost;
+    }
+
+    /**
+     * Calculates the surface area of the box of a flat node
+     *
+     * @param k place of the node in the flat array
+     * @return the surface area
+     */
+    private double nodeArea(int k) {
+        double dx = Float.intBitsToFloat(nodes[k + 3]) - Float.intBitsToFloat(nodes[k]);
+        double dy = Float.intBitsToFloat(nodes[k + 4]) - Float.intBitsToFloat(nodes[k + 1]);
+        double dz = Float.intBitsToFloat(nodes[k + 5]) - Float.intBitsToFloat(nodes[k + 2]);
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Walks over the tree and measures its quality
+     *
+     * @param buildTime time of the build in nanoseconds
+     * @param unbounded number of intersectables that are kept aside, without a box
+     * @return the statistics of the hierarchy
+     */
+    BVHStatistics measure(long buildTime, int unbounded) {
+        int leaves = 0, depth = 0;
+        int[] stack = new int[64], depths = new int[64];
+        int top = 0;
+        stack[top] = 0;
+        depths[top++] = 1;
+        while (top > 0) {
+            int node = stack[--top];
+            int level = depths[top];
+            depth = Math.max(depth, level);
+            int k = NODE_SIZE * node;
+            if (nodes[k + COUNT] > 0) {
+                ++leaves;
+                continue;
+            }
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+                depths = Arrays.copyOf(depths, depths.length * 2);
+            }
+            stack[top] = nodes[k + LINK];
+            depths[top++] = level + 1;
+            stack[top] = node + 1;
+            depths[top++] = level + 1;
+        }
+        return new BVHStatistics(buildTime, nodes.length / NODE_SIZE, leaves, depth, sahCost(), unbounded,
+                order.length);
+    }
+
+    /**
+     * Makes a leaf of a range of the order
+     *
+     * @param from first place (included)
+     * @param to   last place (excluded)
+     * @param node the node, with the box of the range
+     * @return the leaf
+     */
+    private static Node leaf(int from, int to, Node node) {
+        node.from = from;
+        node.count = to - from;
+        return node;
+    }
+
+    /**
+     * Builds the sub-tree of the primitives in range [from, to) of the order by SAH
+     *
+     * @param build the build, the range of its order is reordered
+     * @param from  first place (included)
+     * @param to    last place (excluded)
+     * @return the sub-tree root
+     */
+    private static Node buildSAH(Build build, int from, int to) {
+        double[] boxes = build.boxes;
+        int[] order = build.order;
+        int n = to - from;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        double[] centerMin = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        double[] centerMax = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int i = from; i < to; ++i) {
+            int b = 6 * order[i];
+            minX = Math.min(minX, boxes[b]);
+            minY = Math.min(minY, boxes[b + 1]);
+            minZ = Math.min(minZ, boxes[b + 2]);
+            maxX = Math.max(maxX, boxes[b + 3]);
+            maxY = Math.max(maxY, boxes[b + 4]);
+            maxZ = Math.max(maxZ, boxes[b + 5]);
+            //bounds of the box centers
+            for (int axis = 0; axis < 3; ++axis) {
+                double center = (boxes[b + axis] + boxes[b + 3 + axis]) / 2;
+                centerMin[axis] = Math.min(centerMin[axis], center);
+                centerMax[axis] = Math.max(centerMax[axis], center);
+            }
+        }
+        Node node = new Node(minX, minY, minZ, maxX, maxY, maxZ);
+        double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+
+        //look for the cheapest split on every axis
+        double nodeArea = 2 * (dx * dy + dy * dz + dz * dx);
+        int[] counts = new int[BINS];
+        double[] binBounds = new double[6 * BINS];
+        double[] leftAreas = new double[BINS];
+        double[] rightAreas = new double[BINS];
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = -1, bestBin = 0;
+        for (int axis = 0; axis < 3 && n > 1 && nodeArea > 0; ++axis) {
+            double extent = centerMax[axis] - centerMin[axis];
+            if (extent == 0)
+                continue;
+            Arrays.fill(counts, 0);
+            for (int b = 0; b < BINS; ++b) {
+                Arrays.fill(binBounds, 6 * b, 6 * b + 3, Double.POSITIVE_INFINITY);
+                Arrays.fill(binBounds, 6 * b + 3, 6 * b + 6, Double.NEGATIVE_INFINITY);
+            }
+            double scale = BINS / extent;
+            for (int i = from; i < to; ++i) {
+                int bin = binOf(build, i, axis, centerMin[axis], scale);
+                ++counts[bin];
+                int k = 6 * bin, b = 6 * order[i];
+                binBounds[k] = Math.min(binBounds[k], boxes[b]);
+                binBounds[k + 1] = Math.min(binBounds[k + 1], boxes[b + 1]);
+                binBounds[k + 2] = Math.min(binBounds[k + 2], boxes[b + 2]);
+                binBounds[k + 3] = Math.max(binBounds[k + 3], boxes[b + 3]);
+                binBounds[k + 4] = Math.max(binBounds[k + 4], boxes[b + 4]);
+                binBounds[k + 5] = Math.max(binBounds[k + 5], boxes[b + 5]);
+            }
+            sweepAreas(binBounds, BINS - 1, 0, rightAreas);
+            sweepAreas(binBounds, 0, BINS - 1, leftAreas);
+            int left = 0;
+            for (int b = 1; b < BINS; ++b) {
+                //bins [0, b) go left, bins [b, BINS) go right
+                left += counts[b - 1];
+                if (left == 0 || left == n)
+                    continue;
+                double cost = TRAVERSAL_COST + build.intersectionCost
+                        * (leftAreas[b - 1] * left + rightAreas[b] * (n - left)) / nodeArea;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = b;
+                }
+            }
+        }
+
+        //a leaf is cheaper than any split (or there is nothing to split)
+        if (n == 1 || n <= build.maxLeafSize && (bestAxis < 0 || bestCost >= n * build.intersectionCost))
+            return leaf(from, to, node);
+
+        //a flat node or a pile of boxes with the same center can't be binned, so it is split in the middle
+        int middle = from + n / 2;
+        if (bestAxis >= 0) {
+            double scale = BINS / (centerMax[bestAxis] - centerMin[bestAxis]);
+            int i = from, j = to - 1;
+            while (i <= j) {
+                if (binOf(build, i, bestAxis, centerMin[bestAxis], scale) < bestBin)
+                    ++i;
+                else {
+                    int temp = order[i];
+                    order[i] = order[j];
+                    order[j--] = temp;
+                }
+            }
+            middle = i;
+        }
+        if (n >= PARALLEL_THRESHOLD) {
+            BuildTask left = new BuildTask(build, from, middle);
+            left.fork();
+            node.right = buildSAH(build, middle, to);
+            node.left = left.join();
+        } else {
+            node.left = buildSAH(build, from, middle);
+            node.right = buildSAH(build, middle, to);
+        }
+        return node;
+    }
+
+    /**
+     * Sorts the order along the Morton curve of the box of the centers
+     *
+     * @param build the build, its order is sorted in place
+     * @return the sorted Morton codes, by place in the order
+     */
+    private static long[] sortByMortonCodes(Build build) {
+        int n = build.order.length;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; ++i) {
+            double x = build.center(i, 0), y = build.center(i, 1), z = build.center(i, 2);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+        //a flat axis has a single cell
+        double scaleX = maxX > minX ? 1 / (maxX - minX) : 0;
+        double scaleY = maxY > minY ? 1 / (maxY - minY) : 0;
+        double scaleZ = maxZ > minZ ? 1 / (maxZ - minZ) : 0;
+
+        long[] codes = new long[n];
+        for (int i = 0; i < n; ++i)
+            codes[i] = MortonCodes.encode((build.center(i, 0) - minX) * scaleX, (build.center(i, 1) - minY) * scaleY,
+                    (build.center(i, 2) - minZ) * scaleZ);
+        //the order is the identity before the sort, so it is sorted together with the codes
+        MortonCodes.sort(codes, build.order);
+        return codes;
+    }
+
+    /**
+     * Builds the sub-tree of a range of the order that is sorted by the Morton codes.
+     * The range is split where the highest bit that differs in its codes changes - that is, by the
+     * biggest octree cell that divides the range - so no cost is estimated, and the boxes are
+     * the unions of the boxes of the children.
+     *
+     * @param build the build, with the sorted order and codes
+     * @param from  first place (included)
+     * @param to    last place (excluded)
+     * @return the sub-tree root
+     */
+    private static Node buildLinear(Build build, int from, int to) {
+        int n = to - from;
+        if (n <= LINEAR_LEAF_SIZE) {
+            double[] boxes = build.boxes;
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; ++i) {
+                int b = 6 * build.order[i];
+                minX = Math.min(minX, boxes[b]);
+                minY = Math.min(minY, boxes[b + 1]);
+                minZ = Math.min(minZ, boxes[b + 2]);
+                maxX = Math.max(maxX, boxes[b + 3]);
+                maxY = Math.max(maxY, boxes[b + 4]);
+                maxZ = Math.max(maxZ, boxes[b + 5]);
+            }
+            return leaf(from, to, new Node(minX, minY, minZ, maxX, maxY, maxZ));
+        }
+
+        int middle = findSplit(build.codes, from, to);
+        Node left, right;
+        if (n >= PARALLEL_THRESHOLD) {
+            BuildTask task = new BuildTask(build, from, middle);
+            task.fork();
+            right = buildLinear(build, middle, to);
+            left = task.join();
+        } else {
+            left = buildLinear(build, from, middle);
+            right = buildLinear(build, middle, to);
+        }
+        Node node = new Node(Math.min(left.minX, right.minX), Math.min(left.minY, right.minY),
+                Math.min(left.minZ, right.minZ), Math.max(left.maxX, right.maxX), Math.max(left.maxY, right.maxY),
+                Math.max(left.maxZ, right.maxZ));
+        node.left = left;
+        node.right = right;
+        return node;
+    }
+
+    /**
+     * Finds the first code of a sorted range that differs from the first code of the range in the highest
+     * bit that differs in the range, by a binary search
+     *
+     * @param codes sorted codes
+     * @param from  first index of the range (included)
+     * @param to    last index of the range (excluded)
+     * @return the first index of the right half
+     */
+    private static int findSplit(long[] codes, int from, int to) {
+        long first = codes[from];
+        int common = Long.numberOfLeadingZeros(first ^ codes[to - 1]);
+        //the same code - the primitives are in the same cell, any split will do
+        if (common == Long.SIZE)
+            return (from + to) >>> 1;
+
+        //the last index that shares more than the common prefix with the first code
+        int split = from, step = to - 1 - from;
+        do {
+            step = (step + 1) >> 1;
+            int candidate = split + step;
+            if (candidate < to - 1 && Long.numberOfLeadingZeros(first ^ codes[candidate]) > common)
+                split = candidate;
+        } while (step > 1);
+        return split + 1;
+    }
+
+    /**
+     * Finds the bin of the center of the box of a primitive
+     *
+     * @param build the build
+     * @param place place of the primitive in the order
+     * @param axis  0 for x, 1 for y, 2 for z
+     * @param min   lowest center on the axis
+     * @param scale number of bins per unit of the axis
+     * @return the bin index
+     */
+    private static int binOf(Build build, int place, int axis, double min, double scale) {
+        return Math.min((int) ((build.center(place, axis) - min) * scale), BINS - 1);
+    }
+
+    /**
+     * Calculates the surface area of the growing union of the bin boxes, while walking over the bins
+     *
+     * @param bounds bounds of the bins - minX, minY, minZ, maxX, maxY, maxZ of every bin (empty bins are inverted)
+     * @param start  first bin to walk on
+     * @param end    last bin to walk on (included), may be lower than start to walk backwards
+     * @param areas  array to fill, by bin index
+     */
+    private static void sweepAreas(double[] bounds, int start, int end, double[] areas) {
+        int step = start < end ? 1 : -1;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int b = start; b != end + step; b += step) {
+            int k = 6 * b;
+            minX = Math.min(minX, bounds[k]);
+            minY = Math.min(minY, bounds[k + 1]);
+            minZ = Math.min(minZ, bounds[k + 2]);
+            maxX = Math.max(maxX, bounds[k + 3]);
+            maxY = Math.max(maxY, bounds[k + 4]);
+            maxZ = Math.max(maxZ, bounds[k + 5]);
+            double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+            //an empty union has no area
+            areas[b] = dx < 0 ? 0 : 2 * (dx * dy + dy * dz + dz * dx);
+        }
+    }
+}
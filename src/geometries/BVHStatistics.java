@@ -0,0 +1,139 @@
+package geometries;
+
+/**
+ * Build time and quality of a bounding volume hierarchy, for tuning the build against the render time.
+ * After a refit, the statistics have the cost of the refitted tree and the time of the last refit
+ * beside the time of the build.<br/>
+ * The SAH cost is the expected cost of tracing a ray that crosses the box of the whole hierarchy,
+ * by the surface area heuristic - in units of a ray-box test (an exact intersection test costs 2 units).
+ */
+public class BVHStatistics {
+    private final long buildTime;
+    private final long refitTime;
+    private final int nodes;
+    private final int leaves;
+    private final int depth;
+    private final double sahCost;
+    private final int unbounded;
+    private final int items;
+
+    /**
+     * Constructor of the statistics of a build
+     *
+     * @param buildTime build time in nanoseconds
+     * @param nodes     number of nodes (inner nodes and leaves)
+     * @param leaves    number of leaves
+     * @param depth     number of levels
+     * @param sahCost   SAH cost of the tree
+     * @param unbounded number of intersectables without a bounding box, that are kept out of the tree
+     * @param items     number of intersectables in the leaves
+     */
+    BVHStatistics(long buildTime, int nodes, int leaves, int depth, double sahCost, int unbounded, int items) {
+        this(buildTime, 0, nodes, leaves, depth, sahCost, unbounded, items);
+    }
+
+    /**
+     * Constructor of the statistics of a refitted tree
+     */
+    private BVHStatistics(long buildTime, long refitTime, int nodes, int leaves, int depth, double sahCost,
+                          int unbounded, int items) {
+        this.buildTime = buildTime;
+        this.refitTime = refitTime;
+        this.nodes = nodes;
+        this.leaves = leaves;
+        this.depth = depth;
+        this.sahCost = sahCost;
+        this.unbounded = unbounded;
+        this.items = items;
+    }
+
+    /**
+     * Returns the build time
+     *
+     * @return build time in milliseconds
+     */
+    public double getBuildTime() {
+        return buildTime / 1e6;
+    }
+
+    /**
+     * Returns the time of the last refit
+     *
+     * @return refit time in milliseconds, 0 if the tree was not refitted since its build
+     */
+    public double getRefitTime() {
+        return refitTime / 1e6;
+    }
+
+    /**
+     * Returns the statistics of the tree after a refit - the same tree with new boxes
+     *
+     * @param refitTime refit time in nanoseconds
+     * @param sahCost   SAH cost of the refitted tree
+     * @return the new statistics
+     */
+    BVHStatistics refitted(long refitTime, double sahCost) {
+        return new BVHStatistics(buildTime, refitTime, nodes, leaves, depth, sahCost, unbounded, items);
+    }
+
+    /**
+     * Returns the number of nodes
+     *
+     * @return number of inner nodes and leaves
+     */
+    public int getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the number of leaves
+     *
+     * @return number of leaves
+     */
+    public int getLeaves() {
+        return leaves;
+    }
+
+    /**
+     * Returns the depth of the tree
+     *
+     * @return number of levels, 0 for an empty tree
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the SAH cost of the tree
+     *
+     * @return expected cost of a ray that crosses the root box
+     */
+    public double getSahCost() {
+        return sahCost;
+    }
+
+    /**
+     * Returns the number of intersectables that are kept out of the tree
+     *
+     * @return number of intersectables without a bounding box
+     */
+    public int getUnbounded() {
+        return unbounded;
+    }
+
+    /**
+     * Returns the number of intersectables in the tree
+     *
+     * @return number of intersectables in the leaves
+     */
+    public int getItems() {
+        return items;
+    }
+
+    @Override
+    public String toString() {
+        String result = String.format("BVH: %d items (%d unbounded), %d nodes, %d leaves, depth %d, SAH cost %.2f, built in %.1f ms",
+                items, unbounded, nodes, leaves, depth, sahCost, getBuildTime());
+        return refitTime == 0 ? result : result + String.format(", refitted in %.1f ms", getRefitTime());
+    }
+}
@@ -0,0 +1,239 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * Axis aligned bounding box (AABB) of a finite intersectable.
+ * Used by the acceleration structures in order to skip whole groups of geometries
+ * that a ray can not hit.
+ */
+public class BoundingBox {
+
+    /**
+     * Relative tolerance of the slab test, so that hits on the very border of a flat box are not lost
+     */
+    private static final double SLAB_TOLERANCE = 1 + 1e-9;
+
+    final double minX, minY, minZ;
+    final double maxX, maxY, maxZ;
+
+    /**
+     * Constructor that receives the two extreme corners of the box
+     *
+     * @param minX minimal x value
+     * @param minY minimal y value
+     * @param minZ minimal z value
+     * @param maxX maximal x value
+     * @param maxY maximal y value
+     * @param maxZ maximal z value
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        if (minX > maxX || minY > maxY || minZ > maxZ)
+            throw new IllegalArgumentException("minimal corner of bounding box must be below the maximal corner");
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Builds the smallest box that contains all the given points
+     *
+     * @param points the points to bound
+     * @return bounding box of the points
+     */
+    public static BoundingBox of(Point... points) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (Point p : points) {
+            minX = Math.min(minX, p.getX());
+            minY = Math.min(minY, p.getY());
+            minZ = Math.min(minZ, p.getZ());
+            maxX = Math.max(maxX, p.getX());
+            maxY = Math.max(maxY, p.getY());
+            maxZ = Math.max(maxZ, p.getZ());
+        }
+        return new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Returns the smallest box that contains both this box and the other box
+     *
+     * @param other the other box
+     * @return union of the boxes
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+    }
+
+    /**
+     * Returns the minimal corner of the box
+     *
+     * @return minimal corner
+     */
+    public Point getMin() {
+        return new Point(minX, minY, minZ);
+    }
+
+    /**
+     * Returns the maximal corner of the box
+     *
+     * @return maximal corner
+     */
+    public Point getMax() {
+        return new Point(maxX, maxY, maxZ);
+    }
+
+    /**
+     * Returns the center of the box along the given axis
+     *
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return center coordinate
+     */
+    double center(int axis) {
+        return switch (axis) {
+            case 0 -> (minX + maxX) / 2;
+            case 1 -> (minY + maxY) / 2;
+            default -> (minZ + maxZ) / 2;
+        };
+    }
+
+    /**
+     * Surface area of the box, used by the surface area heuristic (SAH)
+     *
+     * @return surface area
+     */
+    public double surfaceArea() {
+        double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Slab test - checks whether the ray enters the box before the given distance
+     *
+     * @param ray         the ray
+     * @param maxDistance maximal distance along the ray
+     * @return true if the ray passes through the box
+     */
+    public boolean intersects(Ray ray, double maxDistance) {
+        Point p0 = ray.getP0();
+        Vector v = ray.getDir();
+        return intersect(p0.getX(), p0.getY(), p0.getZ(), 1 / v.getX(), 1 / v.getY(), 1 / v.getZ(), maxDistance)
+                != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Slab test on already decomposed ray, so that a traversal can calculate the inverse direction only once
+     *
+     * @param ox          ray origin x
+     * @param oy          ray origin y
+     * @param oz          ray origin z
+     * @param invX        1 / ray direction x
+     * @param invY        1 / ray direction y
+     * @param invZ        1 / ray direction z
+     * @param maxDistance maximal distance along the ray
+     * @return distance where the ray enters the box (0 if it starts inside), or positive infinity if it misses
+     */
+    double intersect(double ox, double oy, double oz, double invX, double invY, double invZ, double maxDistance) {
+        double t1 = (minX - ox) * invX, t2 = (maxX - ox) * invX;
+        double tMin = Math.min(t1, t2), tMax = Math.max(t1, t2);
+
+        t1 = (minY - oy) * invY;
+        t2 = (maxY - oy) * invY;
+        tMin = Math.max(tMin, Math.min(t1, t2));
+        tMax = Math.min(tMax, Math.max(t1, t2));
+
+        t1 = (minZ - oz) * invZ;
+        t2 = (maxZ - oz) * invZ;
+        tMin = Math.max(tMin, Math.min(t1, t2));
+        tMax = Math.min(tMax, Math.max(t1, t2));
+
+        //NaN values (0 * infinity for a ray on a slab border) fail the comparison and are treated as a hit
+        if (tMax < 0 || tMin > tMax * SLAB_TOLERANCE || tMin > maxDistance)
+            return Double.POSITIVE_INFINITY;
+        return tMin > 0 ? tMin : 0;
+    }
+
+    /**
+     * Slab test of a box that is kept in a flat array (minX, minY, minZ, maxX, maxY, maxZ),
+     * for structures that don't keep a {@link BoundingBox} object for every node
+     *
+     * @param bounds      array of boxes
+     * @param b           place of the box in the array
+     * @param ox          ray origin x
+     * @param oy          ray origin y
+     * @param oz          ray origin z
+     * @param invX        1 / ray direction x
+     * @param invY        1 / ray direction y
+     * @param invZ        1 / ray direction z
+     * @param maxDistance maximal distance along the ray
+     * @return distance where the ray enters the box (0 if it starts inside), or positive infinity if it misses
+     */
+    static double intersect(double[] bounds, int b, double ox, double oy, double oz,
+                            double invX, double invY, double invZ, double maxDistance) {
+        double t1 = (bounds[b] - ox) * invX, t2 = (bounds[b + 3] - ox) * invX;
+        double tMin = Math.min(t1, t2), tMax = Math.max(t1, t2);
+
+        t1 = (bounds[b + 1] - oy) * invY;
+        t2 = (bounds[b + 4] - oy) * invY;
+        tMin = Math.max(tMin, Math.min(t1, t2));
+        tMax = Math.min(tMax, Math.max(t1, t2));
+
+        t1 = (bounds[b + 2] - oz) * invZ;
+        t2 = (bounds[b + 5] - oz) * invZ;
+        tMin = Math.max(tMin, Math.min(t1, t2));
+        tMax = Math.min(tMax, Math.max(t1, t2));
+
+        if (tMax < 0 || tMin > tMax * SLAB_TOLERANCE || tMin > maxDistance)
+            return Double.POSITIVE_INFINITY;
+        return tMin > 0 ? tMin : 0;
+    }
+
+    /**
+     * Slab test of a box that is kept as float bits in a flat int array (minX, minY, minZ, maxX, maxY, maxZ),
+     * for the flat nodes of a hierarchy
+     *
+     * @param bounds      array of boxes
+     * @param b           place of the box in the array
+     * @param ox          ray origin x
+     * @param oy          ray origin y
+     * @param oz          ray origin z
+     * @param invX        1 / ray direction x
+     * @param invY        1 / ray direction y
+     * @param invZ        1 / ray direction z
+     * @param maxDistance maximal distance of the entry point from the ray origin
+     * @return distance to the entry point (0 if the origin is inside), or positive infinity if the ray misses
+     */
+    static double intersect(int[] bounds, int b, double ox, double oy, double oz,
+                            double invX, double invY, double invZ, double maxDistance) {
+        double t1 = (Float.intBitsToFloat(bounds[b]) - ox) * invX, t2 = (Float.intBitsToFloat(bounds[b + 3]) - ox) * invX;
+        double tMin = Math.min(t1, t2), tMax = Math.max(t1, t2);
+
+        t1 = (Float.intBitsToFloat(bounds[b + 1]) - oy) * invY;
+        t2 = (Float.intBitsToFloat(bounds[b + 4]) - oy) * invY;
+        tMin = Math.max(tMin, Math.min(t1, t2));
+        tMax = Math.min(tMax, Math.max(t1, t2));
+
+        t1 = (Float.intBitsToFloat(bounds[b + 2]) - oz) * invZ;
+        t2 = (Float.intBitsToFloat(bounds[b + 5]) - oz) * invZ;
+        tMin = Math.max(tMin, Math.min(t1, t2));
+        tMax = Math.min(tMax, Math.max(t1, t2));
+
+        if (tMax < 0 || tMin > tMax * SLAB_TOLERANCE || tMin > maxDistance)
+            return Double.POSITIVE_INFINITY;
+        return tMin > 0 ? tMin : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{" +
+                "min=(" + minX + "," + minY + "," + minZ + ")" +
+                ", max=(" + maxX + "," + maxY + "," + maxZ + ")" +
+                '}';
+    }
+}
@@ -9,6 +9,7 @@ import java.util.List;
 public class Cylinder extends Tube {
 
     private final double height;
+    private final BoundingBox box;
 
     /**
      * constaractor
@@ -19,6 +20,17 @@ public class Cylinder extends Tube {
     public Cylinder(Ray axisRay, double radius, double height) {
         super(axisRay, radius);
         this.height = height;
+
+        //the bases are discs around the axis, a disc sticks out along each axis by r * sqrt(1 - d^2)
+        Point bottom = axisRay.getP0();
+        Point top = axisRay.getPoint(height);
+        Vector d = axisRay.getDir();
+        double eX = radius * Math.sqrt(Math.max(0, 1 - d.getX() * d.getX()));
+        double eY = radius * Math.sqrt(Math.max(0, 1 - d.getY() * d.getY()));
+        double eZ = radius * Math.sqrt(Math.max(0, 1 - d.getZ() * d.getZ()));
+        box = new BoundingBox(Math.min(bottom.getX(), top.getX()) - eX, Math.min(bottom.getY(), top.getY()) - eY,
+                Math.min(bottom.getZ(), top.getZ()) - eZ, Math.max(bottom.getX(), top.getX()) + eX,
+                Math.max(bottom.getY(), top.getY()) + eY, Math.max(bottom.getZ(), top.getZ()) + eZ);
     }
 
     /**
@@ -52,6 +64,11 @@ public class Cylinder extends Tube {
     }
 
 
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
+    }
+
     @Override
     public List<Point> findIntersections(Ray ray) {
         return null;
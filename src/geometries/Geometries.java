@@ -1,15 +1,29 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 public class Geometries extends Intersectable {
 
-    private List<Intersectable> geometries;
+    private final List<Intersectable> geometries = new ArrayList<>();
+    private boolean useBVH = false; //whether the intersectables are organized in a bounding volume hierarchy
+    private BVHBuilder bvhBuilder = BVHBuilder.SAH; //algorithm of the hierarchy build
+    private volatile BVH bvh = null; //built lazily on the first query after a change
+    private double rebuildThreshold = 1.5; //a refitted hierarchy is built again when its cost grows by this factor
+    private BoundingBox box = null; //union of the boxes of the intersectables
+    private boolean infinite = false; //whether one of the intersectables has no bounding box
+
+    private boolean boxCulling = true; //whether a slab test runs before the exact intersection of each intersectable
+    private final LongAdder exactTests = new LongAdder(); //exact intersection tests that were done
+    private final LongAdder culledTests = new LongAdder(); //exact intersection tests that were saved by the slab test
+
     /**
      * Find the intersections of the ray with all the intersectables in the scene
      *
@@ -18,10 +32,13 @@ public class Geometries extends Intersectable {
      */
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray,double maxDistance) {
+        if (useBVH)
+            return getBVH().findGeoIntersections(ray, maxDistance);
+
         List<GeoPoint> result = null;
 
         for (Intersectable item : geometries) {
-            List<GeoPoint> itemPoints = item.findGeoIntersectionsHelper(ray,maxDistance);
+            List<GeoPoint> itemPoints = findItemIntersections(item, item.getBoundingBox(), ray, maxDistance);
             if (itemPoints != null) {
                 if (result == null) {
                     result = new LinkedList<>();
@@ -33,12 +50,247 @@ public class Geometries extends Intersectable {
         return result;
     }
 
+    /**
+     * Finds the closest intersection of the ray with the intersectables. A single {@link HitRecord} is passed
+     * through all of them, so no intermediate intersection is created - only the final one.
+     *
+     * @param ray         The ray to test for intersections.
+     * @param maxDistance maximal distance of the intersection from the ray head
+     * @return the closest intersection, or null if there is none
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        HitRecord hit = HitRecord.acquire(maxDistance);
+        try {
+            return findClosestHitHelper(ray, hit) ? hit.toGeoPoint(ray) : null;
+        } finally {
+            hit.release();
+        }
+    }
+
+    /**
+     * Records the closest hit of the ray with the intersectables. The distance of the best hit so far
+     * is kept in the record, so farther intersectables are rejected early.
+     *
+     * @param ray The ray to test for intersections.
+     * @param hit the record to fill in place
+     * @return true if the record was updated
+     */
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+        if (useBVH)
+            return getBVH().findClosestHit(ray, hit);
+
+        boolean found = false;
+        //indexed loop, so that the hot path doesn't create an iterator
+        for (int i = 0; i < geometries.size(); ++i) {
+            Intersectable item = geometries.get(i);
+            if (findItemClosestHit(item, item.getBoundingBox(), ray, hit))
+                found = true;
+        }
+        return found;
+    }
+
+    /**
+     * Multiplies the transparency of the intersectables one by one,
+     * and stops as soon as it drops below the minimal factor
+     *
+     * @param ray         ray from the shaded point towards the light
+     * @param maxDistance distance of the light from the ray head
+     * @param ktr         transparency accumulated so far
+     * @param minK        minimal transparency factor that still affects the color
+     * @return the accumulated transparency, or zero if it is below minK
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        if (useBVH)
+            return getBVH().findTransparency(ray, maxDistance, ktr, minK);
+
+        for (Intersectable item : geometries) {
+            ktr = findItemTransparency(item, item.getBoundingBox(), ray, maxDistance, ktr, minK);
+            if (ktr.lowerThan(minK))
+                return ktr;
+        }
+        return ktr;
+    }
+
+    /**
+     * Finds the intersections of the ray with one of the intersectables.
+     * If box culling is on, the exact intersection runs only if the ray passes through the bounding box.
+     *
+     * @param item        the intersectable
+     * @param box         its bounding box, null if it is infinite
+     * @param ray         the ray
+     * @param maxDistance maximal distance of an intersection from the ray head
+     * @return list of intersections, or null if there are none
+     */
+    List<GeoPoint> findItemIntersections(Intersectable item, BoundingBox box, Ray ray, double maxDistance) {
+        if (boxCulling && box != null && !box.intersects(ray, maxDistance)) {
+            culledTests.increment();
+            return null;
+        }
+        exactTests.increment();
+        return item.findGeoIntersectionsHelper(ray, maxDistance);
+    }
+
+    /**
+     * Box culling of an intersectable whose box is kept in a flat array (by the hierarchy), on a decomposed ray.
+     * Counts the test as culled or as exact, like the other item queries
+     *
+     * @param bounds      array of boxes
+     * @param b           place of the box in the array
+     * @param ox          ray origin x
+     * @param oy          ray origin y
+     * @param oz          ray origin z
+     * @param invX        1 / ray direction x
+     * @param invY        1 / ray direction y
+     * @param invZ        1 / ray direction z
+     * @param maxDistance maximal distance of an intersection from the ray head
+     * @return true if the ray misses the box, so the exact test can be skipped
+     */
+    boolean cullItem(double[] bounds, int b, double ox, double oy, double oz,
+                     double invX, double invY, double invZ, double maxDistance) {
+        if (boxCulling && BoundingBox.intersect(bounds, b, ox, oy, oz, invX, invY, invZ, maxDistance)
+                == Double.POSITIVE_INFINITY) {
+            culledTests.increment();
+            return true;
+        }
+        exactTests.increment();
+        return false;
+    }
+
+    /**
+     * Records the closest hit of the ray with one of the intersectables, with the same box culling
+     * as {@link #findItemIntersections(Intersectable, BoundingBox, Ray, double)}
+     *
+     * @param item the intersectable
+     * @param box  its bounding box, null if it is infinite
+     * @param ray  the ray
+     * @param hit  the record to fill in place
+     * @return true if the record was updated
+     */
+    boolean findItemClosestHit(Intersectable item, BoundingBox box, Ray ray, HitRecord hit) {
+        if (boxCulling && box != null && !box.intersects(ray, hit.t)) {
+            culledTests.increment();
+            return false;
+        }
+        exactTests.increment();
+        return item.findClosestHitHelper(ray, hit);
+    }
+
+    /**
+     * Calculates the transparency of one of the intersectables, with the same box culling
+     * as {@link #findItemIntersections(Intersectable, BoundingBox, Ray, double)}
+     *
+     * @param item        the intersectable
+     * @param box         its bounding box, null if it is infinite
+     * @param ray         ray from the shaded point towards the light
+     * @param maxDistance distance of the light from the ray head
+     * @param ktr         transparency accumulated so far
+     * @param minK        minimal transparency factor that still affects the color
+     * @return the accumulated transparency, or zero if it is below minK
+     */
+    Double3 findItemTransparency(Intersectable item, BoundingBox box, Ray ray, double maxDistance,
+                                 Double3 ktr, double minK) {
+        if (boxCulling && box != null && !box.intersects(ray, maxDistance)) {
+            culledTests.increment();
+            return ktr;
+        }
+        exactTests.increment();
+        return item.findTransparencyHelper(ray, maxDistance, ktr, minK);
+    }
+
+    /**
+     * Returns the hierarchy of the intersectables, builds it if it is missing.
+     * The render threads may ask for it together, so only one of them builds it.
+     *
+     * @return the bounding volume hierarchy
+     */
+    private BVH getBVH() {
+        BVH tree = bvh;
+        if (tree == null) {
+            synchronized (this) {
+                tree = bvh;
+                if (tree == null)
+                    bvh = tree = new BVH(this, geometries, bvhBuilder);
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Returns the build time and the quality of the bounding volume hierarchy, builds it if it is missing
+     *
+     * @return the statistics of the hierarchy, or null if the collection doesn't use a hierarchy
+     */
+    public BVHStatistics getBVHStatistics() {
+        return useBVH ? getBVH().getStatistics() : null;
+    }
+
+    /**
+     * Updates the collection after its intersectables moved - e.g. between the frames of an animation.
+     * Nested collections and triangle meshes are updated first, then the boxes of the hierarchy are refitted
+     * bottom-up, which is much faster than a new build. A refit keeps the structure of the tree, so after big moves
+     * the tree gets worse: when its SAH cost grows past the rebuild threshold, the hierarchy is dropped
+     * and built again on the next query.<br/>
+     * It must not be called during a render.
+     *
+     * @return true if the hierarchy is built again, false if it was refitted (or there is none)
+     */
+    public boolean refit() {
+        box = null;
+        infinite = false;
+        for (Intersectable item : geometries) {
+            if (item instanceof Geometries nested)
+                nested.refit();
+            else if (item instanceof TriangleMesh mesh)
+                mesh.refit();
+            BoundingBox itemBox = item.getBoundingBox();
+            if (itemBox == null)
+                infinite = true;
+            else
+                box = box == null ? itemBox : box.union(itemBox);
+        }
+
+        BVH tree = bvh;
+        if (tree == null)
+            return false;
+        if (tree.refit() > rebuildThreshold * tree.getBuiltCost()) {
+            bvh = null;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sets how much the SAH cost of the hierarchy may grow by refits before it is built again, see {@link #refit()}
+     *
+     * @param rebuildThreshold ratio of the refitted cost to the cost after the build, 1.5 by default
+     * @return the Geometries object itself
+     * @throws IllegalArgumentException if the threshold is below 1
+     */
+    public Geometries setRebuildThreshold(double rebuildThreshold) {
+        if (rebuildThreshold < 1)
+            throw new IllegalArgumentException("Rebuild threshold must be at least 1");
+        this.rebuildThreshold = rebuildThreshold;
+        return this;
+    }
+
+    /**
+     * Union of the bounding boxes of all the intersectables
+     *
+     * @return the bounding box, or null if the collection is empty or one of the intersectables is infinite
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return infinite ? null : box;
+    }
+
     /**
      *     This is the default constructor for the class.
      *     It creates a new list of intersectables.
      */
     public Geometries() {
-        this.geometries = new LinkedList<>();
     }
     /**
      * Geometries
@@ -53,5 +305,80 @@ public class Geometries extends Intersectable {
      */
     public void add(Intersectable... geometries) {
         this.geometries.addAll(Arrays.asList(geometries));
+        for (Intersectable item : geometries) {
+            BoundingBox itemBox = item.getBoundingBox();
+            if (itemBox == null)
+                infinite = true;
+            else
+                box = box == null ? itemBox : box.union(itemBox);
+        }
+        bvh = null;
+    }
+
+    /**
+     * Enables or disables the bounding volume hierarchy (BVH) acceleration.
+     * With the hierarchy a ray is tested only against intersectables whose bounding box it passes through,
+     * so the query time grows roughly with log of the number of intersectables.
+     * The hierarchy is built on the first query after a change of the collection.
+     *
+     * @param useBVH true to use the hierarchy, false for testing every intersectable
+     * @return the Geometries object itself
+     */
+    public Geometries setBVH(boolean useBVH) {
+        this.useBVH = useBVH;
+        return this;
+    }
+
+    /**
+     * Selects the algorithm that builds the bounding volume hierarchy. The hierarchy is built again
+     * on the next query
+     *
+     * @param bvhBuilder the build algorithm, SAH by default
+     * @return the Geometries object itself
+     */
+    public Geometries setBVHBuilder(BVHBuilder bvhBuilder) {
+        this.bvhBuilder = bvhBuilder;
+        bvh = null;
+        return this;
+    }
+
+    /**
+     * Enables or disables the slab test against the bounding box of each intersectable,
+     * that runs before its exact intersection test
+     *
+     * @param boxCulling true to run the slab test, false to always run the exact test
+     * @return the Geometries object itself
+     */
+    public Geometries setBoxCulling(boolean boxCulling) {
+        this.boxCulling = boxCulling;
+        return this;
+    }
+
+    /**
+     * Returns the number of exact intersection tests that were done by this collection
+     * (not including the tests inside nested collections)
+     *
+     * @return number of exact tests
+     */
+    public long getExactTests() {
+        return exactTests.sum();
+    }
+
+    /**
+     * Returns the number of exact intersection tests that were saved by the slab test
+     * (not including the tests inside nested collections)
+     *
+     * @return number of saved tests
+     */
+    public long getCulledTests() {
+        return culledTests.sum();
+    }
+
+    /**
+     * Resets the counters of exact and saved intersection tests
+     */
+    public void resetTestCounters() {
+        exactTests.reset();
+        culledTests.reset();
     }
 }
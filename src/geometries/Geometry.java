@@ -1,8 +1,10 @@
 package geometries;
 
 import primitives.Color;
+import primitives.Double3;
 import primitives.Material;
 import primitives.Point;
+import primitives.Ray;
 import primitives.Vector;
 
 public abstract class Geometry extends Intersectable  {
@@ -38,6 +40,17 @@ public abstract class Geometry extends Intersectable  {
      */
     public abstract Vector getNormal(Point p);
 
+    /**
+     * Returns the normal at an intersection point. A simple geometry needs only the point,
+     * a geometry that is made of many faces (e.g. a triangle mesh) needs also the face that was hit.
+     *
+     * @param gp the intersection point
+     * @return The normal vector to the surface at the point.
+     */
+    public Vector getNormal(Intersectable.GeoPoint gp) {
+        return getNormal(gp.point);
+    }
+
     /**
      * This function sets the material of the geometry and returns the geometry.
      *
@@ -58,4 +71,32 @@ public abstract class Geometry extends Intersectable  {
         return material;
     }
 
+    /**
+     * An opaque geometry blocks the light already with its first intersection,
+     * so it only has to check whether there is an intersection at all.
+     * A geometry that blocks the light alone is recorded as the occluder of the query
+     *
+     * @param ray         ray from the shaded point towards the light
+     * @param maxDistance distance of the light from the ray head
+     * @param ktr         transparency accumulated so far
+     * @param minK        minimal transparency factor that still affects the color
+     * @return the accumulated transparency, or zero if it is below minK
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        if (material.kT.product(ktr).lowerThan(minK)) {
+            HitRecord hit = HitRecord.acquire(maxDistance);
+            try {
+                if (!findClosestHitHelper(ray, hit))
+                    return ktr;
+                if (material.kT.lowerThan(minK))
+                    setOccluder(this); //blocks the light without the other occluders
+                return Double3.ZERO;
+            } finally {
+                hit.release();
+            }
+        }
+        return super.findTransparencyHelper(ray, maxDistance, ktr, minK);
+    }
+
 }
@@ -0,0 +1,150 @@
+package geometries;
+
+import primitives.Ray;
+import primitives.Transform;
+
+import static primitives.Util.alignZero;
+
+/**
+ * Mutable record of the closest hit of a ray, that the geometries fill in place.
+ * The closest-hit query of {@link Geometries} passes one record through all its members,
+ * so the inner loop allocates nothing - only the final hit is turned into a {@link Intersectable.GeoPoint}.<br/>
+ * Every thread owns a small pool of records, see {@link #acquire(double)}.
+ */
+public class HitRecord {
+    /**
+     * Distance of the hit from the ray head, or the maximal distance while there is no hit
+     */
+    public double t;
+    /**
+     * The geometry that was hit, null while there is no hit
+     */
+    public Geometry geometry;
+    /**
+     * Barycentric coordinates of a triangle hit (weights of the second and third vertices), 0 for other geometries
+     */
+    public double u, v;
+    /**
+     * Index of the face that was hit in a geometry that is made of many faces, -1 for other geometries
+     */
+    public int face;
+    /**
+     * Transformation from the space of the geometry that was hit to the scene, null if it wasn't hit through an
+     * {@link Instance}
+     */
+    public Transform transform;
+
+    /**
+     * Scratch stacks for the traversal of a hierarchy, kept here so the traversal allocates nothing
+     */
+    int[] nodeStack = new int[64];
+    double[] entryStack = new double[64];
+    int stackBase = 0; //first free place in the stacks, above the part that an outer traversal uses
+
+    private boolean inUse = false;
+    private HitRecord next = null; //next record in the pool of the thread
+
+    private static final ThreadLocal<HitRecord> POOL = ThreadLocal.withInitial(HitRecord::new);
+
+    /**
+     * Constructor of an empty record, without any distance limit
+     */
+    public HitRecord() {
+        reset(Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Clears the record before a new query
+     *
+     * @param maxDistance maximal distance of a hit from the ray head
+     */
+    public void reset(double maxDistance) {
+        t = maxDistance;
+        geometry = null;
+        u = 0;
+        v = 0;
+        face = -1;
+        transform = null;
+        stackBase = 0;
+    }
+
+    /**
+     * Checks whether a hit at the given distance should replace the current one - it must be closer than the
+     * current hit, or within the maximal distance if there is no hit yet
+     *
+     * @param t distance of the hit from the ray head
+     * @return true if the hit is closer
+     */
+    public boolean isCloser(double t) {
+        return geometry == null ? alignZero(t - this.t) <= 0 : t < this.t;
+    }
+
+    /**
+     * Records a hit
+     *
+     * @param geometry the geometry that was hit
+     * @param t        distance of the hit from the ray head
+     * @param u        barycentric weight of the second vertex
+     * @param v        barycentric weight of the third vertex
+     */
+    public void set(Geometry geometry, double t, double u, double v) {
+        set(geometry, t, u, v, -1);
+    }
+
+    /**
+     * Records a hit on a face of a geometry that is made of many faces
+     *
+     * @param geometry the geometry that was hit
+     * @param t        distance of the hit from the ray head
+     * @param u        barycentric weight of the second vertex of the face
+     * @param v        barycentric weight of the third vertex of the face
+     * @param face     index of the face
+     */
+    public void set(Geometry geometry, double t, double u, double v, int face) {
+        this.geometry = geometry;
+        this.t = t;
+        this.u = u;
+        this.v = v;
+        this.face = face;
+        this.transform = null;
+    }
+
+    /**
+     * Turns the recorded hit into an intersection point
+     *
+     * @param ray the ray that the hit is on
+     * @return the intersection
+     */
+    Intersectable.GeoPoint toGeoPoint(Ray ray) {
+        Intersectable.GeoPoint gp = new Intersectable.GeoPoint(geometry, ray.getPoint(t), face, transform);
+        gp.u = u;
+        gp.v = v;
+        return gp;
+    }
+
+    /**
+     * Takes a free record from the pool of the current thread. The pool grows only when queries are nested
+     * (e.g. a geometry that runs a closest-hit query of its own), so in a steady state nothing is allocated.
+     *
+     * @param maxDistance maximal distance of a hit from the ray head
+     * @return a cleared record, that must be given back with {@link #release()}
+     */
+    static HitRecord acquire(double maxDistance) {
+        HitRecord record = POOL.get();
+        while (record.inUse) {
+            if (record.next == null)
+                record.next = new HitRecord();
+            record = record.next;
+        }
+        record.inUse = true;
+        record.reset(maxDistance);
+        return record;
+    }
+
+    /**
+     * Gives the record back to the pool of its thread
+     */
+    void release() {
+        inUse = false;
+    }
+}
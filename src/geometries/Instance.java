@@ -0,0 +1,187 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+import java.util.List;
+
+/**
+ * A copy of an intersectable that is placed in the scene by an affine transformation (two-level instancing).<br/>
+ * The child is shared by all its instances - usually a {@link Geometries} collection with its own hierarchy -
+ * and the rays are moved into the space of the child instead of moving the child into the scene.
+ * So a thousand copies of a mesh take the memory of one mesh, and the hierarchy of the scene indexes
+ * only the instances.<br/>
+ * The bounding box is taken when the instance is created or moved, so the child should be complete by then.
+ */
+public class Instance extends Intersectable {
+    private final Intersectable child;
+    private Transform transform;
+    private BoundingBox box;
+
+    /**
+     * Constructor of an instance
+     *
+     * @param child     the shared intersectable, in its own space
+     * @param transform transformation from the space of the child to the scene
+     */
+    public Instance(Intersectable child, Transform transform) {
+        this.child = child;
+        setTransform(transform);
+    }
+
+    /**
+     * Moves the instance. A collection that contains the instance must be refitted afterwards,
+     * see {@link Geometries#refit()}
+     *
+     * @param transform transformation from the space of the child to the scene
+     * @return the instance itself
+     */
+    public Instance setTransform(Transform transform) {
+        this.transform = transform;
+
+        //box of the 8 transformed corners of the box of the child
+        BoundingBox childBox = child.getBoundingBox();
+        if (childBox == null)
+            box = null;
+        else {
+            Point[] corners = new Point[8];
+            for (int i = 0; i < 8; ++i)
+                corners[i] = transform.apply(new Point(
+                        (i & 1) == 0 ? childBox.minX : childBox.maxX,
+                        (i & 2) == 0 ? childBox.minY : childBox.maxY,
+                        (i & 4) == 0 ? childBox.minZ : childBox.maxZ));
+            box = BoundingBox.of(corners);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the shared intersectable
+     *
+     * @return the child
+     */
+    public Intersectable getChild() {
+        return child;
+    }
+
+    /**
+     * Returns the transformation from the space of the child to the scene
+     *
+     * @return the transformation
+     */
+    public Transform getTransform() {
+        return transform;
+    }
+
+    /**
+     * Moves a ray of the scene into the space of the child. The direction of the moved ray is normalized,
+     * so distances along it are the distances in the scene times the length of the moved direction.
+     *
+     * @param ray ray in the scene
+     * @return ray in the space of the child
+     */
+    private Ray toChild(Ray ray) {
+        return new Ray(transform.applyInverse(ray.getP0()), transform.applyInverse(ray.getDir()));
+    }
+
+    /**
+     * Returns the ratio between distances in the space of the child and distances in the scene
+     *
+     * @param ray ray in the scene
+     * @return the scale of the distances along the ray
+     */
+    private double scale(Ray ray) {
+        return transform.applyInverse(ray.getDir()).length();
+    }
+
+    /**
+     * Finds the intersections in the space of the child and moves them to the scene
+     *
+     * @param ray         The ray to test for intersections.
+     * @param maxDistance maximal distance of the intersections from the ray head
+     * @return the intersections in the scene, or null if there are none
+     */
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        List<GeoPoint> points = child.findGeoIntersectionsHelper(toChild(ray), maxDistance * scale(ray));
+        if (points == null)
+            return null;
+        for (GeoPoint gp : points) {
+            gp.point = transform.apply(gp.point);
+            gp.transform = gp.transform == null ? transform : gp.transform.then(transform);
+        }
+        return points;
+    }
+
+    /**
+     * Finds the closest intersection through a {@link HitRecord}, like {@link Geometries}
+     *
+     * @param ray         The ray to test for intersections.
+     * @param maxDistance maximal distance of the intersection from the ray head
+     * @return the closest intersection, or null if there is none
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        HitRecord hit = HitRecord.acquire(maxDistance);
+        try {
+            return findClosestHitHelper(ray, hit) ? hit.toGeoPoint(ray) : null;
+        } finally {
+            hit.release();
+        }
+    }
+
+    /**
+     * Records the closest hit in the space of the child. The distance of the record is scaled into the space
+     * of the child for the query and back to the scene after it.
+     *
+     * @param ray The ray to test for intersections.
+     * @param hit the record to fill in place
+     * @return true if the record was updated
+     */
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+        Vector dir = transform.applyInverse(ray.getDir());
+        double scale = dir.length();
+        double t = hit.t;
+        hit.t = t * scale;
+        if (!child.findClosestHitHelper(new Ray(transform.applyInverse(ray.getP0()), dir), hit)) {
+            hit.t = t; //restore the exact distance, scaling back might round it
+            return false;
+        }
+        hit.t /= scale;
+        hit.transform = hit.transform == null ? transform : hit.transform.then(transform);
+        return true;
+    }
+
+    /**
+     * Calculates the transparency in the space of the child, an occluder inside the child is recorded
+     * as the instance
+     *
+     * @param ray         ray from the shaded point towards the light
+     * @param maxDistance distance of the light from the ray head
+     * @param ktr         transparency accumulated so far
+     * @param minK        minimal transparency factor that still affects the color
+     * @return the accumulated transparency, or zero if it is below minK
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        Double3 result = child.findTransparencyHelper(toChild(ray), maxDistance * scale(ray), ktr, minK);
+        //an occluder of the child is in the space of the child, the instance is the occluder in the scene
+        if (result.lowerThan(minK))
+            wrapOccluder(this);
+        return result;
+    }
+
+    /**
+     * Returns the box of the transformed box of the child
+     *
+     * @return the bounding box, or null if the child is infinite
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
+    }
+}
@@ -1,13 +1,19 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Transform;
 import primitives.Vector;
 
-import java.io.DataInput;
 import java.util.List;
 
 public abstract class Intersectable {
+    /**
+     * The last opaque intersectable of the scene that blocked a shadow ray of the thread, see {@link #takeOccluder()}
+     */
+    private static final ThreadLocal<Intersectable[]> OCCLUDER = ThreadLocal.withInitial(() -> new Intersectable[1]);
+
     /**
      * Helper class
      * In order to get color for each geometry shape individually
@@ -24,9 +30,25 @@ public abstract class Intersectable {
          */
         public Point point;
         /**
-         * the normal at the point on the geometry
+         * the normal at the point on the geometry - calculated only when it is requested,
+         * since most of the intersections (far hits, shadow occluders) are never shaded
          */
-        public Vector normal;
+        private Vector normal;
+        /**
+         * index of the face that was hit in a geometry that is made of many faces (e.g. a triangle mesh),
+         * -1 for a simple geometry
+         */
+        public int face = -1;
+        /**
+         * barycentric weights of the second and the third vertex of the triangle (or the face of a mesh)
+         * that was hit, for interpolating the attributes of the vertices - 0 for other geometries
+         */
+        public double u, v;
+        /**
+         * transformation from the space of the geometry to the scene when the geometry was hit
+         * through an {@link Instance}, null for a geometry that is placed in the scene directly
+         */
+        public Transform transform;
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -46,8 +68,61 @@ public abstract class Intersectable {
         public GeoPoint(Geometry geometry, Point point) {
             this.geometry = geometry;
             this.point = point;
-            if(geometry!=null)
-                this.normal = this.geometry.getNormal(this.point);
+        }
+
+        /**
+         * Constructor of an intersection with a face of a geometry that is made of many faces
+         *
+         * @param geometry the geometry
+         * @param point    the intersection point
+         * @param face     index of the face that was hit
+         */
+        public GeoPoint(Geometry geometry, Point point, int face) {
+            this.geometry = geometry;
+            this.point = point;
+            this.face = face;
+        }
+
+        /**
+         * Constructor of an intersection with a geometry that was hit through an {@link Instance}
+         *
+         * @param geometry  the geometry
+         * @param point     the intersection point in the scene
+         * @param face      index of the face that was hit, -1 for a simple geometry
+         * @param transform transformation from the space of the geometry to the scene, null for none
+         */
+        public GeoPoint(Geometry geometry, Point point, int face, Transform transform) {
+            this(geometry, point, face);
+            this.transform = transform;
+        }
+
+        /**
+         * Constructor of an intersection with a triangle, or with a face of a geometry that is made of many faces
+         *
+         * @param geometry the geometry
+         * @param point    the intersection point
+         * @param face     index of the face that was hit, -1 for a simple triangle
+         * @param u        barycentric weight of the second vertex
+         * @param v        barycentric weight of the third vertex
+         */
+        public GeoPoint(Geometry geometry, Point point, int face, double u, double v) {
+            this(geometry, point, face);
+            this.u = u;
+            this.v = v;
+        }
+
+        /**
+         * Returns the normal of the geometry at the point, calculates it on the first call.
+         * The normal of an instanced geometry is calculated in the space of the geometry and transformed to the scene.
+         *
+         * @return the normal at the point
+         */
+        public Vector getNormal() {
+            if (normal == null)
+                normal = transform == null ? geometry.getNormal(this)
+                        : transform.applyToNormal(geometry.getNormal(
+                        new GeoPoint(geometry, transform.applyInverse(point), face))).normalize();
+            return normal;
         }
     }
     /**
@@ -71,4 +146,151 @@ public abstract class Intersectable {
 
     protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray,double maxDistance);
 
+    /**
+     * Find the intersection that is the closest to the head of the ray
+     *
+     * @param ray The ray to test for intersections.
+     * @return the closest intersection, or null if there is none
+     */
+    public GeoPoint findClosestGeoIntersection(Ray ray) {
+        return findClosestGeoIntersectionHelper(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Find the intersection that is the closest to the head of the ray, up to a maximal distance
+     *
+     * @param ray         The ray to test for intersections.
+     * @param maxDistance maximal distance of the intersection from the ray head
+     * @return the closest intersection, or null if there is none
+     */
+    public GeoPoint findClosestGeoIntersection(Ray ray, double maxDistance) {
+        return findClosestGeoIntersectionHelper(ray, maxDistance);
+    }
+
+    /**
+     * Finds the closest intersection up to the maximal distance. Any intersection that is farther away is
+     * rejected, so a collection can pass the distance of its best intersection so far to the next member.<br/>
+     * The default implementation picks the closest of all the intersections, shapes override it
+     * in order to skip building the list.
+     *
+     * @param ray         The ray to test for intersections.
+     * @param maxDistance maximal distance of the intersection from the ray head
+     * @return the closest intersection, or null if there is none
+     */
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        return ray.findClosestGeoPoint(findGeoIntersectionsHelper(ray, maxDistance));
+    }
+
+    /**
+     * Allocation free closest-hit query - records the hit in the given record if it is closer than the hit
+     * that is already there (or within the maximal distance that the record was reset with)
+     *
+     * @param ray The ray to test for intersections.
+     * @param hit the record to fill in place
+     * @return true if the record was updated
+     */
+    public boolean findClosestHit(Ray ray, HitRecord hit) {
+        return findClosestHitHelper(ray, hit);
+    }
+
+    /**
+     * Fills the record with the closest hit, if it is closer than the recorded one.<br/>
+     * The default implementation goes through {@link #findClosestGeoIntersectionHelper(Ray, double)},
+     * the basic shapes override it with arithmetic that creates no objects.
+     *
+     * @param ray The ray to test for intersections.
+     * @param hit the record to fill in place
+     * @return true if the record was updated
+     */
+    protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+        GeoPoint gp = findClosestGeoIntersectionHelper(ray, hit.t);
+        if (gp == null)
+            return false;
+        double t = ray.getP0().distance(gp.point);
+        if (!hit.isCloser(t))
+            return false;
+        hit.set(gp.geometry, t, 0, 0, gp.face);
+        hit.transform = gp.transform;
+        return true;
+    }
+
+    /**
+     * Occlusion query for shadow rays - calculates how much light passes through the intersectable
+     * along the ray, up to a maximal distance (the light source).
+     * The query stops as soon as the transparency drops below the minimal factor, e.g. on the first opaque occluder.
+     *
+     * @param ray         ray from the shaded point towards the light
+     * @param maxDistance distance of the light from the ray head
+     * @param minK        minimal transparency factor that still affects the color
+     * @return product of the transparency factors of all the occluders, or zero if it is below minK
+     */
+    public Double3 findTransparency(Ray ray, double maxDistance, double minK) {
+        return findTransparencyHelper(ray, maxDistance, Double3.ONE, minK);
+    }
+
+    /**
+     * Returns and clears the occluder of the last shadow query of the thread - the intersectable that blocked
+     * the light alone, so a shadow ray of a nearby point can test it first. An occluder inside an {@link Instance}
+     * is reported as the instance, so the occluder is always in the space of the scene.
+     *
+     * @return the occluder, or null if the last query wasn't stopped by an opaque intersectable
+     */
+    public static Intersectable takeOccluder() {
+        Intersectable[] occluder = OCCLUDER.get();
+        Intersectable result = occluder[0];
+        occluder[0] = null;
+        return result;
+    }
+
+    /**
+     * Records the occluder of the current shadow query of the thread
+     *
+     * @param occluder the intersectable that blocked the light
+     */
+    static void setOccluder(Intersectable occluder) {
+        OCCLUDER.get()[0] = occluder;
+    }
+
+    /**
+     * Replaces the occluder of the current shadow query of the thread, if one was recorded
+     *
+     * @param occluder the intersectable that contains the recorded occluder
+     */
+    static void wrapOccluder(Intersectable occluder) {
+        Intersectable[] recorded = OCCLUDER.get();
+        if (recorded[0] != null)
+            recorded[0] = occluder;
+    }
+
+    /**
+     * Multiplies the transparency accumulated so far by the transparency factor of every intersection
+     * up to the maximal distance, with the same early exit as {@link #findTransparency(Ray, double, double)}
+     *
+     * @param ray         ray from the shaded point towards the light
+     * @param maxDistance distance of the light from the ray head
+     * @param ktr         transparency accumulated so far
+     * @param minK        minimal transparency factor that still affects the color
+     * @return the accumulated transparency, or zero if it is below minK
+     */
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        var intersections = findGeoIntersectionsHelper(ray, maxDistance);
+        if (intersections == null)
+            return ktr;
+        for (GeoPoint gp : intersections) {
+            ktr = gp.geometry.getMaterial().kT.product(ktr);
+            if (ktr.lowerThan(minK))
+                return Double3.ZERO;
+        }
+        return ktr;
+    }
+
+    /**
+     * Returns the axis aligned box that contains the whole intersectable
+     *
+     * @return the bounding box, or null if the intersectable is infinite (e.g. plane or tube)
+     */
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
+
 }
@@ -0,0 +1,132 @@
+package geometries;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Morton codes (places on the Z-order curve) of points in a box, and their radix sort.<br/>
+ * A code interleaves 21 bits of each coordinate into 63 bits, so points that are close in space
+ * mostly have close codes, and the common prefix of two codes is the smallest octree cell of both.
+ */
+final class MortonCodes {
+    private static final int BITS = 21; //bits of each coordinate
+    private static final double CELLS = 1 << BITS; //cells of the grid on each axis
+    private static final int RADIX_BITS = 8; //the sort goes over the codes a byte at a time
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int CHUNK_SIZE = 1 << 14; //a smaller array is sorted by one thread
+
+    private MortonCodes() {
+    }
+
+    /**
+     * Calculates the code of a point
+     *
+     * @param x place of the point on the x axis of the box, between 0 and 1
+     * @param y place of the point on the y axis of the box, between 0 and 1
+     * @param z place of the point on the z axis of the box, between 0 and 1
+     * @return the code
+     */
+    static long encode(double x, double y, double z) {
+        return spread(quantize(x)) << 2 | spread(quantize(y)) << 1 | spread(quantize(z));
+    }
+
+    /**
+     * Finds the cell of a coordinate on the grid
+     *
+     * @param value place between 0 and 1
+     * @return cell index
+     */
+    private static long quantize(double value) {
+        return (long) Math.min(Math.max(value * CELLS, 0), CELLS - 1);
+    }
+
+    /**
+     * Moves the 21 low bits of a number to every third bit
+     *
+     * @param value the number
+     * @return the spread bits
+     */
+    private static long spread(long value) {
+        value = (value | value << 32) & 0x1F00000000FFFFL;
+        value = (value | value << 16) & 0x1F0000FF0000FFL;
+        value = (value | value << 8) & 0x100F00F00F00F00FL;
+        value = (value | value << 4) & 0x10C30C30C30C30C3L;
+        return (value | value << 2) & 0x1249249249249249L;
+    }
+
+    /**
+     * Sorts the codes, and the values that belong to them, by a stable radix sort.
+     * The chunks of a big array are counted and scattered in parallel, on the fork-join pool of the caller
+     * (or on the common pool). A byte that is the same in all the codes is skipped.
+     *
+     * @param codes  the codes
+     * @param values values that are moved together with the codes
+     */
+    static void sort(long[] codes, int[] values) {
+        int n = codes.length;
+        int chunks = Math.max(1, Math.min(n / CHUNK_SIZE, 64));
+        int chunkSize = (n + chunks - 1) / chunks;
+        int[][] counts = new int[chunks][RADIX];
+        long[] source = codes, target = new long[n];
+        int[] sourceValues = values, targetValues = new int[n];
+
+        for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+            final int s = shift;
+            final long[] from = source, to = target;
+            final int[] fromValues = sourceValues, toValues = targetValues;
+            forEachChunk(chunks, c -> {
+                int[] count = counts[c];
+                Arrays.fill(count, 0);
+                for (int i = c * chunkSize, end = Math.min(n, i + chunkSize); i < end; ++i)
+                    ++count[(int) (from[i] >>> s) & RADIX - 1];
+            });
+
+            //the place of every digit of every chunk: after all the smaller digits and this digit in earlier chunks
+            int offset = 0;
+            boolean same = false;
+            for (int digit = 0; digit < RADIX; ++digit)
+                for (int c = 0; c < chunks; ++c) {
+                    int count = counts[c][digit];
+                    if (count == n)
+                        same = true;
+                    counts[c][digit] = offset;
+                    offset += count;
+                }
+            if (same)
+                continue;
+
+            forEachChunk(chunks, c -> {
+                int[] place = counts[c];
+                for (int i = c * chunkSize, end = Math.min(n, i + chunkSize); i < end; ++i) {
+                    int p = place[(int) (from[i] >>> s) & RADIX - 1]++;
+                    to[p] = from[i];
+                    toValues[p] = fromValues[i];
+                }
+            });
+            target = from;
+            source = to;
+            targetValues = fromValues;
+            sourceValues = toValues;
+        }
+
+        //after an odd number of passes the sorted codes are in the buffer
+        if (source != codes) {
+            System.arraycopy(source, 0, codes, 0, n);
+            System.arraycopy(sourceValues, 0, values, 0, n);
+        }
+    }
+
+    /**
+     * Runs an action for every chunk, in parallel if there are several chunks
+     *
+     * @param chunks number of chunks
+     * @param action the action, receives the chunk index
+     */
+    private static void forEachChunk(int chunks, IntConsumer action) {
+        if (chunks == 1)
+            action.accept(0);
+        else
+            IntStream.range(0, chunks).parallel().forEach(action);
+    }
+}
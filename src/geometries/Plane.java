@@ -4,7 +4,6 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
-import java.util.LinkedList;
 import java.util.List;
 
 import static primitives.Util.alignZero;
@@ -80,7 +79,19 @@ public class Plane extends Geometry {
      */
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        List<GeoPoint> intersections = new LinkedList<>();
+        GeoPoint intersection = findClosestGeoIntersectionHelper(ray, maxDistance);
+        return intersection == null ? null : List.of(intersection);
+    }
+
+    /**
+     * A ray crosses a plane at most once, so the closest intersection is the only one
+     *
+     * @param ray         The ray that we're checking for intersections with the plane.
+     * @param maxDistance maximal distance of the intersection from the ray head
+     * @return the intersection, or null if there is none
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
         //save beginning point of ray
         Point p0 = ray.getP0();
         //if ray starts from point on plane then no intersections exist so we can return null with no further calculations
@@ -104,13 +115,43 @@ public class Plane extends Geometry {
         }
 
         Point P = ray.getPoint(t);
-        if (P != null) {
-            intersections.add(new GeoPoint(this,P));
-            return intersections;
-        }
-        return null;
+        return P == null ? null : new GeoPoint(this,P);
+    }
+
+
+    /**
+     * Distance of the intersection of the ray with the plane, calculated without creating any object.
+     * Same conditions as {@link #findClosestGeoIntersectionHelper(Ray, double)} without the maximal distance.
+     *
+     * @param ray the ray
+     * @return the distance, or NaN if there is no intersection in front of the ray head
+     */
+    double findDistance(Ray ray) {
+        Point p0 = ray.getP0();
+        Vector v = ray.getDir();
+        double qx = q0.getX() - p0.getX(), qy = q0.getY() - p0.getY(), qz = q0.getZ() - p0.getZ();
+        //ray starts from point on plane
+        if (isZero(qx) && isZero(qy) && isZero(qz))
+            return Double.NaN;
+
+        double nx = normal.getX(), ny = normal.getY(), nz = normal.getZ();
+        double denominatorDot = alignZero(nx * v.getX() + ny * v.getY() + nz * v.getZ());
+        //ray is parallel to plane
+        if (isZero(denominatorDot))
+            return Double.NaN;
+
+        double t = alignZero((nx * qx + ny * qy + nz * qz) / denominatorDot);
+        return t <= 0 ? Double.NaN : t;
     }
 
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+        double t = findDistance(ray);
+        if (Double.isNaN(t) || !hit.isCloser(t))
+            return false;
+        hit.set(this, t, 0, 0);
+        return true;
+    }
 
     /**
      * The function returns a string representation of the Plane object
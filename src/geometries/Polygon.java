@@ -21,6 +21,10 @@ public class Polygon extends Geometry {
      * Associated plane in which the polygon lays
      */
     protected Plane plane;
+    /**
+     * Box that bounds all the vertices
+     */
+    private final BoundingBox box;
     private int size;
 
     /**
@@ -48,6 +52,7 @@ public class Polygon extends Geometry {
         if (vertices.length < 3)
             throw new IllegalArgumentException("A polygon can't have less than 3 vertices");
         this.vertices = List.of(vertices);
+        box = BoundingBox.of(vertices);
         // Generate the plane according to the first three vertices and associate the
         // polygon with this plane.
         // The plane holds the invariant normal (orthogonal unit) vector to the polygon
@@ -88,6 +93,11 @@ public class Polygon extends Geometry {
     public Vector getNormal(Point point) {
         return plane.getNormal();
     }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
+    }
     /**
      * find intersections of ray with geometry shape
      *
@@ -96,7 +106,20 @@ public class Polygon extends Geometry {
      */
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray,double maxDistance) {
-        List<GeoPoint> result = plane.findGeoIntersections(ray);
+        GeoPoint intersection = findClosestGeoIntersectionHelper(ray, maxDistance);
+        return intersection == null ? null : List.of(intersection);
+    }
+
+    /**
+     * A ray crosses a polygon at most once, so the closest intersection is the only one
+     *
+     * @param ray         ray that cross the geometry
+     * @param maxDistance maximal distance of the intersection from the ray head
+     * @return the intersection, or null if there is none
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        GeoPoint result = plane.findClosestGeoIntersection(ray, maxDistance);
 
         if (result == null) {
             return null;
@@ -134,8 +157,46 @@ public class Polygon extends Geometry {
             }
         }
 
-        return List.of(new GeoPoint(this, result.get(0).point));
+        return new GeoPoint(this, result.point);
     }
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+        double t = plane.findDistance(ray);
+        if (Double.isNaN(t) || !hit.isCloser(t))
+            return false;
+
+        Point p0 = ray.getP0();
+        Vector v = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = v.getX(), dy = v.getY(), dz = v.getZ();
+
+        //same edge test as findClosestGeoIntersectionHelper, on coordinates
+        Point p = vertices.get(0);
+        double x2 = p.getX() - ox, y2 = p.getY() - oy, z2 = p.getZ() - oz;
+        p = vertices.get(1);
+        double x1 = p.getX() - ox, y1 = p.getY() - oy, z1 = p.getZ() - oz;
+        double sign = alignZero(dx * (y1 * z2 - z1 * y2) + dy * (z1 * x2 - x1 * z2) + dz * (x1 * y2 - y1 * x2));
+        if (isZero(sign))
+            return false;
+        boolean positive = sign > 0;
+
+        for (int i = vertices.size() - 1; i > 0; --i) {
+            x1 = x2;
+            y1 = y2;
+            z1 = z2;
+            p = vertices.get(i);
+            x2 = p.getX() - ox;
+            y2 = p.getY() - oy;
+            z2 = p.getZ() - oz;
+            sign = alignZero(dx * (y1 * z2 - z1 * y2) + dy * (z1 * x2 - x1 * z2) + dz * (x1 * y2 - y1 * x2));
+            if (isZero(sign) || positive != (sign > 0))
+                return false;
+        }
+
+        hit.set(this, t, 0, 0);
+        return true;
+    }
+
    // @Override
   //  public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
     //    return null;
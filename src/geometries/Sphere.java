@@ -8,12 +8,14 @@ import java.util.LinkedList;
 import java.util.List;
 
 import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
 
 
 public class Sphere extends Geometry {
 
     private final Point center;
     private final double radius;
+    private final BoundingBox box;
 
     /**
      * constractor
@@ -26,6 +28,8 @@ public class Sphere extends Geometry {
         if (radius <= 0)
             throw new IllegalArgumentException("radius must be bigger then zero");
         this.radius = radius;
+        this.box = new BoundingBox(center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius);
     }
 
     /**
@@ -58,6 +62,11 @@ public class Sphere extends Geometry {
         return o_p.normalize();
     }
 
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
+    }
+
     /**
      * Find the intersection points of a ray with a sphere
      *
@@ -117,6 +126,72 @@ public class Sphere extends Geometry {
         return null;
     }
 
+    /**
+     * Finds only the closest intersection of a ray with the sphere - the near one if it is in front of the ray head
+     * and within the maximal distance, otherwise the far one
+     *
+     * @param ray         The ray to check for intersections with.
+     * @param maxDistance maximal distance of the intersection from the ray head
+     * @return the closest intersection, or null if there is none
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        Point p0 = ray.getP0();
+        Vector v = ray.getDir();
+
+        double tm = 0;
+        double d = 0;
+        if (!p0.equals(center)) {
+            Vector u = center.subtract(p0);
+            tm = u.dotProduct(v);
+            d = alignZero(Math.sqrt(u.lengthSquared() - tm * tm));
+        }
+        if (d >= radius) {
+            return null;
+        }
+
+        double th = alignZero(Math.sqrt(radius * radius - d * d));
+        //t1 <= t2, so the near intersection is checked first
+        double t = tm - th;
+        if (t <= 0)
+            t = tm + th;
+        if (t <= 0 || alignZero(t - maxDistance) > 0)
+            return null;
+        return new GeoPoint(this, p0.add(v.scale(t)));
+    }
+
+    /**
+     * Same calculation as {@link #findClosestGeoIntersectionHelper(Ray, double)}, on coordinates
+     *
+     * @param ray The ray to check for intersections with.
+     * @param hit the record to fill in place
+     * @return true if the record was updated
+     */
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+        Point p0 = ray.getP0();
+        Vector v = ray.getDir();
+        double ux = center.getX() - p0.getX(), uy = center.getY() - p0.getY(), uz = center.getZ() - p0.getZ();
+
+        double tm = 0;
+        double d = 0;
+        if (!isZero(ux) || !isZero(uy) || !isZero(uz)) {
+            tm = ux * v.getX() + uy * v.getY() + uz * v.getZ();
+            d = alignZero(Math.sqrt(ux * ux + uy * uy + uz * uz - tm * tm));
+        }
+        if (d >= radius)
+            return false;
+
+        double th = alignZero(Math.sqrt(radius * radius - d * d));
+        double t = tm - th;
+        if (t <= 0)
+            t = tm + th;
+        if (t <= 0 || !hit.isCloser(t))
+            return false;
+        hit.set(this, t, 0, 0);
+        return true;
+    }
+
     /**
      * The toString() method is a method that returns a string representation of the object
      *
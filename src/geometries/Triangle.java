@@ -7,10 +7,14 @@ import primitives.Vector;
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
-import java.util.LinkedList;
 import java.util.List;
 
 public class Triangle extends Polygon {
+    private final double ax, ay, az; //the first vertex
+    private final double e1x, e1y, e1z; //edge from the first vertex to the second
+    private final double e2x, e2y, e2z; //edge from the first vertex to the third
+    private final double invArea; //1 / |e1 x e2|, turns the determinant to the cosine of the ray with the normal
+    private boolean mollerTrumbore = false;
 
     /**
      * constractor
@@ -21,6 +25,32 @@ public class Triangle extends Polygon {
      */
     public Triangle(Point p1, Point p2, Point p3) {
         super(p1, p2, p3);
+        ax = p1.getX();
+        ay = p1.getY();
+        az = p1.getZ();
+        e1x = p2.getX() - ax;
+        e1y = p2.getY() - ay;
+        e1z = p2.getZ() - az;
+        e2x = p3.getX() - ax;
+        e2y = p3.getY() - ay;
+        e2z = p3.getZ() - az;
+        double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+        invArea = 1 / Math.sqrt(nx * nx + ny * ny + nz * nz);
+    }
+
+    /**
+     * Setter of the intersection algorithm.<br/>
+     * Both algorithms give the barycentric coordinates of the hit, on the {@link HitRecord} and on the
+     * {@link GeoPoint}. Möller–Trumbore finds the distance and the barycentric coordinates at once,
+     * from the edges that were calculated in the constructor, and allocates nothing on a miss.
+     * The default is the plane intersection followed by the side test of the edges.
+     *
+     * @param mollerTrumbore true to use Möller–Trumbore
+     * @return the triangle itself
+     */
+    public Triangle setMollerTrumbore(boolean mollerTrumbore) {
+        this.mollerTrumbore = mollerTrumbore;
+        return this;
     }
 
     public Vector getNormal(Point point) {
@@ -44,11 +74,32 @@ public class Triangle extends Polygon {
      */
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        GeoPoint intersection = findClosestGeoIntersectionHelper(ray, maxDistance);
+        return intersection == null ? null : List.of(intersection);
+    }
+
+    /**
+     * A ray crosses a triangle at most once, so the closest intersection is the only one
+     *
+     * @param ray         ray that cross the triangle
+     * @param maxDistance maximal distance of the intersection from the ray head
+     * @return the intersection, or null if there is none
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        if (mollerTrumbore) {
+            HitRecord hit = HitRecord.acquire(maxDistance);
+            try {
+                return findMollerTrumbore(ray, hit) ? new GeoPoint(this, ray.getPoint(hit.t), -1, hit.u, hit.v) : null;
+            } finally {
+                hit.release();
+            }
+        }
+
         Point p0 = ray.getP0();
         Vector v = ray.getDir();
-        List<GeoPoint> intersections = new LinkedList<>();
 
-        var result = plane.findGeoIntersections(ray,maxDistance);
+        var result = plane.findClosestGeoIntersection(ray, maxDistance);
 
         // if there is no intersections with the plane is a fortiori (kal&homer)
         // that there is no intersections with the triangle
@@ -71,12 +122,125 @@ public class Triangle extends Polygon {
         boolean allNegative = x1 < 0 && x2 < 0 && x3 < 0;
         boolean allPositive = x1 > 0 && x2 > 0 && x3 > 0;
         if (allNegative || allPositive) {
-            intersections.add(new GeoPoint(this,result.get(0).point)); // return the intersections with the plane that the triangle is on
-            return intersections;
+            return barycentric(result.point); // return the intersections with the plane that the triangle is on
         }
         return null;
     }
 
+    /**
+     * Intersection at a point of the triangle, with the barycentric weights of the point - the areas of the
+     * sub-triangles by the edges from the first vertex, over the area of the triangle
+     *
+     * @param point point of the triangle
+     * @return the intersection
+     */
+    private GeoPoint barycentric(Point point) {
+        double sx = point.getX() - ax, sy = point.getY() - ay, sz = point.getZ() - az;
+        //n = e1 x e2, |n|^2 = 1 / invArea^2
+        double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+        double scale = invArea * invArea;
+        //u = (s x e2) . n / |n|^2, v = (e1 x s) . n / |n|^2
+        double u = ((sy * e2z - sz * e2y) * nx + (sz * e2x - sx * e2z) * ny + (sx * e2y - sy * e2x) * nz) * scale;
+        double v = ((e1y * sz - e1z * sy) * nx + (e1z * sx - e1x * sz) * ny + (e1x * sy - e1y * sx) * nz) * scale;
+        return new GeoPoint(this, point, -1, u, v);
+    }
+
+    /**
+     * Same test as {@link #findClosestGeoIntersectionHelper(Ray, double)}, on coordinates.
+     * The scalar triple products of the ray with the edges are proportional to the areas of the
+     * sub-triangles, so they also give the barycentric coordinates of the hit.
+     *
+     * @param ray ray that cross the triangle
+     * @param hit the record to fill in place
+     * @return true if the record was updated
+     */
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+        if (mollerTrumbore)
+            return findMollerTrumbore(ray, hit);
+
+        double t = plane.findDistance(ray);
+        if (Double.isNaN(t) || !hit.isCloser(t))
+            return false;
+
+        Point p0 = ray.getP0();
+        Vector v = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = v.getX(), dy = v.getY(), dz = v.getZ();
+
+        Point p = vertices.get(0);
+        double x1 = p.getX() - ox, y1 = p.getY() - oy, z1 = p.getZ() - oz;
+        p = vertices.get(1);
+        double x2 = p.getX() - ox, y2 = p.getY() - oy, z2 = p.getZ() - oz;
+        p = vertices.get(2);
+        double x3 = p.getX() - ox, y3 = p.getY() - oy, z3 = p.getZ() - oz;
+
+        double w12 = edgeProduct(dx, dy, dz, x1, y1, z1, x2, y2, z2);
+        double w23 = edgeProduct(dx, dy, dz, x2, y2, z2, x3, y3, z3);
+        double w31 = edgeProduct(dx, dy, dz, x3, y3, z3, x1, y1, z1);
+        if (!(w12 < 0 && w23 < 0 && w31 < 0) && !(w12 > 0 && w23 > 0 && w31 > 0))
+            return false;
+
+        //the triple product of an edge is the weight of the opposite vertex
+        double sum = w12 + w23 + w31;
+        hit.set(this, t, w31 / sum, w12 / sum);
+        return true;
+    }
+
+    /**
+     * Möller–Trumbore intersection: solves p0 + t*v = a + u*e1 + v*e2 by Cramer's rule.
+     * Like the side test, a hit on an edge or a vertex is not an intersection.
+     *
+     * @param ray ray that cross the triangle
+     * @param hit the record to fill in place
+     * @return true if the record was updated
+     */
+    private boolean findMollerTrumbore(Ray ray, HitRecord hit) {
+        Point p0 = ray.getP0();
+        Vector v = ray.getDir();
+        double dx = v.getX(), dy = v.getY(), dz = v.getZ();
+
+        //p = v x e2, det = e1 * p
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        //the ray is parallel to the plane
+        if (isZero(det * invArea))
+            return false;
+        double invDet = 1 / det;
+
+        double sx = p0.getX() - ax, sy = p0.getY() - ay, sz = p0.getZ() - az;
+        double u = (sx * px + sy * py + sz * pz) * invDet;
+        if (alignZero(u) <= 0 || alignZero(u - 1) >= 0)
+            return false;
+
+        //q = s x e1
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double w = (dx * qx + dy * qy + dz * qz) * invDet;
+        if (alignZero(w) <= 0 || alignZero(u + w - 1) >= 0)
+            return false;
+
+        double t = (e2x * qx + e2y * qy + e2z * qz) * invDet;
+        if (alignZero(t) <= 0 || !hit.isCloser(t))
+            return false;
+
+        hit.set(this, t, u, w);
+        return true;
+    }
+
+    /**
+     * Dot product of the ray direction with the normal of the side (p0, a, b) of the tetrahedron between
+     * the ray head and the triangle. The sign is that of the normalized product (aligned to zero), like
+     * in the list query, the magnitude is the scalar triple product.
+     *
+     * @return the triple product, or 0 if the normalized product is zero
+     */
+    private static double edgeProduct(double dx, double dy, double dz,
+                                      double ax, double ay, double az, double bx, double by, double bz) {
+        double nx = ay * bz - az * by, ny = az * bx - ax * bz, nz = ax * by - ay * bx;
+        double product = dx * nx + dy * ny + dz * nz;
+        return alignZero(product / Math.sqrt(nx * nx + ny * ny + nz * nz)) == 0 ? 0 : product;
+    }
+
     /**
      * The function toString() is a method that returns a string representation of the triangle
      *
@@ -0,0 +1,677 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Indexed triangle mesh - many triangles with one material, that share their vertices.<br/>
+ * The vertex positions are kept in a flat array of coordinates (x, y, z of every vertex) and the faces
+ * in a flat array of vertex indexes (three per face, counter clockwise around the normal), so a face costs
+ * a few dozens of bytes instead of a whole {@link Triangle} object. The faces are organized in a bounding
+ * volume hierarchy of their own, with the same flat nodes and builders as the hierarchy of a {@link Geometries}
+ * collection (see {@link BVHNodes}), so a big mesh is built in parallel, and may be built from Morton codes
+ * and refitted.<br/>
+ * A ray that passes exactly through an edge hits the faces on both sides, so there are no cracks between faces.<br/>
+ * The buffers and the built hierarchy can be written to a binary file and read back without a new build,
+ * see {@link #write(Path)} and {@link #read(Path)}.
+ */
+public class TriangleMesh extends Geometry {
+    private static final int MAX_LEAF_SIZE = 4; //a node with more faces is always split
+    private static final double INTERSECTION_COST = 1; //relative cost of testing a ray against a face
+    private static final double REBUILD_THRESHOLD = 1.5; //a refitted hierarchy is built again past this cost ratio
+    private static final int NODE_SIZE = BVHNodes.NODE_SIZE;
+    private static final int LINK = BVHNodes.LINK;
+    private static final int COUNT = BVHNodes.COUNT;
+
+    //binary file of a built mesh: a header of 6 ints, then the double arrays, then the int arrays (little endian)
+    private static final int MAGIC = 0x48534D54; //"TMSH"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 24;
+    private static final int MAP_CHUNK = 1 << 30; //a mapping is limited to 2GB, so big arrays are mapped in parts
+
+    private final double[] vertices;
+    private final int[] faces;
+    private final BVHBuilder builder; //algorithm of the hierarchy build
+
+    private BVHNodes tree; //the hierarchy of the faces
+    private BoundingBox box;
+    private BVHStatistics statistics;
+    private double builtCost; //SAH cost of the hierarchy right after its build
+
+    /**
+     * Constructor that receives the buffers of the mesh. The buffers are used as they are (not copied),
+     * so they must not be changed afterwards - except for moving the vertices before a {@link #refit()}.
+     * The hierarchy is built by SAH.
+     *
+     * @param vertices coordinates of the vertices - x, y, z of every vertex
+     * @param faces    vertex indexes of the faces - three for every face, counter clockwise around the normal
+     * @throws IllegalArgumentException if the buffers are empty or don't describe triangles
+     */
+    public TriangleMesh(double[] vertices, int[] faces) {
+        this(vertices, faces, BVHBuilder.SAH);
+    }
+
+    /**
+     * Constructor that receives the buffers of the mesh and the algorithm of its hierarchy build,
+     * see {@link #TriangleMesh(double[], int[])}
+     *
+     * @param vertices coordinates of the vertices - x, y, z of every vertex
+     * @param faces    vertex indexes of the faces - three for every face, counter clockwise around the normal
+     * @param builder  the build algorithm of the hierarchy
+     * @throws IllegalArgumentException if the buffers are empty or don't describe triangles
+     */
+    public TriangleMesh(double[] vertices, int[] faces, BVHBuilder builder) {
+        if (vertices.length == 0 || vertices.length % 3 != 0)
+            throw new IllegalArgumentException("Vertex buffer must hold three coordinates for every vertex");
+        if (faces.length == 0 || faces.length % 3 != 0)
+            throw new IllegalArgumentException("Face buffer must hold three vertices for every face");
+        int vertexCount = vertices.length / 3;
+        for (int index : faces)
+            if (index < 0 || index >= vertexCount)
+                throw new IllegalArgumentException("Face refers to a missing vertex " + index);
+        this.vertices = vertices;
+        this.faces = faces;
+        this.builder = builder;
+        build();
+    }
+
+    /**
+     * Constructor of a mesh whose hierarchy is already built, from the arrays of a mesh file
+     *
+     * @param vertices coordinates of the vertices
+     * @param faces    vertex indexes of the faces
+     * @param order    face indexes in the order of the leaves
+     * @param nodes    flat nodes of the hierarchy
+     */
+    private TriangleMesh(double[] vertices, int[] faces, int[] order, int[] nodes) {
+        this.vertices = vertices;
+        this.faces = faces;
+        builder = BVHBuilder.SAH;
+        tree = new BVHNodes(nodes, order, INTERSECTION_COST);
+        box = tree.getBox();
+        statistics = tree.measure(0, 0);
+        builtCost = statistics.getSahCost();
+    }
+
+    /**
+     * Builds the hierarchy of the faces. When it is called from a fork-join pool (like the pool of a render)
+     * the build runs on the threads of that pool, otherwise on the common pool.
+     */
+    private void build() {
+        long start = System.nanoTime();
+        tree = new BVHNodes(faceBoxes(null), builder, INTERSECTION_COST, MAX_LEAF_SIZE);
+        box = tree.getBox();
+        statistics = tree.measure(System.nanoTime() - start, 0);
+        builtCost = statistics.getSahCost();
+    }
+
+    /**
+     * Calculates the boxes of the faces
+     *
+     * @param order order of the faces, null for the order of their indexes
+     * @return minX, minY, minZ, maxX, maxY, maxZ of every face, in the order
+     */
+    private double[] faceBoxes(int[] order) {
+        int n = faces.length / 3;
+        double[] boxes = new double[6 * n];
+        for (int i = 0; i < n; ++i) {
+            int f = 3 * (order == null ? i : order[i]), b = 6 * i;
+            int v0 = 3 * faces[f], v1 = 3 * faces[f + 1], v2 = 3 * faces[f + 2];
+            for (int axis = 0; axis < 3; ++axis) {
+                double c0 = vertices[v0 + axis], c1 = vertices[v1 + axis], c2 = vertices[v2 + axis];
+                boxes[b + axis] = Math.min(c0, Math.min(c1, c2));
+                boxes[b + 3 + axis] = Math.max(c0, Math.max(c1, c2));
+            }
+        }
+        return boxes;
+    }
+
+    /**
+     * Updates the hierarchy after the vertices were moved in place - e.g. between the frames of an animation.
+     * The boxes are refitted bottom-up, keeping the structure of the tree, which is much faster than a new build.
+     * When the SAH cost of the refitted tree grows past 1.5 times the cost after the build, the tree is built
+     * again. {@link Geometries#refit()} refits the meshes of the collection.<br/>
+     * It must not be called during a render.
+     *
+     * @return true if the hierarchy is built again, false if it was refitted
+     */
+    public boolean refit() {
+        long start = System.nanoTime();
+        double cost = tree.refit(faceBoxes(tree.order));
+        if (cost > REBUILD_THRESHOLD * builtCost) {
+            build();
+            return true;
+        }
+        box = tree.getBox();
+        statistics = statistics.refitted(System.nanoTime() - start, cost);
+        return false;
+    }
+
+    /**
+     * Returns the build time and the quality of the hierarchy of the faces
+     *
+     * @return the statistics of the hierarchy
+     */
+    public BVHStatistics getBVHStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Writes the buffers and the hierarchy of the mesh to a binary file, that {@link #read(Path)} loads
+     * without parsing and building. The material and the emission are not written.
+     *
+     * @param file path of the file, replaced if it exists
+     * @throws IllegalStateException if the file can't be written
+     */
+    public void write(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(vertices.length).putInt(faces.length)
+                    .putInt(tree.nodes.length / NODE_SIZE).putInt(0).flip();
+            channel.write(header, 0);
+            long position = HEADER_SIZE;
+            position = map(channel, FileChannel.MapMode.READ_WRITE, position, vertices.length, Double.BYTES,
+                    (buffer, from, count) -> buffer.asDoubleBuffer().put(vertices, from, count));
+            for (int[] array : new int[][]{faces, tree.order, tree.nodes})
+                position = map(channel, FileChannel.MapMode.READ_WRITE, position, array.length, Integer.BYTES,
+                        (buffer, from, count) -> buffer.asIntBuffer().put(array, from, count));
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - can't write " + file, e);
+        }
+    }
+
+    /**
+     * Reads a mesh that was written by {@link #write(Path)}. The file is memory mapped and its arrays are
+     * copied in bulk, so the time is about the time of copying the memory of the mesh.
+     *
+     * @param file path of the file
+     * @return the mesh, with its hierarchy
+     * @throws IllegalArgumentException if the file is not a mesh file of this version, or it is truncated
+     *                                  or damaged
+     * @throws IllegalStateException    if the file can't be read
+     */
+    public static TriangleMesh read(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.read(header, 0) != HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+                throw new IllegalArgumentException("Not a mesh file of version " + VERSION + ": " + file);
+            int vertexLength = header.getInt(8), faceLength = header.getInt(12), nodes = header.getInt(16);
+            int faceNumber = faceLength / 3;
+            long size = HEADER_SIZE + (long) Double.BYTES * vertexLength
+                    + (long) Integer.BYTES * (faceLength + faceNumber + (long) NODE_SIZE * nodes);
+            if (vertexLength <= 0 || vertexLength % 3 != 0 || faceLength <= 0 || faceLength % 3 != 0 || nodes <= 0
+                    || channel.size() != size)
+                throw new IllegalArgumentException("Truncated mesh file " + file);
+
+            double[] vertices = new double[vertexLength];
+            int[] faces = new int[faceLength], order = new int[faceNumber], nodeArray = new int[NODE_SIZE * nodes];
+            long position = HEADER_SIZE;
+            position = map(channel, FileChannel.MapMode.READ_ONLY, position, vertices.length, Double.BYTES,
+                    (buffer, from, count) -> buffer.asDoubleBuffer().get(vertices, from, count));
+            for (int[] array : new int[][]{faces, order, nodeArray})
+                position = map(channel, FileChannel.MapMode.READ_ONLY, position, array.length, Integer.BYTES,
+                        (buffer, from, count) -> buffer.asIntBuffer().get(array, from, count));
+            validate(vertexLength / 3, faces, order, nodeArray, file);
+            return new TriangleMesh(vertices, faces, order, nodeArray);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - can't read " + file, e);
+        }
+    }
+
+    /**
+     * Checks that the arrays of a mesh file refer only to their own elements, so a damaged file
+     * fails here instead of in the middle of a render
+     *
+     * @param vertexCount number of vertices
+     * @param faces       vertex indexes of the faces
+     * @param order       face indexes in the order of the leaves - every face once
+     * @param nodes       flat nodes of the hierarchy, see {@link BVHNodes}
+     * @param file        path of the file, for the message
+     * @throws IllegalArgumentException if an index is out of its array
+     */
+    private static void validate(int vertexCount, int[] faces, int[] order, int[] nodes, Path file) {
+        for (int index : faces)
+            if (index < 0 || index >= vertexCount)
+                throw new IllegalArgumentException("Face refers to a missing vertex in mesh file " + file);
+        boolean[] ordered = new boolean[order.length];
+        for (int face : order) {
+            if (face < 0 || face >= order.length || ordered[face])
+                throw new IllegalArgumentException("Face order is not a permutation in mesh file " + file);
+            ordered[face] = true;
+        }
+        int nodeCount = nodes.length / NODE_SIZE;
+        for (int node = 0; node < nodeCount; ++node) {
+            int first = nodes[NODE_SIZE * node + LINK], count = nodes[NODE_SIZE * node + COUNT];
+            //a leaf refers to a range of the order, an inner node to two children after it - so there are no loops
+            boolean valid = count > 0 ? first >= 0 && first <= order.length - count
+                    : count == 0 && node + 1 < first && first < nodeCount;
+            if (!valid)
+                throw new IllegalArgumentException("Node " + node + " is out of range in mesh file " + file);
+        }
+    }
+
+    /**
+     * Copy between a part of an array and a mapped part of a file
+     */
+    private interface Transfer {
+        /**
+         * Copies the elements
+         *
+         * @param buffer the mapped part of the file
+         * @param from   first element of the array
+         * @param count  number of elements
+         */
+        void copy(ByteBuffer buffer, int from, int count);
+    }
+
+    /**
+     * Maps the part of a file that holds an array, in chunks of up to 1GB, and copies the array to it or from it
+     *
+     * @param channel  the file
+     * @param mode     READ_ONLY to read the array, READ_WRITE to write it
+     * @param position place of the array in the file
+     * @param length   number of elements
+     * @param size     bytes of an element
+     * @param transfer the copy of a chunk
+     * @return the place in the file after the array
+     */
+    private static long map(FileChannel channel, FileChannel.MapMode mode, long position, int length, int size,
+                            Transfer transfer) throws IOException {
+        int chunk = MAP_CHUNK / size;
+        for (int from = 0; from < length; from += chunk) {
+            int count = Math.min(chunk, length - from);
+            transfer.copy(channel.map(mode, position, (long) count * size).order(ByteOrder.LITTLE_ENDIAN), from, count);
+            position += (long) count * size;
+        }
+        return position;
+    }
+
+    /**
+     * Returns the number of faces
+     *
+     * @return number of faces
+     */
+    public int getFacesCount() {
+        return faces.length / 3;
+    }
+
+    /**
+     * Returns the number of vertices
+     *
+     * @return number of vertices
+     */
+    public int getVerticesCount() {
+        return vertices.length / 3;
+    }
+
+    /**
+     * Returns a vertex of a face
+     *
+     * @param face   index of the face
+     * @param corner 0, 1 or 2
+     * @return the vertex
+     */
+    public Point getVertex(int face, int corner) {
+        int v = faces[3 * face + corner] * 3;
+        return new Point(vertices[v], vertices[v + 1], vertices[v + 2]);
+    }
+
+    /**
+     * Möller–Trumbore intersection of the ray with a face - records the hit if it is closer than the recorded one
+     *
+     * @param face index of the face
+     * @param hit  the record to fill in place
+     * @return true if the record was updated
+     */
+    private boolean hitFace(int face, double ox, double oy, double oz, double dx, double dy, double dz,
+                            HitRecord hit) {
+        int a = 3 * faces[3 * face], b = 3 * faces[3 * face + 1], c = 3 * faces[3 * face + 2];
+        double ax = vertices[a], ay = vertices[a + 1], az = vertices[a + 2];
+        double e1x = vertices[b] - ax, e1y = vertices[b + 1] - ay, e1z = vertices[b + 2] - az;
+        double e2x = vertices[c] - ax, e2y = vertices[c + 1] - ay, e2z = vertices[c + 2] - az;
+
+        //p = d x e2
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        //ray is parallel to the face
+        if (isZero(det))
+            return false;
+        double inverse = 1 / det;
+
+        double sx = ox - ax, sy = oy - ay, sz = oz - az;
+        double u = (sx * px + sy * py + sz * pz) * inverse;
+        if (u < 0 || u > 1)
+            return false;
+
+        //q = s x e1
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double v = (dx * qx + dy * qy + dz * qz) * inverse;
+        if (v < 0 || u + v > 1)
+            return false;
+
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * inverse);
+        if (t <= 0 || !hit.isCloser(t))
+            return false;
+        hit.set(this, t, u, v, face);
+        return true;
+    }
+
+    /**
+     * Records the closest hit of the ray with the faces. The children of a node are visited front to back,
+     * and a node is skipped if the ray enters its box only beyond the closest hit so far.
+     * The traversal stacks are taken from the record, so nothing is allocated.
+     *
+     * @param ray The ray to check for intersections with.
+     * @param hit the record to fill in place
+     * @return true if the record was updated
+     */
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double invX = 1 / dx, invY = 1 / dy, invZ = 1 / dz;
+
+        int[] nodes = tree.nodes, order = tree.order;
+        double rootEntry = BoundingBox.intersect(nodes, 0, ox, oy, oz, invX, invY, invZ, hit.t);
+        if (rootEntry == Double.POSITIVE_INFINITY)
+            return false;
+        //a mesh in a hierarchy continues on the stacks of the hierarchy, above the part that is in use
+        int[] stack = hit.nodeStack;
+        double[] entries = hit.entryStack;
+        int base = hit.stackBase;
+        int top = base;
+        stack[top] = 0;
+        entries[top++] = rootEntry;
+        boolean found = false;
+        while (top > base) {
+            int node = stack[--top];
+            if (entries[top] > hit.t)
+                continue;
+            int k = NODE_SIZE * node;
+            int count = nodes[k + COUNT];
+            if (count > 0) {
+                for (int i = nodes[k + LINK], end = i + count; i < end; ++i)
+                    if (hitFace(order[i], ox, oy, oz, dx, dy, dz, hit))
+                        found = true;
+                continue;
+            }
+
+            int near = node + 1, far = nodes[k + LINK];
+            double nearEntry = BoundingBox.intersect(nodes, NODE_SIZE * near, ox, oy, oz, invX, invY, invZ, hit.t);
+            double farEntry = BoundingBox.intersect(nodes, NODE_SIZE * far, ox, oy, oz, invX, invY, invZ, hit.t);
+            if (farEntry < nearEntry) {
+                int temp = near;
+                near = far;
+                far = temp;
+                double tempEntry = nearEntry;
+                nearEntry = farEntry;
+                farEntry = tempEntry;
+            }
+            if (top + 2 > stack.length) {
+                //the record keeps the grown stacks for the next queries
+                hit.nodeStack = stack = Arrays.copyOf(stack, stack.length * 2);
+                hit.entryStack = entries = Arrays.copyOf(entries, entries.length * 2);
+            }
+            //the nearer child is pushed last, so it is visited first
+            if (farEntry != Double.POSITIVE_INFINITY) {
+                stack[top] = far;
+                entries[top++] = farEntry;
+            }
+            if (nearEntry != Double.POSITIVE_INFINITY) {
+                stack[top] = near;
+                entries[top++] = nearEntry;
+            }
+        }
+        return found;
+    }
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        HitRecord hit = HitRecord.acquire(maxDistance);
+        try {
+            return findClosestHitHelper(ray, hit)
+                    ? new GeoPoint(this, ray.getPoint(hit.t), hit.face, hit.u, hit.v) : null;
+        } finally {
+            hit.release();
+        }
+    }
+
+    /**
+     * Finds the intersections of the ray with all the faces
+     *
+     * @param ray         The ray to check for intersections with.
+     * @param maxDistance maximal distance of an intersection from the ray head
+     * @return list of intersections, or null if there are none
+     */
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double invX = 1 / dx, invY = 1 / dy, invZ = 1 / dz;
+
+        int[] nodes = tree.nodes, order = tree.order;
+        List<GeoPoint> result = null;
+        HitRecord hit = new HitRecord();
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int k = NODE_SIZE * node;
+            if (BoundingBox.intersect(nodes, k, ox, oy, oz, invX, invY, invZ, maxDistance) == Double.POSITIVE_INFINITY)
+                continue;
+            int count = nodes[k + COUNT];
+            if (count > 0) {
+                for (int i = nodes[k + LINK], end = i + count; i < end; ++i) {
+                    hit.reset(maxDistance);
+                    if (hitFace(order[i], ox, oy, oz, dx, dy, dz, hit)) {
+                        if (result == null)
+                            result = new LinkedList<>();
+                        result.add(new GeoPoint(this, ray.getPoint(hit.t), hit.face, hit.u, hit.v));
+                    }
+                }
+                continue;
+            }
+            if (top + 2 > stack.length)
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[top++] = nodes[k + LINK];
+            stack[top++] = node + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the normal of the face that contains the point, or of the face nearest to it
+     * for a point off the mesh. The face is found by the hierarchy of the mesh, see {@link #nearestFace(Point)}
+     *
+     * @param p the point
+     * @return the normal of the face
+     */
+    @Override
+    public Vector getNormal(Point p) {
+        return faceNormal(nearestFace(p));
+    }
+
+    /**
+     * Returns the normal of the face that was hit - by the right hand rule on the order of its vertices
+     *
+     * @param gp the intersection point
+     * @return the normal of the face
+     */
+    @Override
+    public Vector getNormal(GeoPoint gp) {
+        return faceNormal(gp.face);
+    }
+
+    /**
+     * Returns the normal of a face - by the right hand rule on the order of its vertices
+     *
+     * @param face index of the face
+     * @return the normal of the face
+     */
+    private Vector faceNormal(int face) {
+        int a = 3 * faces[3 * face], b = 3 * faces[3 * face + 1], c = 3 * faces[3 * face + 2];
+        double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1],
+                e1z = vertices[b + 2] - vertices[a + 2];
+        double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1],
+                e2z = vertices[c + 2] - vertices[a + 2];
+        return new Vector(e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x).normalize();
+    }
+
+    /**
+     * Finds the face that is nearest to a point - the face that contains it, for a point on the mesh.
+     * The nearer child of a node is visited first, and a node is skipped if its box is not nearer
+     * than the nearest face so far.
+     *
+     * @param p the point
+     * @return index of the face
+     */
+    int nearestFace(Point p) {
+        double px = p.getX(), py = p.getY(), pz = p.getZ();
+        int[] nodes = tree.nodes, order = tree.order;
+        int nearest = 0;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        int[] stack = new int[64];
+        double[] distances = new double[64];
+        int top = 0;
+        stack[top] = 0;
+        distances[top++] = boxDistance(0, px, py, pz);
+        while (top > 0) {
+            int node = stack[--top];
+            if (distances[top] >= nearestDistance)
+                continue;
+            int k = NODE_SIZE * node;
+            int count = nodes[k + COUNT];
+            if (count > 0) {
+                for (int i = nodes[k + LINK], end = i + count; i < end; ++i) {
+                    double distance = faceDistance(order[i], px, py, pz);
+                    if (distance < nearestDistance) {
+                        nearestDistance = distance;
+                        nearest = order[i];
+                    }
+                }
+                continue;
+            }
+
+            int near = node + 1, far = nodes[k + LINK];
+            double nearDistance = boxDistance(near, px, py, pz), farDistance = boxDistance(far, px, py, pz);
+            if (farDistance < nearDistance) {
+                int temp = near;
+                near = far;
+                far = temp;
+                double tempDistance = nearDistance;
+                nearDistance = farDistance;
+                farDistance = tempDistance;
+            }
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+                distances = Arrays.copyOf(distances, distances.length * 2);
+            }
+            //the nearer child is pushed last, so it is visited first
+            stack[top] = far;
+            distances[top++] = farDistance;
+            stack[top] = near;
+            distances[top++] = nearDistance;
+        }
+        return nearest;
+    }
+
+    /**
+     * Squared distance of a point from the box of a node, 0 for a point in the box
+     *
+     * @param node index of the node
+     * @return the squared distance
+     */
+    private double boxDistance(int node, double px, double py, double pz) {
+        int[] nodes = tree.nodes;
+        int k = NODE_SIZE * node;
+        float minX = Float.intBitsToFloat(nodes[k]), minY = Float.intBitsToFloat(nodes[k + 1]),
+                minZ = Float.intBitsToFloat(nodes[k + 2]);
+        float maxX = Float.intBitsToFloat(nodes[k + 3]), maxY = Float.intBitsToFloat(nodes[k + 4]),
+                maxZ = Float.intBitsToFloat(nodes[k + 5]);
+        double dx = Math.max(Math.max(minX - px, px - maxX), 0);
+        double dy = Math.max(Math.max(minY - py, py - maxY), 0);
+        double dz = Math.max(Math.max(minZ - pz, pz - maxZ), 0);
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Squared distance of a point from a face - from the closest point of the face,
+     * that is a vertex, a point on an edge or a point inside (Ericson, Real-Time Collision Detection 5.1.5)
+     *
+     * @param face index of the face
+     * @return the squared distance
+     */
+    private double faceDistance(int face, double px, double py, double pz) {
+        int a = 3 * faces[3 * face], b = 3 * faces[3 * face + 1], c = 3 * faces[3 * face + 2];
+        double ax = vertices[a], ay = vertices[a + 1], az = vertices[a + 2];
+        double abx = vertices[b] - ax, aby = vertices[b + 1] - ay, abz = vertices[b + 2] - az;
+        double acx = vertices[c] - ax, acy = vertices[c + 1] - ay, acz = vertices[c + 2] - az;
+        double apx = px - ax, apy = py - ay, apz = pz - az;
+
+        //the closest point is a + s * ab + t * ac
+        double s, t;
+        double d1 = abx * apx + aby * apy + abz * apz, d2 = acx * apx + acy * apy + acz * apz;
+        //ab . bp and ac . bp, ab . cp and ac . cp
+        double d3 = d1 - (abx * abx + aby * aby + abz * abz), d4 = d2 - (acx * abx + acy * aby + acz * abz);
+        double d5 = d1 - (abx * acx + aby * acy + abz * acz), d6 = d2 - (acx * acx + acy * acy + acz * acz);
+        double vc = d1 * d4 - d3 * d2, vb = d5 * d2 - d1 * d6, va = d3 * d6 - d5 * d4;
+        if (d1 <= 0 && d2 <= 0) { //vertex a
+            s = 0;
+            t = 0;
+        } else if (d3 >= 0 && d4 <= d3) { //vertex b
+            s = 1;
+            t = 0;
+        } else if (vc <= 0 && d1 >= 0 && d3 <= 0) { //edge ab
+            s = d1 / (d1 - d3);
+            t = 0;
+        } else if (d6 >= 0 && d5 <= d6) { //vertex c
+            s = 0;
+            t = 1;
+        } else if (vb <= 0 && d2 >= 0 && d6 <= 0) { //edge ac
+            s = 0;
+            t = d2 / (d2 - d6);
+        } else if (va <= 0 && d4 - d3 >= 0 && d5 - d6 >= 0) { //edge bc
+            t = (d4 - d3) / (d4 - d3 + d5 - d6);
+            s = 1 - t;
+        } else { //inside the face
+            double denominator = va + vb + vc;
+            s = vb / denominator;
+            t = vc / denominator;
+        }
+        double dx = apx - abx * s - acx * t, dy = apy - aby * s - acy * t, dz = apz - abz * s - acz * t;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
+    }
+
+    @Override
+    public String toString() {
+        return "TriangleMesh{" +
+                "vertices=" + getVerticesCount() +
+                ", faces=" + getFacesCount() +
+                '}';
+    }
+}
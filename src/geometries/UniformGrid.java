@@ -0,0 +1,393 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Collection of intersectables that are organized in a uniform grid - a regular 3D array of cells over their
+ * bounding box, where every cell lists the intersectables whose boxes overlap it.<br/>
+ * A ray walks over the cells it passes through in order (3D-DDA), so for many similar objects that fill a box
+ * the grid is cheaper to build and to traverse than a tree. It can be put in a {@link Geometries} collection
+ * like any other intersectable.<br/>
+ * An intersectable that overlaps several cells is tested only once per ray: every thread marks the
+ * intersectables it tested with the number of the current ray (mailboxing).
+ * Infinite intersectables (without a bounding box) are kept aside and tested against every ray.
+ */
+public class UniformGrid extends Intersectable {
+    private static final double DENSITY = 4; //cells per intersectable
+    private static final int MAX_RESOLUTION = 256; //maximal number of cells along an axis
+
+    private final Intersectable[] items;
+    private final Intersectable[] unbounded;
+    private final BoundingBox box; //box of the grid, null if there are no finite intersectables
+    private final int nx, ny, nz; //number of cells along the axes
+    private final double invCellX, invCellY, invCellZ; //cells per unit along the axes, 0 for a flat axis
+    private final int[] cellStart; //items of cell c are cellItems[cellStart[c]] .. cellItems[cellStart[c + 1] - 1]
+    private final int[] cellItems;
+    private final ThreadLocal<Walk> walks = ThreadLocal.withInitial(Walk::new);
+
+    /**
+     * Constructor that builds the grid. The resolution is chosen by the number of the intersectables,
+     * so that the cells are about cubes and there are a few cells per intersectable.
+     *
+     * @param geometries intersectables to organize
+     */
+    public UniformGrid(Intersectable... geometries) {
+        List<Intersectable> bounded = new ArrayList<>(geometries.length);
+        List<BoundingBox> boxes = new ArrayList<>(geometries.length);
+        List<Intersectable> infinite = new ArrayList<>();
+        BoundingBox union = null;
+        for (Intersectable item : geometries) {
+            BoundingBox itemBox = item.getBoundingBox();
+            if (itemBox == null)
+                infinite.add(item);
+            else {
+                bounded.add(item);
+                boxes.add(itemBox);
+                union = union == null ? itemBox : union.union(itemBox);
+            }
+        }
+        items = bounded.toArray(new Intersectable[0]);
+        unbounded = infinite.toArray(new Intersectable[0]);
+        box = union;
+
+        int n = items.length;
+        if (n == 0) {
+            nx = ny = nz = 0;
+            invCellX = invCellY = invCellZ = 0;
+            cellStart = new int[1];
+            cellItems = new int[0];
+            return;
+        }
+
+        //cells per unit length: the number of cells (DENSITY * n) divided evenly over the sides that are not flat
+        double dx = box.maxX - box.minX, dy = box.maxY - box.minY, dz = box.maxZ - box.minZ;
+        double size = 1;
+        int sides = 0;
+        for (double d : new double[]{dx, dy, dz})
+            if (d > 0) {
+                size *= d;
+                ++sides;
+            }
+        double cellsPerUnit = sides == 0 ? 0 : Math.pow(DENSITY * n / size, 1d / sides);
+        nx = resolution(dx, cellsPerUnit);
+        ny = resolution(dy, cellsPerUnit);
+        nz = resolution(dz, cellsPerUnit);
+        invCellX = dx > 0 ? nx / dx : 0;
+        invCellY = dy > 0 ? ny / dy : 0;
+        invCellZ = dz > 0 ? nz / dz : 0;
+
+        //two passes - count the items of every cell, then fill them in
+        cellStart = new int[nx * ny * nz + 1];
+        for (int i = 0; i < n; ++i)
+            insert(boxes.get(i), i, null, null);
+        for (int c = 0; c < nx * ny * nz; ++c)
+            cellStart[c + 1] += cellStart[c];
+        cellItems = new int[cellStart[nx * ny * nz]];
+        int[] next = cellStart.clone();
+        for (int i = 0; i < n; ++i)
+            insert(boxes.get(i), i, next, cellItems);
+    }
+
+    /**
+     * Adds an item to the cells that its box overlaps, or only counts it
+     *
+     * @param itemBox box of the item
+     * @param item    index of the item
+     * @param next    next free place in the list of every cell, null for counting
+     * @param list    the lists of the cells, null for counting
+     */
+    private void insert(BoundingBox itemBox, int item, int[] next, int[] list) {
+        int x0 = cellX(itemBox.minX), x1 = cellX(itemBox.maxX);
+        int y0 = cellY(itemBox.minY), y1 = cellY(itemBox.maxY);
+        int z0 = cellZ(itemBox.minZ), z1 = cellZ(itemBox.maxZ);
+        for (int z = z0; z <= z1; ++z)
+            for (int y = y0; y <= y1; ++y)
+                for (int x = x0; x <= x1; ++x) {
+                    int cell = (z * ny + y) * nx + x;
+                    if (list == null)
+                        ++cellStart[cell + 1];
+                    else
+                        list[next[cell]++] = item;
+                }
+    }
+
+    /**
+     * Number of cells along a side of the grid
+     *
+     * @param length       length of the side
+     * @param cellsPerUnit cells per unit length
+     * @return number of cells, at least 1
+     */
+    private static int resolution(double length, double cellsPerUnit) {
+        return (int) Math.max(1, Math.min(MAX_RESOLUTION, Math.round(length * cellsPerUnit)));
+    }
+
+    /**
+     * Returns the number of cells along each axis
+     *
+     * @return the numbers of cells along x, y, z
+     */
+    public int[] getResolution() {
+        return new int[]{nx, ny, nz};
+    }
+
+    private int cellX(double x) {
+        return Math.max(0, Math.min(nx - 1, (int) ((x - box.minX) * invCellX)));
+    }
+
+    private int cellY(double y) {
+        return Math.max(0, Math.min(ny - 1, (int) ((y - box.minY) * invCellY)));
+    }
+
+    private int cellZ(double z) {
+        return Math.max(0, Math.min(nz - 1, (int) ((z - box.minZ) * invCellZ)));
+    }
+
+    /**
+     * Walk of a ray over the cells of the grid, with the mailboxes of the items.
+     * Every thread has its own walk, and a walk serves one query at a time
+     */
+    private class Walk {
+        private final int[] stamps = new int[items.length]; //the last ray that tested every item
+        private int stamp = 0; //number of the current ray
+
+        private int x, y, z; //current cell
+        private int stepX, stepY, stepZ; //direction of the walk on every axis
+        private double nextX, nextY, nextZ; //distance where the ray crosses the next border on every axis
+        private double deltaX, deltaY, deltaZ; //distance between borders on every axis
+        private double end; //distance where the walk stops
+
+        /**
+         * Starts the walk of a new ray at the cell where it enters the grid
+         *
+         * @param ray         the ray
+         * @param maxDistance distance to stop the walk at
+         * @return false if the ray misses the grid
+         */
+        boolean start(Ray ray, double maxDistance) {
+            if (++stamp == 0) {
+                //the ray numbers wrapped around, the old marks are meaningless
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+            Point p0 = ray.getP0();
+            Vector v = ray.getDir();
+            double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+            double dx = v.getX(), dy = v.getY(), dz = v.getZ();
+
+            //slab test with the grid box, keeping the exit distance too
+            double tMin = 0, tMax = maxDistance;
+            double t1 = (box.minX - ox) / dx, t2 = (box.maxX - ox) / dx;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+            t1 = (box.minY - oy) / dy;
+            t2 = (box.maxY - oy) / dy;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+            t1 = (box.minZ - oz) / dz;
+            t2 = (box.maxZ - oz) / dz;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+            //NaN values (0 * infinity for a ray on a slab border) fail the comparison and are treated as a hit
+            if (tMin > tMax * (1 + 1e-9))
+                return false;
+            end = tMax;
+
+            x = cellX(ox + dx * tMin);
+            y = cellY(oy + dy * tMin);
+            z = cellZ(oz + dz * tMin);
+            stepX = dx > 0 ? 1 : -1;
+            stepY = dy > 0 ? 1 : -1;
+            stepZ = dz > 0 ? 1 : -1;
+            //a flat axis or a ray parallel to it never crosses a border
+            deltaX = invCellX == 0 || dx == 0 ? Double.POSITIVE_INFINITY : 1 / (invCellX * Math.abs(dx));
+            deltaY = invCellY == 0 || dy == 0 ? Double.POSITIVE_INFINITY : 1 / (invCellY * Math.abs(dy));
+            deltaZ = invCellZ == 0 || dz == 0 ? Double.POSITIVE_INFINITY : 1 / (invCellZ * Math.abs(dz));
+            nextX = deltaX == Double.POSITIVE_INFINITY ? deltaX
+                    : (box.minX + (x + (stepX > 0 ? 1 : 0)) / invCellX - ox) / dx;
+            nextY = deltaY == Double.POSITIVE_INFINITY ? deltaY
+                    : (box.minY + (y + (stepY > 0 ? 1 : 0)) / invCellY - oy) / dy;
+            nextZ = deltaZ == Double.POSITIVE_INFINITY ? deltaZ
+                    : (box.minZ + (z + (stepZ > 0 ? 1 : 0)) / invCellZ - oz) / dz;
+            return true;
+        }
+
+        /**
+         * Returns the current cell
+         *
+         * @return index of the cell
+         */
+        int cell() {
+            return (z * ny + y) * nx + x;
+        }
+
+        /**
+         * Returns the distance where the ray leaves the current cell
+         *
+         * @return the distance
+         */
+        double cellExit() {
+            return Math.min(end, Math.min(nextX, Math.min(nextY, nextZ)));
+        }
+
+        /**
+         * Moves to the next cell that the ray passes through
+         *
+         * @return false if the ray left the grid or passed the maximal distance
+         */
+        boolean next() {
+            if (nextX <= nextY && nextX <= nextZ) {
+                if (nextX > end || (x += stepX) < 0 || x >= nx)
+                    return false;
+                nextX += deltaX;
+            } else if (nextY <= nextZ) {
+                if (nextY > end || (y += stepY) < 0 || y >= ny)
+                    return false;
+                nextY += deltaY;
+            } else {
+                if (nextZ > end || (z += stepZ) < 0 || z >= nz)
+                    return false;
+                nextZ += deltaZ;
+            }
+            return true;
+        }
+
+        /**
+         * Checks the mailbox of an item and marks it
+         *
+         * @param item index of the item
+         * @return true if the current ray didn't test the item yet
+         */
+        boolean firstVisit(int item) {
+            if (stamps[item] == stamp)
+                return false;
+            stamps[item] = stamp;
+            return true;
+        }
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        List<GeoPoint> result = null;
+        for (Intersectable item : unbounded)
+            result = addAll(result, item.findGeoIntersectionsHelper(ray, maxDistance));
+
+        Walk walk = walks.get();
+        if (items.length == 0 || !walk.start(ray, maxDistance))
+            return result;
+        do {
+            for (int c = walk.cell(), i = cellStart[c]; i < cellStart[c + 1]; ++i) {
+                int item = cellItems[i];
+                if (walk.firstVisit(item))
+                    result = addAll(result, items[item].findGeoIntersectionsHelper(ray, maxDistance));
+            }
+        } while (walk.next());
+        return result;
+    }
+
+    /**
+     * Finds the closest intersection through a {@link HitRecord}, like {@link Geometries}
+     *
+     * @param ray         The ray to test for intersections.
+     * @param maxDistance maximal distance of the intersection from the ray head
+     * @return the closest intersection, or null if there is none
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        HitRecord hit = HitRecord.acquire(maxDistance);
+        try {
+            return findClosestHitHelper(ray, hit) ? hit.toGeoPoint(ray) : null;
+        } finally {
+            hit.release();
+        }
+    }
+
+    /**
+     * Records the closest hit of the ray. The cells are visited front to back, so the walk stops
+     * at the first cell that the ray leaves beyond the closest hit so far.
+     *
+     * @param ray the ray
+     * @param hit the record to fill in place
+     * @return true if the record was updated
+     */
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+        boolean found = false;
+        for (Intersectable item : unbounded)
+            if (item.findClosestHitHelper(ray, hit))
+                found = true;
+
+        Walk walk = walks.get();
+        if (items.length == 0 || !walk.start(ray, hit.t))
+            return found;
+        do {
+            for (int c = walk.cell(), i = cellStart[c]; i < cellStart[c + 1]; ++i) {
+                int item = cellItems[i];
+                if (walk.firstVisit(item) && items[item].findClosestHitHelper(ray, hit))
+                    found = true;
+            }
+            //every intersectable before the end of this cell was tested
+            if (hit.t <= walk.cellExit())
+                break;
+        } while (walk.next());
+        return found;
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        for (Intersectable item : unbounded) {
+            ktr = item.findTransparencyHelper(ray, maxDistance, ktr, minK);
+            if (ktr.lowerThan(minK))
+                return ktr;
+        }
+
+        Walk walk = walks.get();
+        if (items.length == 0 || !walk.start(ray, maxDistance))
+            return ktr;
+        do {
+            for (int c = walk.cell(), i = cellStart[c]; i < cellStart[c + 1]; ++i) {
+                int item = cellItems[i];
+                if (!walk.firstVisit(item))
+                    continue;
+                ktr = items[item].findTransparencyHelper(ray, maxDistance, ktr, minK);
+                if (ktr.lowerThan(minK))
+                    return ktr;
+            }
+        } while (walk.next());
+        return ktr;
+    }
+
+    /**
+     * Box of the grid
+     *
+     * @return the bounding box, or null if the grid is empty or one of the intersectables is infinite
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return unbounded.length > 0 ? null : box;
+    }
+
+    /**
+     * Adds the points to the result list, creating the list on the first addition
+     *
+     * @param result the result list, may be null
+     * @param points points to add, may be null
+     * @return the result list
+     */
+    private static List<GeoPoint> addAll(List<GeoPoint> result, List<GeoPoint> points) {
+        if (points == null)
+            return result;
+        if (result == null)
+            result = new LinkedList<>();
+        result.addAll(points);
+        return result;
+    }
+}
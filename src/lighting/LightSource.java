@@ -18,4 +18,25 @@ public interface LightSource {
     double getDistance(Point point);
     public Point getPosition() ;
     public double getRadius();
+
+    /**
+     * Returns the number of the shadow rays of the light - the samples of its area
+     *
+     * @return number of samples, 1 for a light without area
+     */
+    default int getSampleCount() {
+        return 1;
+    }
+
+    /**
+     * Get the direction of the light from one of its samples to a point, without building the list of
+     * {@link #getListL(Point)}
+     *
+     * @param p      the point
+     * @param sample index of the sample, below {@link #getSampleCount()}
+     * @return the direction
+     */
+    default Vector getSampleL(Point p, int sample) {
+        return getL(p);
+    }
 }
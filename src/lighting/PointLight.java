@@ -4,17 +4,29 @@ import primitives.Color;
 import primitives.Point;
 import primitives.Vector;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
 
+/**
+ * Light that spreads from a point in every direction and fades with the distance.<br/>
+ * A light with a radius casts soft shadows: its disk is sampled by a lattice of points, and a shaded point
+ * is lit by the part of the samples that it sees. The offsets of the samples are calculated once for the light,
+ * so the directions to the samples are calculated on the fly without lists. The lattice can also be walked
+ * by its coordinates, for adaptive sampling that traces only a part of the samples.
+ */
 public class PointLight extends Light implements LightSource {
+    private static final int DEFAULT_GRID = 30; //points of the lattice along the diameter - a step of radius / 15
+    private static final double SAMPLE_HEIGHT = 0.1; //the disk of the samples is a little above the center
 
     private Point position;
     protected double radius;
     private double Kc = 1;
     private double Kl = 0;
     private double Kq = 0;
+    private int gridSize = DEFAULT_GRID;
+    private double[] samples; //offsets of the samples from the center - x, y, z of every sample, the center is last
+    private int[] sampleCounts; //summed area table of the samples on the lattice, (grid + 1)^2 entries
 
     /**
      * Constructor
@@ -25,11 +37,13 @@ public class PointLight extends Light implements LightSource {
     public PointLight(Color intensity, Point position) {
         super(intensity);
         this.position = position;
+        updateSamples();
     }
     public PointLight(Color c, Point pos, double radius) {
         super(c);
         position = pos;
         this.radius = radius;
+        updateSamples();
     }
     /**
      * Sets the constant attenuation factor of the light.
@@ -65,8 +79,54 @@ public class PointLight extends Light implements LightSource {
     }
     public PointLight setradius(double radius) {
         this.radius = radius;
+        updateSamples();
         return this;
     }
+
+    /**
+     * Sets the number of the shadow rays of a light with a radius - the lattice on the disk of the light
+     * is chosen to have about this number of points (including the center). The default is about 700.
+     *
+     * @param samples number of samples, 1 for a hard shadow
+     * @return The object itself.
+     * @throws IllegalArgumentException if the number is not positive
+     */
+    public PointLight setSoftShadowSamples(int samples) {
+        if (samples < 1)
+            throw new IllegalArgumentException("Number of shadow samples must be positive");
+        //a k x k lattice on the square around the disk has about pi / 4 * k^2 points in the disk
+        gridSize = (int) Math.round(Math.sqrt(4 * (samples - 1) / Math.PI));
+        updateSamples();
+        return this;
+    }
+
+    /**
+     * Calculates the offsets of the samples on the disk of the light - the points of the lattice that are
+     * in the disk, and the center
+     */
+    private void updateSamples() {
+        int k = radius > 0 ? gridSize : 0;
+        double step = 2 * radius / k;
+        double[] offsets = new double[3 * (k * k + 1)];
+        //sampleCounts[i * (k + 1) + j] is the number of samples with lattice coordinates below i and below j
+        sampleCounts = new int[(k + 1) * (k + 1)];
+        int n = 0;
+        for (int i = 0; i < k; ++i)
+            for (int j = 0; j < k; ++j) {
+                double x = -radius + i * step, z = -radius + j * step;
+                int inside = 0;
+                if (x * x + SAMPLE_HEIGHT * SAMPLE_HEIGHT + z * z <= radius * radius) {
+                    offsets[n++] = x;
+                    offsets[n++] = SAMPLE_HEIGHT;
+                    offsets[n++] = z;
+                    inside = 1;
+                }
+                sampleCounts[(i + 1) * (k + 1) + j + 1] = inside + sampleCounts[i * (k + 1) + j + 1]
+                        + sampleCounts[(i + 1) * (k + 1) + j] - sampleCounts[i * (k + 1) + j];
+            }
+        n += 3; //the center, with zero offset
+        samples = n == offsets.length ? offsets : Arrays.copyOf(offsets, n);
+    }
     /**
      * The intensity of a point light source is inversely proportional to the square of the distance from the light source
      *
@@ -108,25 +168,104 @@ public class PointLight extends Light implements LightSource {
     }
     @Override
     public List<Vector> getListL(Point p) {
-        Random r = new Random();
-        List<Vector> vectors = new LinkedList();
-        for (double i = -radius; i < radius; i += radius / 15) {
-            for (double j = -radius; j < radius; j += radius / 15) {
-                if (i != 0 && j != 0) {
-                    Point point = position.add(new Vector(i, 0.1d, j));
-                  //  if (point.equals(position)){
-                    //    vectors.add(p.subtract(point).normalize());
-                   // }
-                    //else{
-                            if (point.subtract(position).dotProduct(point.subtract(position)) <= radius * radius){
-                                vectors.add(p.subtract(point).normalize());
-                            }
-                    //}
-                }
+        int count = getSampleCount();
+        List<Vector> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i)
+            vectors.add(getSampleL(p, i));
+        return vectors;
+    }
 
-            }
+    /**
+     * Returns the number of points of the lattice along the diameter of the light
+     *
+     * @return size of the lattice, 0 for a light without radius
+     */
+    public int getSampleGrid() {
+        return radius > 0 ? gridSize : 0;
+    }
+
+    /**
+     * Counts the samples of the lattice in a rectangle of lattice coordinates (the center is not counted)
+     *
+     * @param i0 first row (included)
+     * @param j0 first column (included)
+     * @param i1 last row (excluded)
+     * @param j1 last column (excluded)
+     * @return number of samples of the disk in the rectangle
+     */
+    public int countSamples(int i0, int j0, int i1, int j1) {
+        int size = getSampleGrid() + 1;
+        return sampleCounts[i1 * size + j1] - sampleCounts[i0 * size + j1]
+                - sampleCounts[i1 * size + j0] + sampleCounts[i0 * size + j0];
+    }
+
+    /**
+     * The direction from a point of the lattice to the point. The coordinates may be up to the size of the
+     * lattice, and the lattice point may be out of the disk of the light, so the corners of any rectangle
+     * of the lattice can be probed.
+     *
+     * @param p the point
+     * @param i row of the lattice point
+     * @param j column of the lattice point
+     * @return the normalized direction
+     */
+    public Vector getGridL(Point p, int i, int j) {
+        double step = 2 * radius / getSampleGrid();
+        double x = p.getX() - position.getX() + radius - i * step;
+        double y = p.getY() - position.getY() - SAMPLE_HEIGHT;
+        double z = p.getZ() - position.getZ() + radius - j * step;
+        double length = Math.sqrt(x * x + y * y + z * z);
+        return new Vector(x / length, y / length, z / length);
+    }
+
+    /**
+     * The direction from a point of the disk of the light to the point, for samples that are not on the lattice.
+     * The unit square is mapped to the disk by the concentric map of Shirley and Chiu, so evenly spread
+     * samples of the square stay evenly spread on the disk.
+     *
+     * @param p the point
+     * @param u first coordinate of the sample, in [0, 1)
+     * @param v second coordinate of the sample, in [0, 1)
+     * @return the normalized direction
+     */
+    public Vector getDiskL(Point p, double u, double v) {
+        double a = 2 * u - 1, b = 2 * v - 1, r, phi;
+        if (a * a > b * b) {
+            r = a;
+            phi = Math.PI / 4 * (b / a);
+        } else if (b != 0) {
+            r = b;
+            phi = Math.PI / 2 - Math.PI / 4 * (a / b);
+        } else {
+            r = 0;
+            phi = 0;
         }
-        vectors.add(getL(p));
-        return vectors;
+        double x = p.getX() - position.getX() - radius * r * Math.cos(phi);
+        double y = p.getY() - position.getY() - SAMPLE_HEIGHT;
+        double z = p.getZ() - position.getZ() - radius * r * Math.sin(phi);
+        double length = Math.sqrt(x * x + y * y + z * z);
+        return new Vector(x / length, y / length, z / length);
+    }
+
+    @Override
+    public int getSampleCount() {
+        return samples.length / 3;
+    }
+
+    /**
+     * The direction from a sample of the light to the point
+     *
+     * @param p      the point
+     * @param sample index of the sample, the last one is the center
+     * @return the normalized direction
+     */
+    @Override
+    public Vector getSampleL(Point p, int sample) {
+        int s = 3 * sample;
+        double x = p.getX() - position.getX() - samples[s];
+        double y = p.getY() - position.getY() - samples[s + 1];
+        double z = p.getZ() - position.getZ() - samples[s + 2];
+        double length = Math.sqrt(x * x + y * y + z * z);
+        return new Vector(x / length, y / length, z / length);
     }
 }
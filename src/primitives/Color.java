@@ -155,6 +155,33 @@ public class Color {
 public Double3 getRgb(){
 		return  rgb;
 }
+
+	/**
+	 * Red component getter, without the upper limit of 255
+	 *
+	 * @return the red component
+	 */
+	public double getRed() {
+		return rgb.d1;
+	}
+
+	/**
+	 * Green component getter, without the upper limit of 255
+	 *
+	 * @return the green component
+	 */
+	public double getGreen() {
+		return rgb.d2;
+	}
+
+	/**
+	 * Blue component getter, without the upper limit of 255
+	 *
+	 * @return the blue component
+	 */
+	public double getBlue() {
+		return rgb.d3;
+	}
 	@Override
 	public String toString() {
 		return "rgb:" + rgb;
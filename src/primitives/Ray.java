@@ -126,10 +126,11 @@ public class Ray {
 
         GeoPoint closesPoint = null;
         double minDistance = Double.MAX_VALUE;
-        for (int i = 0; i < pointList.size(); i++) {
-            if (p0.distance(pointList.get(i).point) < minDistance) {
-                minDistance = p0.distance(pointList.get(i).point);
-                closesPoint = pointList.get(i);
+        for (GeoPoint geoPoint : pointList) {
+            double distance = p0.distanceSquared(geoPoint.point);
+            if (distance < minDistance) {
+                minDistance = distance;
+                closesPoint = geoPoint;
             }
         }
         return closesPoint;
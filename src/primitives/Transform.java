@@ -0,0 +1,187 @@
+package primitives;
+
+/**
+ * Affine transformation of the space - a linear map (rotation, scaling, shear) followed by a translation.<br/>
+ * The transformation keeps its 3x4 matrix together with the matrix of its inverse, so points can be moved
+ * both ways without inverting anything per call. Transformations are immutable and are composed with
+ * {@link #then(Transform)}, e.g. {@code Transform.scaling(2).then(Transform.translation(new Vector(0, 0, -100)))}.
+ */
+public class Transform {
+    /**
+     * The transformation that moves nothing
+     */
+    public static final Transform IDENTITY = new Transform(
+            new double[]{1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0},
+            new double[]{1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0});
+
+    //rows of the matrix - x' = m[0] * x + m[1] * y + m[2] * z + m[3], and so on
+    private final double[] m;
+    private final double[] inv;
+
+    /**
+     * Constructor of a transformation from its matrix and the matrix of its inverse
+     *
+     * @param m   the matrix, 3 rows of 4
+     * @param inv the inverse matrix, 3 rows of 4
+     */
+    private Transform(double[] m, double[] inv) {
+        this.m = m;
+        this.inv = inv;
+    }
+
+    /**
+     * Creates a translation
+     *
+     * @param offset the offset of every point
+     * @return the translation
+     */
+    public static Transform translation(Vector offset) {
+        double x = offset.getX(), y = offset.getY(), z = offset.getZ();
+        return new Transform(new double[]{1, 0, 0, x, 0, 1, 0, y, 0, 0, 1, z},
+                new double[]{1, 0, 0, -x, 0, 1, 0, -y, 0, 0, 1, -z});
+    }
+
+    /**
+     * Creates a scaling around the origin, that may be different along every axis
+     *
+     * @param sx scale factor along x
+     * @param sy scale factor along y
+     * @param sz scale factor along z
+     * @return the scaling
+     * @throws IllegalArgumentException if one of the factors is zero
+     */
+    public static Transform scaling(double sx, double sy, double sz) {
+        if (Util.isZero(sx) || Util.isZero(sy) || Util.isZero(sz))
+            throw new IllegalArgumentException("Scale factor can't be zero");
+        return new Transform(new double[]{sx, 0, 0, 0, 0, sy, 0, 0, 0, 0, sz, 0},
+                new double[]{1 / sx, 0, 0, 0, 0, 1 / sy, 0, 0, 0, 0, 1 / sz, 0});
+    }
+
+    /**
+     * Creates a uniform scaling around the origin
+     *
+     * @param scale scale factor
+     * @return the scaling
+     * @throws IllegalArgumentException if the factor is zero
+     */
+    public static Transform scaling(double scale) {
+        return scaling(scale, scale, scale);
+    }
+
+    /**
+     * Creates a rotation around an axis that passes through the origin (Rodrigues' formula)
+     *
+     * @param axis  direction of the axis
+     * @param angle angle of the rotation in degrees, counter clockwise when the axis points at the viewer
+     * @return the rotation
+     */
+    public static Transform rotation(Vector axis, double angle) {
+        Vector k = axis.normalize();
+        double x = k.getX(), y = k.getY(), z = k.getZ();
+        double radians = Math.toRadians(angle);
+        double cos = Math.cos(radians), sin = Math.sin(radians), c = 1 - cos;
+        double[] m = {
+                cos + x * x * c, x * y * c - z * sin, x * z * c + y * sin, 0,
+                y * x * c + z * sin, cos + y * y * c, y * z * c - x * sin, 0,
+                z * x * c - y * sin, z * y * c + x * sin, cos + z * z * c, 0};
+        //the inverse of a rotation is its transpose
+        double[] inv = {m[0], m[4], m[8], 0, m[1], m[5], m[9], 0, m[2], m[6], m[10], 0};
+        return new Transform(m, inv);
+    }
+
+    /**
+     * Composes this transformation with another one, that is applied after it
+     *
+     * @param next the transformation to apply after this one
+     * @return the composed transformation
+     */
+    public Transform then(Transform next) {
+        return new Transform(multiply(next.m, m), multiply(inv, next.inv));
+    }
+
+    /**
+     * Multiplies two affine matrices (with the implicit row 0, 0, 0, 1)
+     *
+     * @param a the left matrix
+     * @param b the right matrix
+     * @return the product
+     */
+    private static double[] multiply(double[] a, double[] b) {
+        double[] result = new double[12];
+        for (int row = 0; row < 3; ++row) {
+            int r = 4 * row;
+            for (int col = 0; col < 4; ++col)
+                result[r + col] = a[r] * b[col] + a[r + 1] * b[4 + col] + a[r + 2] * b[8 + col];
+            result[r + 3] += a[r + 3];
+        }
+        return result;
+    }
+
+    /**
+     * Moves a point
+     *
+     * @param p the point
+     * @return the transformed point
+     */
+    public Point apply(Point p) {
+        return applyToPoint(m, p);
+    }
+
+    /**
+     * Moves a point by the inverse transformation
+     *
+     * @param p the point
+     * @return the point that this transformation moves to p
+     */
+    public Point applyInverse(Point p) {
+        return applyToPoint(inv, p);
+    }
+
+    /**
+     * Transforms a direction - only the linear part of the transformation applies, and the length may change
+     *
+     * @param v the direction
+     * @return the transformed direction
+     */
+    public Vector apply(Vector v) {
+        return applyToVector(m, v);
+    }
+
+    /**
+     * Transforms a direction by the inverse transformation
+     *
+     * @param v the direction
+     * @return the direction that this transformation turns to v
+     */
+    public Vector applyInverse(Vector v) {
+        return applyToVector(inv, v);
+    }
+
+    /**
+     * Transforms a normal of a surface, so that it stays orthogonal to the transformed surface
+     * (by the transpose of the inverse matrix)
+     *
+     * @param n the normal
+     * @return the transformed normal, not normalized
+     */
+    public Vector applyToNormal(Vector n) {
+        double x = n.getX(), y = n.getY(), z = n.getZ();
+        return new Vector(inv[0] * x + inv[4] * y + inv[8] * z,
+                inv[1] * x + inv[5] * y + inv[9] * z,
+                inv[2] * x + inv[6] * y + inv[10] * z);
+    }
+
+    private static Point applyToPoint(double[] m, Point p) {
+        double x = p.getX(), y = p.getY(), z = p.getZ();
+        return new Point(m[0] * x + m[1] * y + m[2] * z + m[3],
+                m[4] * x + m[5] * y + m[6] * z + m[7],
+                m[8] * x + m[9] * y + m[10] * z + m[11]);
+    }
+
+    private static Vector applyToVector(double[] m, Vector v) {
+        double x = v.getX(), y = v.getY(), z = v.getZ();
+        return new Vector(m[0] * x + m[1] * y + m[2] * z,
+                m[4] * x + m[5] * y + m[6] * z,
+                m[8] * x + m[9] * y + m[10] * z);
+    }
+}
@@ -0,0 +1,24 @@
+package renderer;
+
+/**
+ * Blue noise sampler: the samples of a pixel are the R2 sequence (the plastic number generalization of the golden
+ * ratio sequence), and every pixel shifts them by the R2 dither of its place in the image (Roberts, 2018).
+ * The shifts of neighbouring pixels are far apart, so the error of the pixels is high-frequency noise
+ * that the eye averages out, instead of the clumps of white noise.
+ */
+public class BlueNoiseSampler implements Sampler {
+    private static final double PLASTIC = 1.32471795724474602596; //root of x^3 = x + 1
+    private static final double A1 = 1 / PLASTIC;
+    private static final double A2 = 1 / (PLASTIC * PLASTIC);
+    private static final double GOLDEN = 0.61803398874989484820; //step of the pairs of dimensions
+
+    @Override
+    public double get(long pixel, int index, int count, int dimension) {
+        int col = Sampler.col(pixel), row = Sampler.row(pixel);
+        boolean first = (dimension & 1) == 0;
+        //the dither of the image, the axes are swapped for the second dimension
+        double shift = first ? col * A1 + row * A2 : col * A2 + row * A1;
+        double value = 0.5 + index * (first ? A1 : A2) + shift + (dimension >> 1) * GOLDEN;
+        return value - Math.floor(value);
+    }
+}
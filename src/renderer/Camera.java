@@ -8,6 +8,8 @@ import primitives.Vector;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.MissingResourceException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
 import static primitives.Util.*;
 import static primitives.Util.random;
@@ -25,14 +27,22 @@ public class Camera {
     private RayTracerBase rayTracer; // ray Tracer
 
     private int sampleNumber = 1; //Number of rays to send for single pixel
-    public static boolean SSAA = true;   //Decides whether super sampling anti aliasing will be used to render the image
-    public static int adaptiveSSAA =0; //Decides whether adaptive super sampling anti aliasing will be used to render the image. If yes value will be larger than zero.
+    private boolean SSAA = false;   //Decides whether super sampling anti aliasing will be used to render the image
+    private boolean adaptiveSSAA = false; //Decides whether adaptive super sampling anti aliasing will be used to render the image
 
     private int MAX_DEPTH = 1; //Maximum depth for recursive function
+    private Sampler sampler = null; //places of the rays in the pixels, null for random places
+    private boolean varianceSSAA = false; //Decides whether the samples of a pixel are added until its error is small
+    private double targetError; //relative error of the pixels that variance driven sampling stops at
+    private int maxSamples; //maximal number of samples of a pixel in variance driven sampling
+    private static final int SAMPLE_BATCH = 8; //samples that variance driven sampling adds between its error checks
+    private RenderJob lastRender = null; //the last render of renderImage(), for its statistics
 
     private int threadsCount = 0;
     private static final int SPARE_THREADS = 2; // Spare threads if trying to use all the cores
     private boolean print = true; // printing progress percentage
+    private int tileSize = 16; // length of the side of a render tile in pixels
+    private TileOrder tileOrder = TileOrder.SCANLINE; // order in which the tiles are rendered
 
     /**
      * Set multi-threading <br>
@@ -53,6 +63,30 @@ public class Camera {
         return this;
     }
 
+    /**
+     * Set the size of the tiles that the render threads take from the image
+     *
+     * @param tileSize length of the side of a tile in pixels
+     * @return the Render object itself
+     */
+    public Camera setTileSize(int tileSize) {
+        if (tileSize <= 0)
+            throw new IllegalArgumentException("Tile size must be positive");
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Set the order in which the tiles are rendered
+     *
+     * @param tileOrder order of the tiles
+     * @return the Render object itself
+     */
+    public Camera setTileOrder(TileOrder tileOrder) {
+        this.tileOrder = tileOrder;
+        return this;
+    }
+
     /**
      * Set debug printing on
      *
@@ -63,18 +97,34 @@ public class Camera {
         return this;
     }
     /**
-     * Enables supersampling anti aliasing
+     * Enables supersampling anti aliasing - a single sample is the ray through the center of the pixel,
+     * so it turns supersampling off
      *
      * @param num Number of samples to test
      * @return Self with SSAA on
+     * @throws IllegalArgumentException if the number of samples is not positive
      */
     public Camera setSSAA(int num) {
-        SSAA = true;
+        if (num < 1)
+            throw new IllegalArgumentException("Number of samples must be positive");
+        SSAA = num > 1;
         //MAX_DEPTH = num;
         sampleNumber=num;
         return this;
     }
 
+    /**
+     * Sets the sampler of the places of the rays in the pixels. The places are seeded by the pixel,
+     * so the render gives the same image every time, and they are spread evenly in the pixel
+     *
+     * @param sampler the sampler, null for random places
+     * @return Self with the sampler
+     */
+    public Camera setSampler(Sampler sampler) {
+        this.sampler = sampler;
+        return this;
+    }
+
     /**
      * Constructor that receives location, forward vector and up vector
      *
@@ -201,33 +251,16 @@ public class Camera {
         double xOffset = 0;
         double yOffset = 0;
 
-        //if adaptive supersampling is enabled
-        if (adaptiveSSAA > 0) {
-            //check which corner of pixel to create ray to and set offset from pixel center accordingly
-            switch (adaptiveSSAA){
-                case 1: //top left corner
-                    xOffset = -rX / 2 + 0.00000000001;
-                    yOffset = rY / 2 - 0.00000000001;
-                    break;
-                case 2: //top right corner
-                    xOffset = rX / 2 - 0.00000000001;
-                    yOffset = rY / 2 - 0.00000000001;
-                    break;
-                case 3: //bottom right corner
-                    xOffset = rX / 2 - 0.00000000001;
-                    yOffset = -rY / 2 + 0.00000000001;
-                    break;
-                case 4: //bottom left corner
-                    xOffset = -rX / 2 + 0.00000000001;
-                    yOffset = -rY / 2 + 0.00000000001;
-                    break;
+        if (SSAA) {
+            //Randomly choose a slight offset for location in pixel, or take it from the sampler
+            if (sampler == null) {
+                xOffset = random(-rX / 2, rX / 2);
+                yOffset = random(-rY / 2, rY / 2);
+            } else {
+                long pixel = Sampler.pixel(j, i);
+                xOffset = (sampler.get(pixel, 0, 1, 0) - 0.5) * rX;
+                yOffset = (0.5 - sampler.get(pixel, 0, 1, 1)) * rY;
             }
-
-        }
-        else if (SSAA) {
-            //Randomly choose a slight offset for location in pixel.
-            xOffset = random(-rX / 2, rX / 2);
-            yOffset = random(-rY / 2, rY / 2);
         }
         //Set pIJ to correct value. It starts at center of view plane and will be moved to correct location in view plane
         if (xJ != 0) {
@@ -346,6 +379,55 @@ public class Camera {
      * @return this, the camera itself
      */
     public Camera renderImage() {
+        checkResources();
+        System.out.println(threadsCount);
+        //Renders the image
+        final int nX = imageWriter.getNx();
+        final int nY = imageWriter.getNy();
+        //for each pixel
+        if (threadsCount == 0) {
+            RenderSettings settings = createSettings();
+            SampleBuffer buffer = settings.varianceSSAA ? new SampleBuffer(nX, nY) : null;
+            Pixel pixels = new Pixel(nY, nX, 1);
+            pixels.setBVHStatistics(rayTracer.scene.geometries.getBVHStatistics());
+            CornerCache cache = new CornerCache(pixels, settings.maxDepth);
+            for (int i = 0; i < nY; ++i) {
+                //the corners of a row are shared only with the next row
+                if (settings.adaptiveSSAA)
+                    cache.startRegion(0, i, nX, i + 1);
+                //a ray through the center of every pixel of the row, unless the pixels are sampled
+                Ray[] rays = settings.isSampled() ? null : settings.generator.constructPixelRays(0, i, nX, i + 1);
+                for (int j = 0; j < nX; ++j) {
+                    // System.out.println(i+","+j); // print pixel without threads - not necessary
+                    castRay(settings, cache, buffer, rays == null ? null : rays[j], j, i);
+                    pixels.pixelDone();
+                    pixels.printPixel();
+                }
+            }
+            lastRender = new RenderJob(pixels, buffer, CompletableFuture.completedFuture(imageWriter));
+        }
+        else
+            renderImageThreaded();
+        return this;
+    }
+
+    /**
+     * Returns the job of the last render of {@link #renderImage()}, for the statistics of the render -
+     * its progress (the corner cache, the hierarchy, and so on) and its sample buffer.
+     * The statistics of a job of {@link #renderImageAsync()} are kept by the job itself.
+     *
+     * @return the last render, null if there was no render
+     */
+    public RenderJob getLastRender() {
+        return lastRender;
+    }
+
+    /**
+     * Checks that all the resources of the render are set
+     *
+     * @throws UnsupportedOperationException if one of the camera resources is missing
+     */
+    private void checkResources() {
         try {
             if (imageWriter == null) {
                 throw new MissingResourceException("missing resource", ImageWriter.class.getName(), "");
@@ -360,83 +442,148 @@ public class Camera {
             throw new UnsupportedOperationException("missing resources in order to create the image"
                     + e.getClassName());
         }
-        System.out.println(threadsCount);
-        //Renders the image
-        final int nX = imageWriter.getNx();
-        final int nY = imageWriter.getNy();
-        //for each pixel
-        if (threadsCount == 0) {
-            Pixel.initialize(imageWriter.getNx(), imageWriter.getNy(), 1);
-            for (int i = 0; i < nY; ++i)
-                for (int j = 0; j < nX; ++j) {
-                    // System.out.println(i+","+j); // print pixel without threads - not necessary
-                    castRay(nX, nY, j, i);
-                    Pixel.pixelDone();
-                    Pixel.printPixel();
-                }
-        }
-        else
-            renderImageThreaded();
-        return this;
     }
 
     /**
      * This function renders image's pixel color map from the scene included with
-     * the Renderer object - with multi-threading
+     * the Renderer object - with multi-threading.<br/>
+     * The image is rendered in tiles by a work stealing pool, see {@link TileScheduler}.
      */
-
     private void renderImageThreaded() {
-        Pixel.initialize(imageWriter.getNx(),imageWriter.getNy() , 1);
-        while (threadsCount-- > 0) {
-            new Thread(() -> {
-                for (Pixel pixel = new Pixel(); pixel.nextPixel(); Pixel.pixelDone())
-                    castRay(imageWriter.getNx(),imageWriter.getNy(), pixel.col, pixel.row);
+        RenderJob job = lastRender = startRender(threadsCount, 1);
+        job.getProgress().waitToFinish(job.getImage());
+    }
 
-            }).start();
-        }
-        renderer.Pixel.waitToFinish();
+    /**
+     * Starts rendering the image in the background and returns at once.<br/>
+     * Every job has its own progress and sampling state, so several cameras can render at the same time.
+     * The settings of the camera are copied when the job starts, so the camera may be changed, and start
+     * other jobs, while the job runs - but the scene must not be changed until the job is done.
+     * The job runs on the number of threads that was set by {@link #setMultithreading(int)}, or on one thread.
+     *
+     * @return the render job, with its progress, its sample buffer and the future of the image writer
+     * @throws UnsupportedOperationException if one of the camera resources is missing
+     */
+    public RenderJob renderImageAsync() {
+        checkResources();
+        return startRender(Math.max(threadsCount, 1), 0);
+    }
 
+    /**
+     * Starts rendering the tiles of the image on a pool of its own
+     *
+     * @param threads  number of render threads
+     * @param interval print time interval of the progress in seconds, 0 for no printing
+     * @return the render job
+     */
+    private RenderJob startRender(int threads, double interval) {
+        final RenderSettings settings = createSettings();
+        final int nX = settings.imageWriter.getNx();
+        final int nY = settings.imageWriter.getNy();
+        Pixel progress = new Pixel(nY, nX, interval);
+        SampleBuffer buffer = settings.varianceSSAA ? new SampleBuffer(nX, nY) : null;
+        CompletableFuture<ImageWriter> image = new CompletableFuture<>();
+        TileScheduler scheduler = new TileScheduler(nX, nY, tileSize, tileOrder);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        //every render thread has a corner cache of its own
+        ThreadLocal<CornerCache> caches = ThreadLocal.withInitial(() -> new CornerCache(progress, settings.maxDepth));
+        //and the rays through the centers of the pixels of its tile, unless the pixels are sampled
+        ThreadLocal<Ray[]> tileRays = new ThreadLocal<>();
+        final boolean sampled = settings.isSampled();
+        final int size = tileSize;
+        pool.execute(() -> {
+            try {
+                //the hierarchy is built before the first pixel, on the threads of the render
+                progress.setBVHStatistics(settings.rayTracer.scene.geometries.getBVHStatistics());
+                scheduler.render(new TileScheduler.PixelRenderer() {
+                    @Override
+                    public void render(int col, int row) {
+                        //a cancelled job skips the rest of the pixels
+                        if (image.isDone())
+                            return;
+                        Ray ray = null;
+                        if (!sampled) {
+                            //the tiles start at multiples of the tile size
+                            int width = Math.min(size, nX - col / size * size);
+                            ray = tileRays.get()[row % size * width + col % size];
+                        }
+                        castRay(settings, caches.get(), buffer, ray, col, row);
+                        progress.pixelDone();
+                    }
+
+                    @Override
+                    public void startTile(int col0, int row0, int col1, int row1) {
+                        if (settings.adaptiveSSAA)
+                            caches.get().startRegion(col0, row0, col1, row1);
+                        if (!sampled)
+                            tileRays.set(settings.generator.constructPixelRays(col0, row0, col1, row1));
+                    }
+                });
+                image.complete(settings.imageWriter);
+            } catch (Throwable e) {
+                image.completeExceptionally(e);
+            } finally {
+                pool.shutdown();
+            }
+        });
+        return new RenderJob(progress, buffer, image);
+    }
 
+    /**
+     * Copies the settings of the camera for a render, with the generator of its primary rays
+     *
+     * @return the settings of the render
+     */
+    private RenderSettings createSettings() {
+        RayGenerator generator = new RayGenerator(p0, vTo, vUp, vRight, distance, width, height,
+                imageWriter.getNx(), imageWriter.getNy());
+        return new RenderSettings(imageWriter, rayTracer, generator, SSAA, sampleNumber, adaptiveSSAA, MAX_DEPTH,
+                varianceSSAA, targetError, maxSamples, sampler);
     }
 
     /**
      * Cast ray from camera in order to color a pixel
      *
-     * @param nX  resolution on X axis (number of pixels in row)
-     * @param nY  resolution on Y axis (number of pixels in column)
-     * @param col pixel's column number (pixel index in row)
-     * @param row pixel's row number (pixel index in column)
+     * @param settings settings of the render
+     * @param cache    corner cache of the render thread, for adaptive supersampling
+     * @param buffer   statistics of the samples of the render, for variance driven supersampling
+     * @param ray      the ray through the center of the pixel, when the pixel is not sampled
+     * @param col      pixel's column number (pixel index in row)
+     * @param row      pixel's row number (pixel index in column)
      */
-    private void castRay(int nX, int nY, int col, int row) {
+    private void castRay(RenderSettings settings, CornerCache cache, SampleBuffer buffer, Ray ray, int col, int row) {
 
         //Set color to black
         Color pixelColor = Color.BLACK;
 
-        //if adaptive super sampling is enabled
-        if (adaptiveSSAA > 0) {
-            pixelColor = castRayAdaptive(nX, nY, col, row, 0);
+        //if variance driven super sampling is enabled
+        if (settings.varianceSSAA) {
+            pixelColor = castRayVariance(settings, buffer, col, row);
+        }
+
+        //else if adaptive super sampling is enabled
+        else if (settings.adaptiveSSAA) {
+            pixelColor = castRayAdaptive(settings, cache, col, row, 0);
         }
 
         //else if super sampling anti aliasing is enabled
-        else if (SSAA) {
-            //for each sample
-            for (int c = 0; c < sampleNumber; c++) {
-                //create ray and send it through the pixel
-                Ray ray = constructRayThroughPixel(nX, nY, col, row);
+        else if (settings.ssaa) {
+            //for each sample ray through the pixel, all created at once
+            Ray[] rays = settings.generator.constructSampleRays(col, row, settings.sampleNumber, settings.sampler);
+            long pixel = Sampler.pixel(col, row);
+            for (int i = 0; i < rays.length; ++i) {
                 //calculate ray color
-                pixelColor = pixelColor.add(rayTracer.traceRay(ray));
+                pixelColor = pixelColor.add(settings.rayTracer.traceRay(rays[i], pixel, i, rays.length));
             }
             //find average color of all sampled rays
-            pixelColor = pixelColor.reduce(sampleNumber);
+            pixelColor = pixelColor.reduce(settings.sampleNumber);
         } else {
-            //create ray and send it through the pixel
-            Ray ray = constructRayThroughPixel(nX, nY, col, row);
-            //calculate ray color
-            pixelColor = rayTracer.traceRay(ray);
+            //calculate the color of the ray through the center of the pixel
+            pixelColor = settings.rayTracer.traceRay(ray, Sampler.pixel(col, row), 0, 1);
 
         }
         //save final color to image
-        imageWriter.writePixel(col, row, pixelColor);
+        settings.imageWriter.writePixel(col, row, pixelColor);
     }
     /**
      * Enables adaptive supersampling
@@ -444,40 +591,95 @@ public class Camera {
      * @return self
      */
     public Camera setAdaptiveSSAA(int num) {
-        adaptiveSSAA = 1;
+        adaptiveSSAA = true;
+        varianceSSAA = false;
         //sampleNumber = num;
         MAX_DEPTH=num;
         return this;
     }
 
+    /**
+     * Enables variance driven supersampling. Every pixel gets samples in batches until the relative error of its
+     * mean color (the standard error of the mean divided by the mean) is below the target, or until it has
+     * the maximal number of samples - so the smooth pixels take a few samples and the noisy ones (edges,
+     * penumbrae) take the rest of the budget. The samples are taken from the sampler of the camera,
+     * see {@link #setSampler(Sampler)}, and their statistics are kept in the {@link SampleBuffer} of the render,
+     * see {@link RenderJob#getSampleBuffer()}.
+     *
+     * @param targetError relative error of the pixels, e.g. 0.02 for 2%
+     * @param maxSamples  maximal number of samples of a pixel
+     * @return self
+     */
+    public Camera setVarianceSSAA(double targetError, int maxSamples) {
+        if (targetError <= 0)
+            throw new IllegalArgumentException("Target error must be positive");
+        if (maxSamples < 2)
+            throw new IllegalArgumentException("Variance driven sampling needs at least 2 samples");
+        varianceSSAA = true;
+        adaptiveSSAA = false;
+        this.targetError = targetError;
+        this.maxSamples = maxSamples;
+        return this;
+    }
+
+    /**
+     * Handles ray casting for variance driven super sampling
+     *
+     * @param settings settings of the render
+     * @param buffer   statistics of the samples of the render
+     * @param col      pixel's column number (pixel index in row)
+     * @param row      pixel's row number (pixel index in column)
+     * @return the mean color of the samples of the pixel
+     */
+    private Color castRayVariance(RenderSettings settings, SampleBuffer buffer, int col, int row) {
+        long pixel = Sampler.pixel(col, row);
+        int count = 0, maxSamples = settings.maxSamples;
+        //the samples are indexed among the maximal number, so a stratified sampler spreads any prefix of them
+        do {
+            for (int end = Math.min(count + SAMPLE_BATCH, maxSamples); count < end; ++count) {
+                Ray ray = settings.generator.constructSampleRay(col, row, count, maxSamples, settings.sampler);
+                buffer.add(col, row, settings.rayTracer.traceRay(ray, pixel, count, maxSamples));
+            }
+        } while (count < maxSamples && buffer.getRelativeError(col, row) > settings.targetError);
+        return buffer.getMean(col, row);
+    }
+
     /**
      * Handles ray casting for adaptive super sampling
      *
-     * @param nX    resolution on X axis (number of pixels in row)
-     * @param nY    resolution on Y axis (number of pixels in column)
-     * @param col   pixel's column number (pixel index in row)
-     * @param row   pixel's row number (pixel index in column)
+     * @param settings  settings of the render
+     * @param cache     corner cache, so that corners that are shared with the neighbours are traced once
+     * @param col       column number of the pixel or sub-square at its depth
+     * @param row       row number of the pixel or sub-square at its depth
      * @param depth Level of depth in recursive function
      * @return Color of pixel, averaged out from all sub-squares
      */
-    private Color castRayAdaptive(int nX, int nY, int col, int row, int depth) {
-
+    private Color castRayAdaptive(RenderSettings settings, CornerCache cache, int col, int row, int depth) {
 
         //Create list of colors
         List<Color> cornerColorList = new LinkedList<>();
         //Find color of each corner of pixel.
         //Loop will run four times, one for each corner.
+        //Place of the top left corner on the lattice of the corners at the maximal depth
+        int shift = settings.maxDepth - depth;
+        int cornerX = col << shift, cornerY = row << shift, side = 1 << shift;
+        double pixelsPerCorner = 1d / (1 << settings.maxDepth);
         for (int i = 1; i < 5; i++) {
-            adaptiveSSAA = i;
-            //Create ray from camera to corner of pixel
-            Ray ray = constructRayThroughPixel(nX, nY, col, row);
-            //Calculate color and add it to color list
+            int x = i == 2 || i == 3 ? cornerX + side : cornerX;
+            int y = i < 3 ? cornerY : cornerY + side;
+            //Create ray from camera to corner of pixel and calculate its color, unless a neighbour already did
             //            average = average.add(transparency(geoPoint,vector, ls ).reduce(list.size()));
-            cornerColorList.add(rayTracer.traceRay(ray));
+            Color color = cache.get(x, y);
+            if (color == null) {
+                color = settings.rayTracer.traceRay(settings.generator.constructRay(x * pixelsPerCorner, y * pixelsPerCorner),
+                        Sampler.pixel(x, y), 0, 1);
+                cache.put(x, y, color);
+            }
+            cornerColorList.add(color);
         }
 
         //If recursive function reached maximum allowed depth
-        if (depth == MAX_DEPTH) {
+        if (depth == settings.maxDepth) {
             //set blank color
             Color cornerAvarage = Color.BLACK;
             //add colors of all four corners to blank color
@@ -507,10 +709,10 @@ public class Camera {
             //Create blank color
             Color average = Color.BLACK;
             //Add to blank color the color of all four sub squares using self to calculate the color of sub square
-            average = average.add(castRayAdaptive(nX *2, nY * 2, col * 2, row * 2, depth + 1));//top left corner
-            average = average.add(castRayAdaptive(nX * 2, nY * 2, col * 2 + 1, row * 2, depth + 1));//top right corner
-            average = average.add(castRayAdaptive(nX * 2, nY * 2, col * 2 + 1, row * 2 + 1, depth + 1));//bottom right corner
-            average = average.add(castRayAdaptive(nX * 2, nY * 2, col * 2, row * 2 + 1, depth + 1));//bottom left corner
+            average = average.add(castRayAdaptive(settings, cache, col * 2, row * 2, depth + 1));//top left corner
+            average = average.add(castRayAdaptive(settings, cache, col * 2 + 1, row * 2, depth + 1));//top right corner
+            average = average.add(castRayAdaptive(settings, cache, col * 2 + 1, row * 2 + 1, depth + 1));//bottom right corner
+            average = average.add(castRayAdaptive(settings, cache, col * 2, row * 2 + 1, depth + 1));//bottom left corner
 
             //calculate average color and return result
             average = average.reduce(4);
@@ -0,0 +1,98 @@
+package renderer;
+
+import primitives.Color;
+
+import java.util.Arrays;
+
+/**
+ * Colors of the corners that the adaptive supersampling traced, in a grid of the corners of a region of
+ * the image (a tile, or a row of pixels) on the sub-pixel lattice (the grid of the corners at the maximal depth).<br/>
+ * Neighbouring pixels and sub-squares share corners, so each corner is traced only once.
+ * A cache belongs to a single render thread and is cleared when the thread starts a new region,
+ * except for the corners that the new region shares with the previous one when it starts just below it
+ * (the next row of pixels). The grid is cleared by a new generation stamp instead of being filled,
+ * since the deep levels of a region have many corners and only a few of them are traced.
+ */
+class CornerCache {
+    private final Pixel statistics; //the render that counts the hits
+    private final int depth; //maximal depth of the division of a pixel
+    private Color[] colors = new Color[0]; //corners of the region, row by row
+    private int[] stamps = new int[0]; //generation of every corner, a corner of an older generation is empty
+    private int generation = 0; //generation of the current region
+    private int x0, y0; //lattice place of the top left corner of the region
+    private int width = 0, height = 0; //number of corners in a row and in a column of the region
+
+    /**
+     * Constructor of an empty cache
+     *
+     * @param statistics progress of the render, that counts the hits and misses of the cache
+     * @param depth      maximal depth of the division of a pixel
+     */
+    CornerCache(Pixel statistics, int depth) {
+        this.statistics = statistics;
+        this.depth = depth;
+    }
+
+    /**
+     * Starts a region of pixels and forgets the corners of the previous region. If the new region is just below
+     * the previous one and has the same columns, the corners of the common side are kept.
+     *
+     * @param col0 first column of the region
+     * @param row0 first row of the region
+     * @param col1 column after the region
+     * @param row1 row after the region
+     */
+    void startRegion(int col0, int row0, int col1, int row1) {
+        int newX0 = col0 << depth, newY0 = row0 << depth;
+        int newWidth = ((col1 - col0) << depth) + 1, newHeight = ((row1 - row0) << depth) + 1;
+        boolean below = newX0 == x0 && newWidth == width && newY0 == y0 + height - 1;
+        if (colors.length < newWidth * newHeight) {
+            colors = Arrays.copyOf(colors, newWidth * newHeight);
+            stamps = Arrays.copyOf(stamps, newWidth * newHeight);
+        }
+        ++generation;
+        if (below) {
+            //the bottom row of the previous region is the top row of the new one
+            int bottom = (height - 1) * width;
+            for (int i = 0; i < width; ++i)
+                if (stamps[bottom + i] == generation - 1) {
+                    colors[i] = colors[bottom + i];
+                    stamps[i] = generation;
+                }
+        }
+        x0 = newX0;
+        y0 = newY0;
+        width = newWidth;
+        height = newHeight;
+    }
+
+    /**
+     * Returns the color of a corner of the region, if it was traced
+     *
+     * @param x lattice column of the corner
+     * @param y lattice row of the corner
+     * @return the color of the corner, or null if it must be traced (and then {@link #put(int, int, Color)})
+     */
+    Color get(int x, int y) {
+        int k = (y - y0) * width + x - x0;
+        if (stamps[k] == generation) {
+            statistics.cornerHit();
+            return colors[k];
+        }
+        statistics.cornerMiss();
+        return null;
+    }
+
+    /**
+     * Keeps the color of a corner of the region that was traced
+     *
+     * @param x     lattice column of the corner
+     * @param y     lattice row of the corner
+     * @param color the color of the corner
+     */
+    void put(int x, int y, Color color) {
+        int k = (y - y0) * width + x - x0;
+        colors[k] = color;
+        stamps[k] = generation;
+    }
+}
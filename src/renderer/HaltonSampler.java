@@ -0,0 +1,32 @@
+package renderer;
+
+/**
+ * Halton sampler: coordinate d of sample i is the radical inverse of i in the d-th prime base.
+ * The digits are scrambled by random permutations of every digit place, seeded by the pixel, so neighbouring
+ * pixels don't share their pattern and the higher bases are not correlated (the plain sequence puts the first
+ * samples of bases 11 and 13 on a line). The sequence doesn't depend on the number of samples, so
+ * the first samples of a pixel are spread evenly too.<br/>
+ * Only the first {@value #DIMENSIONS} dimensions get bases of their own, the next ones repeat the bases
+ * with other permutations.
+ */
+public class HaltonSampler implements Sampler {
+    private static final int[] PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53,
+            59, 61, 67, 71, 73, 79, 83, 89, 97, 101, 103, 107, 109, 113, 127, 131};
+    private static final int DIMENSIONS = 32; //number of the prime bases
+
+    @Override
+    public double get(long pixel, int index, int count, int dimension) {
+        int seed = Sampler.seed(pixel, dimension);
+        int base = PRIMES[dimension % DIMENSIONS];
+        double inverseBase = 1d / base, factor = inverseBase, result = 0;
+        //the digits of the index mirrored around the point, and permuted digits of zero below them
+        //down to the precision of the samples
+        for (int place = 0; factor > 0x1p-20; ++place) {
+            int digit = Sampler.permute(index % base, base, seed + place * 0x68E31DA4);
+            result += digit * factor;
+            index /= base;
+            factor *= inverseBase;
+        }
+        return result;
+    }
+}
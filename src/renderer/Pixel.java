@@ -1,106 +1,175 @@
 package renderer;
 
+import geometries.BVHStatistics;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
- * Pixel is a helper class. It is used for multi-threading in the renderer and
- * for follow up its progress.<br/>
- * There is a main follow up object and several secondary objects - one in each
- * thread.
+ * Pixel is a helper class. It is used for follow up the progress of a
+ * render.<br/>
+ * Every render has its own Pixel object. The render threads only count the
+ * finished pixels (without locks), and the main thread prints the progress
+ * percentage or reads it.
  * 
  * @author Dan
  *
  */
-class Pixel {
-	private static int maxRows = 0;
-	private static int maxCols = 0;
-	private static long totalPixels = 0l;
-
-	private static volatile int cRow = 0;
-	private static volatile int cCol = -1;
-	private static volatile long pixels = 0l;
-	private static volatile long last = -1l;
-	private static volatile int lastPrinted = -1;
-
-	private static boolean print = false;
-	private static long printInterval = 100l;
-	private static final String PRINT_FORMAT = "%5.1f%%\r";
-	private static Object mutexNext = new Object();
-	private static Object mutexPixels = new Object();
+public class Pixel {
+	private final long totalPixels;
 
-	int row;
-	int col;
+	private final LongAdder pixels = new LongAdder();
+	private final LongAdder cornerHits = new LongAdder(); // corners of adaptive supersampling found in the cache
+	private final LongAdder cornerMisses = new LongAdder(); // corners of adaptive supersampling that were traced
+	private volatile BVHStatistics bvhStatistics = null; // the hierarchy of the scene geometries
+	private volatile long last = -1l;
+	private volatile int lastPrinted = -1;
+
+	private final boolean print;
+	private final long printInterval;
+	private static final String PRINT_FORMAT = "%5.1f%%\r";
 
 	/**
-	 * Initialize pixel data for multi-threading
+	 * Initialize pixel data of a render
 	 * 
 	 * @param maxRows  the amount of pixel rows
 	 * @param maxCols  the amount of pixel columns
 	 * @param interval print time interval in seconds, 0 if printing is not required
 	 */
-	static void initialize(int maxRows, int maxCols, double interval) {
-		Pixel.maxRows = maxRows;
-		Pixel.maxCols = maxCols;
-		Pixel.totalPixels = (long) maxRows * maxCols;
-		cRow = 0;
-		cCol = -1;
-		pixels = 0;
-		printInterval = (int) (interval * 1000);
-		print = printInterval != 0;
-		last = -1l;
+	Pixel(int maxRows, int maxCols, double interval) {
+		this.totalPixels = (long) maxRows * maxCols;
+		this.printInterval = (int) (interval * 1000);
+		this.print = printInterval != 0;
+	}
+
+	/**
+	 * Finish pixel processing - lock free, the threads don't wait for each other
+	 */
+	void pixelDone() {
+		pixels.increment();
 	}
 
 	/**
-	 * Function for thread-safe manipulating of main follow up Pixel object - this
-	 * function is critical section for all the threads, and static data is the
-	 * shared data of this critical section.<br/>
-	 * The function provides next available pixel number each call.
+	 * Returns the number of pixels that are done
 	 * 
-	 * @return true if next pixel is allocated, false if there are no more pixels
+	 * @return number of finished pixels
 	 */
-	public boolean nextPixel() {
-		synchronized (mutexNext) {
-			if (cRow == maxRows)
-				return false;
-			++cCol;
-			if (cCol < maxCols) {
-				row = cRow;
-				col = cCol;
-				return true;
-			}
-			cCol = 0;
-			++cRow;
-			if (cRow < maxRows) {
-				row = cRow;
-				col = cCol;
-				return true;
-			}
-			return false;
-		}
+	public long getPixelsDone() {
+		return pixels.sum();
 	}
 
 	/**
-	 * Finish pixel processing
+	 * Returns the number of pixels in the image
+	 * 
+	 * @return number of pixels
 	 */
-	static void pixelDone() {
-		synchronized (mutexPixels) {
-			++pixels;
-		}
+	public long getTotalPixels() {
+		return totalPixels;
+	}
+
+	/**
+	 * Returns the progress percentage of the render
+	 * 
+	 * @return percentage of finished pixels, between 0 and 100
+	 */
+	public double getPercentage() {
+		return totalPixels == 0 ? 100 : 100d * pixels.sum() / totalPixels;
+	}
+
+	/**
+	 * Count a corner of adaptive supersampling that was found in the corner cache
+	 */
+	void cornerHit() {
+		cornerHits.increment();
+	}
+
+	/**
+	 * Count a corner of adaptive supersampling that was traced
+	 */
+	void cornerMiss() {
+		cornerMisses.increment();
 	}
 
 	/**
-	 * Wait for all pixels to be done and print the progress percentage - must be
-	 * run from the main thread
+	 * Returns the number of corners of adaptive supersampling that were found in
+	 * the corner cache, instead of being traced again
+	 * 
+	 * @return number of cache hits
+	 */
+	public long getCornerCacheHits() {
+		return cornerHits.sum();
+	}
+
+	/**
+	 * Returns the number of corners of adaptive supersampling that were looked up
+	 * in the corner cache
+	 * 
+	 * @return number of cache lookups
+	 */
+	public long getCornerCacheLookups() {
+		return cornerHits.sum() + cornerMisses.sum();
+	}
+
+	/**
+	 * Returns the hit rate of the corner cache of adaptive supersampling
+	 * 
+	 * @return part of the corners that were not traced again, between 0 and 1
+	 */
+	public double getCornerCacheHitRate() {
+		long hits = cornerHits.sum(), lookups = hits + cornerMisses.sum();
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	/**
+	 * Keep the statistics of the bounding volume hierarchy that the render uses,
+	 * and print them if printing is required
+	 * 
+	 * @param statistics the statistics, null if the scene has no hierarchy
+	 */
+	void setBVHStatistics(BVHStatistics statistics) {
+		bvhStatistics = statistics;
+		if (print && statistics != null)
+			System.out.println(statistics);
+	}
+
+	/**
+	 * Returns the build time and the quality of the bounding volume hierarchy of
+	 * the scene geometries
+	 * 
+	 * @return the statistics, or null if the scene has no hierarchy (or the render
+	 *         didn't start yet)
+	 */
+	public BVHStatistics getBVHStatistics() {
+		return bvhStatistics;
+	}
+
+	/**
+	 * Wait for the render task to finish and print the progress percentage - must
+	 * be run from the main thread
+	 * 
+	 * @param task the task of the render
 	 */
-	public static void waitToFinish() {
+	void waitToFinish(Future<?> task) {
 		if (print)
 			System.out.printf(PRINT_FORMAT, 0d);
 
-		while (last < totalPixels) {
+		while (!task.isDone()) {
 			printPixel();
 			try {
-				Thread.sleep(printInterval);
-			} catch (InterruptedException ignore) {
-				if (print)
-					System.out.print("");
+				task.get(print ? printInterval : 100l, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException ignore) {
+				// still rendering
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				task.cancel(true);
+				throw new IllegalStateException("Render was interrupted", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException cause)
+					throw cause;
+				throw new IllegalStateException("Render failed", e.getCause());
 			}
 		}
 		if (print)
@@ -110,8 +179,8 @@ class Pixel {
 	/**
 	 * Print pixel progress percentage
 	 */
-	public static void printPixel() {
-		long current = pixels;
+	void printPixel() {
+		long current = pixels.sum();
 		if (print && last != current) {
 			int percentage = (int) (1000l * current / totalPixels);
 			if (lastPrinted != percentage) {
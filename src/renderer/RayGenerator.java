@@ -0,0 +1,156 @@
+package renderer;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generator of the primary rays of a frame.<br/>
+ * The view plane basis (the direction to the top left corner of the view plane and the steps of a pixel
+ * to the right and down) is calculated once per render, so a ray costs a few multiplications
+ * and the direction vector - instead of the vector arithmetic of {@link Camera#constructRayThroughPixel}.
+ * Places on the view plane are given in pixel units: (0, 0) is the top left corner of the image and
+ * (nX, nY) is the bottom right corner, so the center of pixel (col, row) is (col + 0.5, row + 0.5).
+ */
+class RayGenerator {
+    private final Point p0;
+    private final double baseX, baseY, baseZ; //from the camera to the top left corner of the view plane
+    private final double rightX, rightY, rightZ; //one pixel to the right
+    private final double downX, downY, downZ; //one pixel down
+
+    /**
+     * Constructor that calculates the basis of the frame
+     *
+     * @param p0       location of camera
+     * @param vTo      vector pointing directly out of the camera
+     * @param vUp      vector point up from lens
+     * @param vRight   vector pointing right out of the camera
+     * @param distance distance of view plane from camera
+     * @param width    view plane width
+     * @param height   view plane height
+     * @param nX       resolution on X axis (number of pixels in row)
+     * @param nY       resolution on Y axis (number of pixels in column)
+     */
+    RayGenerator(Point p0, Vector vTo, Vector vUp, Vector vRight,
+                 double distance, double width, double height, int nX, int nY) {
+        this.p0 = p0;
+        double rX = width / nX, rY = height / nY;
+        rightX = vRight.getX() * rX;
+        rightY = vRight.getY() * rX;
+        rightZ = vRight.getZ() * rX;
+        downX = -vUp.getX() * rY;
+        downY = -vUp.getY() * rY;
+        downZ = -vUp.getZ() * rY;
+        //pc - p0 - half the view plane to the right + half the view plane up
+        baseX = vTo.getX() * distance - rightX * nX / 2 - downX * nY / 2;
+        baseY = vTo.getY() * distance - rightY * nX / 2 - downY * nY / 2;
+        baseZ = vTo.getZ() * distance - rightZ * nX / 2 - downZ * nY / 2;
+    }
+
+    /**
+     * Creates a ray from the camera through a place on the view plane
+     *
+     * @param x place on the view plane to the right of the left side, in pixels
+     * @param y place on the view plane below the top side, in pixels
+     * @return the ray
+     */
+    Ray constructRay(double x, double y) {
+        return new Ray(p0, new Vector(baseX + rightX * x + downX * y,
+                baseY + rightY * x + downY * y,
+                baseZ + rightZ * x + downZ * y));
+    }
+
+    /**
+     * Creates a ray from the camera through the center of a pixel
+     *
+     * @param col pixel's column number (pixel index in row)
+     * @param row pixel's row number (pixel index in column)
+     * @return the ray
+     */
+    Ray constructPixelRay(int col, int row) {
+        return constructRay(col + 0.5, row + 0.5);
+    }
+
+    /**
+     * Creates the rays through the centers of all the pixels of a region (a tile, or a row of pixels) at once.
+     * The direction moves by a step of a pixel from one ray to the next, so a ray costs three additions.
+     *
+     * @param col0 first column of the region
+     * @param row0 first row of the region
+     * @param col1 column after the region
+     * @param row1 row after the region
+     * @return the rays, row by row
+     */
+    Ray[] constructPixelRays(int col0, int row0, int col1, int row1) {
+        Ray[] rays = new Ray[(col1 - col0) * (row1 - row0)];
+        int k = 0;
+        for (int row = row0; row < row1; ++row) {
+            //the direction to the center of the first pixel of the row
+            double x = baseX + rightX * (col0 + 0.5) + downX * (row + 0.5);
+            double y = baseY + rightY * (col0 + 0.5) + downY * (row + 0.5);
+            double z = baseZ + rightZ * (col0 + 0.5) + downZ * (row + 0.5);
+            for (int col = col0; col < col1; ++col) {
+                rays[k++] = new Ray(p0, new Vector(x, y, z));
+                x += rightX;
+                y += rightY;
+                z += rightZ;
+            }
+        }
+        return rays;
+    }
+
+    /**
+     * Creates one of the rays of supersampling through a pixel, for rays that are added one at a time
+     *
+     * @param col     pixel's column number (pixel index in row)
+     * @param row     pixel's row number (pixel index in column)
+     * @param index   index of the ray among the rays of the pixel
+     * @param count   maximal number of rays of the pixel
+     * @param sampler places of the rays in the pixel, null for random places
+     * @return the ray
+     */
+    Ray constructSampleRay(int col, int row, int index, int count, Sampler sampler) {
+        if (sampler == null) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return constructRay(col + random.nextDouble(), row + random.nextDouble());
+        }
+        long pixel = Sampler.pixel(col, row);
+        return constructRay(col + sampler.get(pixel, index, count, 0), row + sampler.get(pixel, index, count, 1));
+    }
+
+    /**
+     * Creates the rays of supersampling through random places in a pixel, or through the places that
+     * a sampler gives, all at once
+     *
+     * @param col     pixel's column number (pixel index in row)
+     * @param row     pixel's row number (pixel index in column)
+     * @param count   number of rays
+     * @param sampler places of the rays in the pixel, null for random places
+     * @return the rays
+     */
+    Ray[] constructSampleRays(int col, int row, int count, Sampler sampler) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long pixel = Sampler.pixel(col, row);
+        //the part of the direction that is common to all the rays of the pixel
+        double x0 = baseX + rightX * col + downX * row;
+        double y0 = baseY + rightY * col + downY * row;
+        double z0 = baseZ + rightZ * col + downZ * row;
+        Ray[] rays = new Ray[count];
+        for (int i = 0; i < count; ++i) {
+            double dx, dy;
+            if (sampler == null) {
+                dx = random.nextDouble();
+                dy = random.nextDouble();
+            } else {
+                dx = sampler.get(pixel, i, count, 0);
+                dy = sampler.get(pixel, i, count, 1);
+            }
+            rays[i] = new Ray(p0, new Vector(x0 + rightX * dx + downX * dy,
+                    y0 + rightY * dx + downY * dy,
+                    z0 + rightZ * dx + downZ * dy));
+        }
+        return rays;
+    }
+}
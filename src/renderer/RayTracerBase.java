@@ -24,4 +24,17 @@ public abstract class RayTracerBase {
      */
     public abstract  Color traceRay(Ray ray);
 
+    /**
+     * Trace a ray of a pixel. A ray tracer with a {@link Sampler} seeds the samples of the effects along the ray
+     * (e.g. soft shadows) by the pixel, so the image is the same in every render
+     * @param ray the ray that came out of the camera
+     * @param pixel the pixel, see {@link Sampler#pixel(int, int)}
+     * @param sample index of the ray among the rays of the pixel
+     * @param samples number of the rays of the pixel
+     * @return the color of the object that the ray is interact with
+     */
+    public Color traceRay(Ray ray, long pixel, int sample, int samples) {
+        return traceRay(ray);
+    }
+
 }
@@ -1,13 +1,18 @@
 package renderer;
 
+import geometries.Intersectable;
 import lighting.LightSource;
 import primitives.*;
 import scene.Scene;
 import geometries.Intersectable.GeoPoint;
 import lighting.*;
-import static primitives.Util.alignZero;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static primitives.Util.alignZero;
 
 /**
  * Class for handling the calculation of color the ray from camera returns
@@ -20,6 +25,52 @@ public class RayTracerBasic extends RayTracerBase {
     private static final boolean SOFT_SHADOW=true;
     //private static final int NUM_OF_RAYS=10;
     private static final double EPS = 0.1;
+    private static final int MIN_SHADOW_DEPTH = 2; //adaptive shadows probe at least a 5 x 5 subset of the light
+    private static final double SHADOW_TOLERANCE = 0.01; //transparencies that differ by less are the same
+
+    private boolean adaptiveShadows = false; //whether soft shadows trace only the samples in penumbra
+    private boolean occluderCache = true; //whether shadow rays test the last occluder of their light first
+    //the last occluder of every light, for every render thread
+    private final ThreadLocal<Map<LightSource, Intersectable>> occluders = ThreadLocal.withInitial(IdentityHashMap::new);
+    private final LongAdder occluderHits = new LongAdder(); //shadow rays that were blocked by the cached occluder
+    private final LongAdder occluderMisses = new LongAdder(); //shadow rays that needed the query of the scene
+    private Sampler sampler = null; //samples of the soft shadows, null for the lattice of the lights
+    private final ThreadLocal<PixelSamples> pixelSamples = ThreadLocal.withInitial(PixelSamples::new);
+    private final ThreadLocal<ShadowProbes> shadowProbes = ThreadLocal.withInitial(ShadowProbes::new);
+
+    /**
+     * The pixel ray that a render thread traces, for seeding its samples
+     */
+    private static class PixelSamples {
+        boolean active = false; //whether the ray came with its pixel
+        long pixel;
+        int sample, samples; //index of the ray among the rays of the pixel, and their number
+        int dimension; //the next pair of dimensions of the sampler
+    }
+
+    /**
+     * Transparencies of the lattice points of a light that the adaptive shadows of a point traced.
+     * A render thread reuses the same arrays for all its points - a new point starts a new generation,
+     * and the values of an older generation are not traced yet.
+     */
+    private static class ShadowProbes {
+        Double3[] values = new Double3[0];
+        int[] stamps = new int[0]; //generation of every value
+        int generation = 0;
+
+        /**
+         * Starts the probes of a new point
+         *
+         * @param size number of the lattice points of the light
+         */
+        void start(int size) {
+            if (values.length < size) {
+                values = new Double3[size];
+                stamps = Arrays.copyOf(stamps, size);
+            }
+            ++generation;
+        }
+    }
 
     /**
      * Constructor. Receives a scene
@@ -30,6 +81,93 @@ public class RayTracerBasic extends RayTracerBase {
         super(scene);
     }
 
+    /**
+     * Enables adaptive soft shadows. A light with a radius is probed at the corners of a few squares of its
+     * lattice of samples; a square whose corners agree (fully lit or in umbra) gets their transparency without
+     * tracing its other samples, and only the squares in penumbra are divided further - like adaptive
+     * supersampling does for the pixels.
+     *
+     * @param adaptiveShadows true for adaptive sampling, false for tracing all the samples
+     * @return the ray tracer itself
+     */
+    public RayTracerBasic setAdaptiveShadows(boolean adaptiveShadows) {
+        this.adaptiveShadows = adaptiveShadows;
+        return this;
+    }
+
+    /**
+     * Enables the occluder cache. Every render thread keeps the last opaque occluder of every light, and tests it
+     * before the query of the whole scene - nearby points are usually shadowed by the same object.
+     * The shadows are the same with and without the cache.
+     *
+     * @param occluderCache true for testing the last occluder first
+     * @return the ray tracer itself
+     */
+    public RayTracerBasic setOccluderCache(boolean occluderCache) {
+        this.occluderCache = occluderCache;
+        return this;
+    }
+
+    /**
+     * Returns the number of shadow rays that were blocked by the cached occluder of their light
+     *
+     * @return number of cache hits
+     */
+    public long getOccluderHits() {
+        return occluderHits.sum();
+    }
+
+    /**
+     * Returns the number of shadow rays that were not blocked by the cached occluder of their light
+     * (or that had no cached occluder), and needed the query of the whole scene
+     *
+     * @return number of cache misses
+     */
+    public long getOccluderMisses() {
+        return occluderMisses.sum();
+    }
+
+    /**
+     * Resets the counters of the occluder cache
+     */
+    public void resetOccluderCounters() {
+        occluderHits.reset();
+        occluderMisses.reset();
+    }
+
+    /**
+     * Sets the sampler of the soft shadows. The samples of the disk of a light are taken from the sampler,
+     * seeded by the pixel, instead of the lattice of the light - every pixel gets another pattern, so
+     * the banding of the lattice becomes fine noise. The number of the samples is the number of the samples
+     * of the light, and all the rays of a pixel share one set of samples.
+     * The sampler is used only for rays that come with their pixel, see
+     * {@link #traceRay(Ray, long, int, int)}, and not in adaptive shadows that walk the lattice.
+     *
+     * @param sampler the sampler, null for the lattice of the lights
+     * @return the ray tracer itself
+     */
+    public RayTracerBasic setSampler(Sampler sampler) {
+        this.sampler = sampler;
+        return this;
+    }
+
+    @Override
+    public Color traceRay(Ray ray, long pixel, int sample, int samples) {
+        if (sampler == null)
+            return traceRay(ray);
+        PixelSamples state = pixelSamples.get();
+        state.active = true;
+        state.pixel = pixel;
+        state.sample = sample;
+        state.samples = samples;
+        state.dimension = 2; //the first pair is the place of the ray in the pixel
+        try {
+            return traceRay(ray);
+        } finally {
+            state.active = false;
+        }
+    }
+
     /**
      * Takes a ray and traces it through the scene until intersection is found.
      * If no intersection exists return background color.
@@ -60,8 +198,7 @@ public class RayTracerBasic extends RayTracerBase {
             return null;
         }
 
-        List<GeoPoint> points = scene.geometries.findGeoIntersections(ray);
-        return ray.findClosestGeoPoint(points);
+        return scene.geometries.findClosestGeoIntersection(ray);
     }
 
     /**
@@ -103,17 +240,124 @@ public class RayTracerBasic extends RayTracerBase {
      */
     private Double3 calcShadow(LightSource ls, GeoPoint geoPoint, Vector n) {
 
-        if (ls instanceof DirectionalLight)
+        int samples = ls.getSampleCount();
+        if (ls instanceof DirectionalLight || samples == 1)
             return transparency(geoPoint,ls.getL(geoPoint.point),ls);//new Double3(1, 1, 1);
-        var list=ls.getListL(geoPoint.point);
 
-        //if this is a relevant light source, and it has size, we are iterating over the vectors of the light source and averaging the transparency of all of them.
-        Double3 average = Double3.ZERO;
-        for (Vector vector : list) {
-            average = average.add(transparency(geoPoint,vector, ls ).reduce(list.size()));
+        Point point = geoPoint.point;
+        double lightDistance = ls.getDistance(point);
+        if (adaptiveShadows && ls instanceof PointLight light && light.getSampleGrid() > 1) {
+            int k = light.getSampleGrid();
+            ShadowProbes probes = shadowProbes.get(); //lattice points that were traced
+            probes.start((k + 1) * (k + 1));
+            //the squares of the lattice, and the center of the light that is not on the lattice
+            Double3 sum = calcShadowAdaptive(light, point, n, lightDistance, probes, 0, 0, k, k, 0)
+                    .add(transparency(point, n, light.getSampleL(point, samples - 1), lightDistance, light));
+            return sum.reduce(samples);
+        }
+
+        if (sampler != null && ls instanceof PointLight light && light.getSampleGrid() > 1) {
+            PixelSamples state = pixelSamples.get();
+            if (state.active) {
+                //every shadow takes the next pair of dimensions, and the rays of the pixel share its samples
+                int dimension = state.dimension;
+                state.dimension += 2;
+                int first = state.sample * samples, count = state.samples * samples;
+                Double3 sum = Double3.ZERO;
+                for (int i = 0; i < samples; ++i) {
+                    double u = sampler.get(state.pixel, first + i, count, dimension);
+                    double v = sampler.get(state.pixel, first + i, count, dimension + 1);
+                    sum = sum.add(transparency(point, n, light.getDiskL(point, u, v), lightDistance, ls));
+                }
+                return sum.reduce(samples);
+            }
+        }
+
+        //if this is a relevant light source, and it has size, we are iterating over the samples of the light source and averaging the transparency of all of them.
+        //the directions are calculated one at a time from the offsets of the light, so no list is built
+        Double3 sum = Double3.ZERO;
+        for (int i = 0; i < samples; ++i)
+            sum = sum.add(transparency(point, n, ls.getSampleL(point, i), lightDistance, ls));
+        return sum.reduce(samples);
+    }
+
+    /**
+     * Sums the transparency of the samples of a light in a rectangle of its lattice. The corners of the rectangle
+     * are traced (once for all the rectangles that share them), and if they agree the rectangle gets their average,
+     * otherwise it is divided to four.
+     *
+     * @param light         the light
+     * @param point         the shaded point
+     * @param n             the normal at the point
+     * @param lightDistance distance of the light from the point
+     * @param probes        transparency of the lattice points that were traced, by row and column
+     * @param i0            first row of the rectangle
+     * @param j0            first column of the rectangle
+     * @param i1            last row of the rectangle (excluded, but its points are corners)
+     * @param j1            last column of the rectangle (excluded, but its points are corners)
+     * @param depth         level of division
+     * @return sum of the transparency of the samples in the rectangle
+     */
+    private Double3 calcShadowAdaptive(PointLight light, Point point, Vector n, double lightDistance,
+                                       ShadowProbes probes, int i0, int j0, int i1, int j1, int depth) {
+        int count = light.countSamples(i0, j0, i1, j1);
+        if (count == 0)
+            return Double3.ZERO;
+        Double3 corner = probe(light, point, n, lightDistance, probes, i0, j0);
+        //a single sample is its own corner
+        if (i1 - i0 == 1 && j1 - j0 == 1)
+            return corner;
+
+        if (depth >= MIN_SHADOW_DEPTH) {
+            Double3 c1 = probe(light, point, n, lightDistance, probes, i1, j0);
+            Double3 c2 = probe(light, point, n, lightDistance, probes, i0, j1);
+            Double3 c3 = probe(light, point, n, lightDistance, probes, i1, j1);
+            if (same(corner, c1) && same(corner, c2) && same(corner, c3))
+                return corner.add(c1).add(c2).add(c3).scale(count / 4d);
+        }
+
+        //a side of a single sample is not divided, its empty half has no samples
+        int mi = (i0 + i1) >>> 1, mj = (j0 + j1) >>> 1;
+        return calcShadowAdaptive(light, point, n, lightDistance, probes, i0, j0, mi, mj, depth + 1)
+                .add(calcShadowAdaptive(light, point, n, lightDistance, probes, mi, j0, i1, mj, depth + 1))
+                .add(calcShadowAdaptive(light, point, n, lightDistance, probes, i0, mj, mi, j1, depth + 1))
+                .add(calcShadowAdaptive(light, point, n, lightDistance, probes, mi, mj, i1, j1, depth + 1));
+    }
+
+    /**
+     * Traces a lattice point of a light, unless it was already traced
+     *
+     * @param light         the light
+     * @param point         the shaded point
+     * @param n             the normal at the point
+     * @param lightDistance distance of the light from the point
+     * @param probes        transparency of the lattice points that were traced
+     * @param i             row of the lattice point
+     * @param j             column of the lattice point
+     * @return transparency from the lattice point
+     */
+    private Double3 probe(PointLight light, Point point, Vector n, double lightDistance, ShadowProbes probes,
+                          int i, int j) {
+        int index = i * (light.getSampleGrid() + 1) + j;
+        if (probes.stamps[index] != probes.generation) {
+            probes.values[index] = transparency(point, n, light.getGridL(point, i, j), lightDistance, light);
+            probes.stamps[index] = probes.generation;
         }
-        return average;
+        return probes.values[index];
     }
+
+    /**
+     * Checks whether two transparencies are the same, up to the shadow tolerance
+     *
+     * @param a first transparency
+     * @param b second transparency
+     * @return true if they are the same
+     */
+    private static boolean same(Double3 a, Double3 b) {
+        Double3 difference = a.subtract(b);
+        return difference.lowerThan(SHADOW_TOLERANCE) && difference.scale(-1).lowerThan(SHADOW_TOLERANCE);
+    }
+
     /**
      * Calculate the effects of lights
      *
@@ -123,7 +367,7 @@ public class RayTracerBasic extends RayTracerBase {
      */
     private Color calcLocalEffects(GeoPoint intersection, Ray ray, Double3 k) {
         Vector v = ray.getDir();
-        Vector n = intersection.normal;//geometry.getNormal(intersection.point);
+        Vector n = intersection.getNormal();
         double nv = alignZero(n.dotProduct(v));
         if (nv == 0)
             return Color.BLACK;
@@ -141,7 +385,7 @@ public class RayTracerBasic extends RayTracerBase {
                 color = color.add(calcDiffusive(kd, lightSource.getL(intersection.point), n, lightSource.getIntensity(intersection.point)),
                        calcSpecular(ks, lightSource.getL(intersection.point), n, v, nShininess, lightSource.getIntensity(intersection.point)));
 
-                color=color.scale(calcShadow(lightSource ,intersection,intersection.normal));
+                color=color.scale(calcShadow(lightSource ,intersection,n));
             }
 
         }
@@ -150,7 +394,6 @@ public class RayTracerBasic extends RayTracerBase {
                 Vector l = lightSource.getL(intersection.point);
                 double nl = alignZero(n.dotProduct(l));
                 if (nl * nv > 0) { // checks if nl == nv
-                    //if (unshaded(intersection,l,n,nv,lightSource)) {
                     Double3 ktr = transparency(intersection, l, lightSource);
                     if (ktr.product(k).biggerThan(MIN_CALC_COLOR_K)) {
                         Color lightIntensity = lightSource.getIntensity(intersection.point).scale(ktr);
@@ -181,7 +424,7 @@ public class RayTracerBasic extends RayTracerBase {
         //set the reflection attenuation factor
         Double3 kkr = material.kR.product(k);
         //save the normal at the intersection point
-        Vector n = gp.geometry.getNormal(gp.point);
+        Vector n = gp.getNormal();
         //if difference in color is not too small
         if (kkr.biggerThan(MIN_CALC_COLOR_K)) {
             //find reflection
@@ -254,26 +497,6 @@ public class RayTracerBasic extends RayTracerBase {
         return lightIntensity.scale(ks.scale(vr));
     }
 
-    /**
-     * =============maybe we need to delete this func=========
-     *
-     * @param gp          gp
-     * @param l           l
-     * @param n           n
-     * @param nv          nv
-     * @param lightSource lightSource
-     * @return .
-     */
-    private boolean unshaded(GeoPoint gp, Vector l, Vector n, double nv, LightSource lightSource) {
-        Vector lightDirection = l.scale(-1); // from point to light source
-        double lightDistance = lightSource.getDistance(gp.point);
-        //Vector epsVector = n.scale(nv < 0 ? DELTA : -DELTA);
-        //Point point = gp.point.add(epsVector);
-        Ray lightRay = new Ray(gp.point, lightDirection, n);
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay, lightDistance);
-        return intersections == null; //ensure if is empty;
-    }
-
     /**
      * Calculate shadow transparency
      *
@@ -283,26 +506,42 @@ public class RayTracerBasic extends RayTracerBase {
      * @return Level of transparency
      */
     private Double3 transparency(GeoPoint geoPoint, Vector l, LightSource lightSource) {
+        return transparency(geoPoint.point, geoPoint.getNormal(), l, lightSource.getDistance(geoPoint.point), lightSource);
+    }
+
+    /**
+     * Calculate shadow transparency along one shadow ray
+     *
+     * @param point         Intersection point
+     * @param n             Normal at the point
+     * @param l             Direction from the light (or from a sample of it) to the point
+     * @param lightDistance Distance of the light from the point
+     * @param lightSource   The light source
+     * @return Level of transparency
+     */
+    private Double3 transparency(Point point, Vector n, Vector l, double lightDistance, LightSource lightSource) {
         Vector lightDirection = l.scale(-1); // from point to light source
         // create a new ray that is sent from point to the light source
-        Ray lightRay = new Ray(geoPoint.point, lightDirection, geoPoint.normal);
-        double lightDistance = lightSource.getDistance(geoPoint.point);
-        // check if another geometry is blocking us by finding intersections
-        var intersections = scene.geometries.findGeoIntersections(lightRay,lightDistance);
-        if (intersections == null) {
-            return new Double3(1); // There is no shadow
+        Ray lightRay = new Ray(point, lightDirection, n);
+        if (!occluderCache)
+            return scene.geometries.findTransparency(lightRay, lightDistance, MIN_CALC_COLOR_K);
+
+        // an opaque occluder blocks the light alone, so if the last one blocks the ray it is a full shadow
+        Map<LightSource, Intersectable> cache = occluders.get();
+        Intersectable occluder = cache.get(lightSource);
+        if (occluder != null && occluder.findTransparency(lightRay, lightDistance, MIN_CALC_COLOR_K).lowerThan(MIN_CALC_COLOR_K)) {
+            Intersectable.takeOccluder();
+            occluderHits.increment();
+            return Double3.ZERO;
         }
+        occluderMisses.increment();
 
-        // the distance from the light source to the point
-        Double3 ktr = new Double3(1);
-        for (GeoPoint gp : intersections) {
-            //if (alignZero(gp.point.distance(geoPoint.point) - lightDistance) <= 0) {//<=0
-                ktr = gp.geometry.getMaterial().kT.product(ktr); // The transparency of each intersection
-                if (ktr.lowerThan(MIN_CALC_COLOR_K)) {
-                    return new Double3(0); // full shadow
-                }
-            }
-       // }
+        // multiply the transparency of the geometries that block us, the query stops on full shadow
+        Intersectable.takeOccluder();
+        Double3 ktr = scene.geometries.findTransparency(lightRay, lightDistance, MIN_CALC_COLOR_K);
+        occluder = Intersectable.takeOccluder();
+        if (occluder != null)
+            cache.put(lightSource, occluder);
         return ktr;
     }
 }
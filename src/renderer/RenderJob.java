@@ -0,0 +1,55 @@
+package renderer;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A render that runs in the background, see {@link Camera#renderImageAsync()}.<br/>
+ * Every job has its own settings, progress, sample statistics and result, so several cameras (and scenes)
+ * can be rendered at the same time.
+ */
+public class RenderJob {
+    private final Pixel progress;
+    private final SampleBuffer samples;
+    private final CompletableFuture<ImageWriter> image;
+
+    /**
+     * Constructor of a started job
+     *
+     * @param progress progress of the render
+     * @param samples  statistics of the samples of the render, null without variance driven supersampling
+     * @param image    future of the rendered image
+     */
+    RenderJob(Pixel progress, SampleBuffer samples, CompletableFuture<ImageWriter> image) {
+        this.progress = progress;
+        this.samples = samples;
+        this.image = image;
+    }
+
+    /**
+     * Returns the progress of the render
+     *
+     * @return the progress
+     */
+    public Pixel getProgress() {
+        return progress;
+    }
+
+    /**
+     * Returns the statistics of the samples of the render, see {@link Camera#setVarianceSSAA(double, int)}
+     *
+     * @return the sample buffer, null if the render is not variance driven
+     */
+    public SampleBuffer getSampleBuffer() {
+        return samples;
+    }
+
+    /**
+     * Returns the future of the image writer, that is completed when all the pixels are written to it.
+     * Cancelling the future stops the render.
+     *
+     * @return future of the rendered image
+     */
+    public CompletableFuture<ImageWriter> getImage() {
+        return image;
+    }
+}
@@ -0,0 +1,59 @@
+package renderer;
+
+/**
+ * Settings of a render, copied from the camera when the render starts. The render threads read only the settings
+ * of their job, so the camera can be changed, and start another job, while a job is running.
+ */
+final class RenderSettings {
+    final ImageWriter imageWriter;
+    final RayTracerBase rayTracer;
+    final RayGenerator generator; //primary rays, with the view plane basis of the camera
+    final boolean ssaa; //several random or sampled rays in every pixel
+    final int sampleNumber; //number of rays of a pixel in supersampling
+    final boolean adaptiveSSAA;
+    final int maxDepth; //maximal depth of the division of a pixel in adaptive supersampling
+    final boolean varianceSSAA;
+    final double targetError; //relative error of the pixels that variance driven sampling stops at
+    final int maxSamples; //maximal number of samples of a pixel in variance driven sampling
+    final Sampler sampler; //places of the rays in the pixels, null for random places
+
+    /**
+     * Constructor that receives all the settings
+     *
+     * @param imageWriter  image writer of the render
+     * @param rayTracer    ray tracer of the render
+     * @param generator    primary ray generator of the render
+     * @param ssaa         whether supersampling is enabled
+     * @param sampleNumber number of rays of a pixel in supersampling
+     * @param adaptiveSSAA whether adaptive supersampling is enabled
+     * @param maxDepth     maximal depth of adaptive supersampling
+     * @param varianceSSAA whether variance driven supersampling is enabled
+     * @param targetError  target relative error of variance driven supersampling
+     * @param maxSamples   maximal number of samples of variance driven supersampling
+     * @param sampler      places of the rays in the pixels, null for random places
+     */
+    RenderSettings(ImageWriter imageWriter, RayTracerBase rayTracer, RayGenerator generator,
+                   boolean ssaa, int sampleNumber, boolean adaptiveSSAA, int maxDepth,
+                   boolean varianceSSAA, double targetError, int maxSamples, Sampler sampler) {
+        this.imageWriter = imageWriter;
+        this.rayTracer = rayTracer;
+        this.generator = generator;
+        this.ssaa = ssaa;
+        this.sampleNumber = sampleNumber;
+        this.adaptiveSSAA = adaptiveSSAA;
+        this.maxDepth = maxDepth;
+        this.varianceSSAA = varianceSSAA;
+        this.targetError = targetError;
+        this.maxSamples = maxSamples;
+        this.sampler = sampler;
+    }
+
+    /**
+     * Checks whether the pixels are sampled by several rays, or by the single ray through the center
+     *
+     * @return true if one of the supersampling methods is enabled
+     */
+    boolean isSampled() {
+        return varianceSSAA || adaptiveSSAA || ssaa;
+    }
+}
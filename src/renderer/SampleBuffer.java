@@ -0,0 +1,128 @@
+package renderer;
+
+import primitives.Color;
+
+/**
+ * Running statistics of the samples of every pixel of an image - the mean and the variance of every color
+ * component, updated in place by Welford's algorithm, and the number of samples.<br/>
+ * The statistics are kept in float arrays (a third of the memory of colors), and every pixel is updated
+ * only by the thread that renders it.
+ */
+public class SampleBuffer {
+    private static final double ERROR_FLOOR = 2.55; //errors are relative to the color, but not to less than 1% of white
+
+    private final int nX;
+    private final float[] means; //mean of the red, green and blue components of every pixel
+    private final float[] squares; //sum of the squared differences from the mean, of every component of every pixel
+    private final int[] counts; //number of samples of every pixel
+
+    /**
+     * Constructor of an empty buffer
+     *
+     * @param nX resolution on X axis (number of pixels in row)
+     * @param nY resolution on Y axis (number of pixels in column)
+     */
+    public SampleBuffer(int nX, int nY) {
+        this.nX = nX;
+        means = new float[3 * nX * nY];
+        squares = new float[3 * nX * nY];
+        counts = new int[nX * nY];
+    }
+
+    /**
+     * Adds a sample to the statistics of a pixel
+     *
+     * @param col   pixel's column number (pixel index in row)
+     * @param row   pixel's row number (pixel index in column)
+     * @param color color of the sample
+     */
+    public void add(int col, int row, Color color) {
+        int pixel = row * nX + col, k = 3 * pixel;
+        int count = ++counts[pixel];
+        update(k, count, color.getRed());
+        update(k + 1, count, color.getGreen());
+        update(k + 2, count, color.getBlue());
+    }
+
+    /**
+     * Welford's update of the mean and the squared differences of a component
+     *
+     * @param k     index of the component in the arrays
+     * @param count number of the samples, including the new one
+     * @param value the component of the new sample
+     */
+    private void update(int k, int count, double value) {
+        double mean = means[k];
+        double delta = value - mean;
+        mean += delta / count;
+        means[k] = (float) mean;
+        squares[k] += (float) (delta * (value - mean));
+    }
+
+    /**
+     * Returns the number of samples of a pixel
+     *
+     * @param col pixel's column number (pixel index in row)
+     * @param row pixel's row number (pixel index in column)
+     * @return number of samples
+     */
+    public int getCount(int col, int row) {
+        return counts[row * nX + col];
+    }
+
+    /**
+     * Returns the number of samples of all the pixels
+     *
+     * @return total number of samples
+     */
+    public long getTotalCount() {
+        long total = 0;
+        for (int count : counts)
+            total += count;
+        return total;
+    }
+
+    /**
+     * Returns the mean color of the samples of a pixel
+     *
+     * @param col pixel's column number (pixel index in row)
+     * @param row pixel's row number (pixel index in column)
+     * @return the mean color, black if the pixel has no samples
+     */
+    public Color getMean(int col, int row) {
+        int k = 3 * (row * nX + col);
+        return new Color(Math.max(means[k], 0), Math.max(means[k + 1], 0), Math.max(means[k + 2], 0));
+    }
+
+    /**
+     * Returns the sample variance of the most varying color component of a pixel
+     *
+     * @param col pixel's column number (pixel index in row)
+     * @param row pixel's row number (pixel index in column)
+     * @return the variance, 0 if the pixel has less than 2 samples
+     */
+    public double getVariance(int col, int row) {
+        int pixel = row * nX + col, k = 3 * pixel, count = counts[pixel];
+        if (count < 2)
+            return 0;
+        return Math.max(squares[k], Math.max(squares[k + 1], squares[k + 2])) / (count - 1);
+    }
+
+    /**
+     * Returns the relative error of the mean color of a pixel - the standard error of the mean of every component
+     * divided by the component, the largest of the three. A pixel with less than 2 samples has an infinite error.
+     *
+     * @param col pixel's column number (pixel index in row)
+     * @param row pixel's row number (pixel index in column)
+     * @return the relative error
+     */
+    public double getRelativeError(int col, int row) {
+        int pixel = row * nX + col, k = 3 * pixel, count = counts[pixel];
+        if (count < 2)
+            return Double.POSITIVE_INFINITY;
+        double error = 0;
+        for (int i = k; i < k + 3; ++i)
+            error = Math.max(error, Math.sqrt(squares[i] / (count - 1d) / count) / Math.max(means[i], ERROR_FLOOR));
+        return error;
+    }
+}
@@ -0,0 +1,127 @@
+package renderer;
+
+/**
+ * Source of the sample points of the render - the places of the rays in a pixel, the points on an area light
+ * for soft shadows, and so on.<br/>
+ * A sampler has no state: a coordinate of a sample is a function of the pixel, the index of the sample
+ * and the dimension, so the render threads share one sampler without any locking, and a render gives the
+ * same image every time. The samples of a pixel are spread evenly (unlike white noise), so fewer of them
+ * are needed for the same noise.<br/>
+ * The dimensions come in pairs - 0 and 1 are the place in the pixel, and every other effect takes the next
+ * pair, see {@link RayTracerBasic#setSampler(Sampler)}.
+ */
+public interface Sampler {
+    /**
+     * Returns a coordinate of a sample
+     *
+     * @param pixel     the pixel, see {@link #pixel(int, int)}
+     * @param index     index of the sample among the samples of the pixel
+     * @param count     number of the samples of the pixel
+     * @param dimension the coordinate of the sample
+     * @return the coordinate, in [0, 1)
+     */
+    double get(long pixel, int index, int count, int dimension);
+
+    /**
+     * Returns the key of a pixel for {@link #get(long, int, int, int)}
+     *
+     * @param col pixel's column number (pixel index in row)
+     * @param row pixel's row number (pixel index in column)
+     * @return the key of the pixel
+     */
+    static long pixel(int col, int row) {
+        return (long) row << 32 | col & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Returns the column of a pixel key
+     *
+     * @param pixel the key of the pixel
+     * @return pixel's column number
+     */
+    static int col(long pixel) {
+        return (int) pixel;
+    }
+
+    /**
+     * Returns the row of a pixel key
+     *
+     * @param pixel the key of the pixel
+     * @return pixel's row number
+     */
+    static int row(long pixel) {
+        return (int) (pixel >>> 32);
+    }
+
+    /**
+     * Mixes the bits of a number (the finalizer of SplitMix64), for seeding the samples of a pixel
+     *
+     * @param z the number
+     * @return the mixed number
+     */
+    static long mix(long z) {
+        z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+        return z ^ z >>> 31;
+    }
+
+    /**
+     * Returns a seed for a pair of dimensions of a pixel
+     *
+     * @param pixel the key of the pixel
+     * @param pair  index of the pair of dimensions
+     * @return the seed
+     */
+    static int seed(long pixel, int pair) {
+        return (int) mix(mix(pixel) + pair * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * Converts 32 random bits to a number in [0, 1)
+     *
+     * @param bits the bits, as an unsigned number
+     * @return the number
+     */
+    static double toDouble(int bits) {
+        return (bits & 0xFFFFFFFFL) * 0x1p-32;
+    }
+
+    /**
+     * Permutation of [0, l) that depends on a seed, without a table (Kensler, 2013)
+     *
+     * @param i the number to permute
+     * @param l the size of the range
+     * @param p the seed
+     * @return the permuted number
+     */
+    static int permute(int i, int l, int p) {
+        int w = l - 1;
+        w |= w >>> 1;
+        w |= w >>> 2;
+        w |= w >>> 4;
+        w |= w >>> 8;
+        w |= w >>> 16;
+        //a permutation of [0, w], the numbers out of the range are permuted again
+        do {
+            i ^= p;
+            i *= 0xE170893D;
+            i ^= p >>> 16;
+            i ^= (i & w) >>> 4;
+            i ^= p >>> 8;
+            i *= 0x0929EB3F;
+            i ^= p >>> 23;
+            i ^= (i & w) >>> 1;
+            i *= 1 | p >>> 27;
+            i *= 0x6935FA69;
+            i ^= (i & w) >>> 11;
+            i *= 0x74DCB303;
+            i ^= (i & w) >>> 2;
+            i *= 0x9E501CC3;
+            i ^= (i & w) >>> 2;
+            i *= 0xC860A3DF;
+            i &= w;
+            i ^= i >>> 5;
+        } while (i >= l);
+        return Integer.remainderUnsigned(i + p, l);
+    }
+}
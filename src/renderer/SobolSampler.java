@@ -0,0 +1,61 @@
+package renderer;
+
+/**
+ * Owen-scrambled Sobol sampler, with the hash based scrambling of Burley (2020).<br/>
+ * Every pair of dimensions is the first two dimensions of the Sobol sequence, scrambled and shuffled
+ * by seeds of the pixel and the pair ("padding"), so any number of dimensions is possible
+ * and the pairs are not correlated. The scrambling keeps the stratification of the sequence,
+ * and is best with a power of 2 samples.
+ */
+public class SobolSampler implements Sampler {
+    private static final int[] DIRECTIONS = new int[32]; //direction numbers of the second dimension
+
+    static {
+        //the polynomial x + 1 - every direction number is the previous one xor itself shifted
+        DIRECTIONS[0] = 1 << 31;
+        for (int bit = 1; bit < 32; ++bit)
+            DIRECTIONS[bit] = DIRECTIONS[bit - 1] ^ DIRECTIONS[bit - 1] >>> 1;
+    }
+
+    @Override
+    public double get(long pixel, int index, int count, int dimension) {
+        int seed = Sampler.seed(pixel, dimension >> 1);
+        //the same shuffle of the samples for both dimensions of the pair
+        int shuffled = scramble(index, (int) Sampler.mix(seed));
+        int sobol = (dimension & 1) == 0 ? Integer.reverse(shuffled) : secondDimension(shuffled);
+        return Sampler.toDouble(scramble(sobol, (int) Sampler.mix(seed + dimension + 1)));
+    }
+
+    /**
+     * Calculates the second dimension of the Sobol sequence
+     *
+     * @param index index of the sample
+     * @return the coordinate, as an unsigned fraction
+     */
+    private static int secondDimension(int index) {
+        int result = 0;
+        for (int bit = 0; index != 0; ++bit, index >>>= 1)
+            if ((index & 1) != 0)
+                result ^= DIRECTIONS[bit];
+        return result;
+    }
+
+    /**
+     * Nested uniform (Owen) scrambling of the bits of a fraction, by hashing - every bit is flipped
+     * by a hash of the higher bits
+     *
+     * @param x    the fraction
+     * @param seed the seed of the scrambling
+     * @return the scrambled fraction
+     */
+    private static int scramble(int x, int seed) {
+        //Laine-Karras permutation of the reversed bits, that flips every bit by the lower bits
+        x = Integer.reverse(x);
+        x += seed;
+        x ^= x * 0x6C50B47C;
+        x ^= x * 0xB82F1E52;
+        x ^= x * 0xC7AFE638;
+        x ^= x * 0x8D22F6E6;
+        return Integer.reverse(x);
+    }
+}
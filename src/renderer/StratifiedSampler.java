@@ -0,0 +1,48 @@
+package renderer;
+
+/**
+ * Correlated multi-jittered sampler (Kensler, 2013): the samples of a pixel are jittered in the cells of
+ * a grid, so that every row, every column and every cell of the grid gets one sample.
+ * The shuffles of the grid are hash based permutations (see {@link Sampler#permute(int, int, int)}),
+ * so no tables are kept.
+ */
+public class StratifiedSampler implements Sampler {
+
+    @Override
+    public double get(long pixel, int index, int count, int dimension) {
+        int p = Sampler.seed(pixel, dimension >> 1);
+        //an almost square grid of m x n cells
+        int m = Math.max(1, (int) Math.sqrt(count));
+        int n = (count + m - 1) / m;
+        int s = Sampler.permute(index % count, count, p * 0x51633E2D);
+        int sx = s % m, sy = s / m;
+        //the place in the cell is a shuffled row (or column) of the sub-grid of the column (or row)
+        if ((dimension & 1) == 0) {
+            double jitter = Sampler.toDouble(hash(s, p * 0xA399D265));
+            return (sx + (Sampler.permute(sy, n, p * 0x63D83595) + jitter) / n) / m;
+        }
+        double jitter = Sampler.toDouble(hash(s, p * 0x711AD6A5));
+        return (sy + (Sampler.permute(sx, m, p * 0xA511E9B3) + jitter) / m) / n;
+    }
+
+    /**
+     * Random bits of a sample
+     *
+     * @param i the sample
+     * @param p the seed
+     * @return 32 random bits
+     */
+    private static int hash(int i, int p) {
+        i ^= p;
+        i ^= i >>> 17;
+        i ^= i >>> 10;
+        i *= 0xB36534E5;
+        i ^= i >>> 12;
+        i ^= i >>> 21;
+        i *= 0x93FC4795;
+        i ^= 0xDF6E307F;
+        i ^= i >>> 17;
+        i *= 1 | p >>> 18;
+        return i;
+    }
+}
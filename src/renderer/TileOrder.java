@@ -0,0 +1,25 @@
+package renderer;
+
+/**
+ * Order in which the tiles of the image are handed to the render threads.
+ * Neighbouring tiles hit mostly the same geometries, so a space filling order keeps the caches warm,
+ * and the spiral order shows the center of the image first.
+ */
+public enum TileOrder {
+    /**
+     * Row by row, left to right
+     */
+    SCANLINE,
+    /**
+     * Z-order curve (interleaved bits of the tile coordinates)
+     */
+    MORTON,
+    /**
+     * Hilbert curve - every tile is a neighbour of the previous one
+     */
+    HILBERT,
+    /**
+     * Rings around the center of the image, outwards
+     */
+    SPIRAL
+}
@@ -0,0 +1,220 @@
+package renderer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits the image into square tiles and renders them on a {@link ForkJoinPool}.<br/>
+ * The list of tiles is divided recursively between the workers, and an idle worker steals the
+ * second half of the range of a busy one - so threads that got cheap tiles (background) help the
+ * threads that got expensive ones (glass, soft shadows). There are no locks on the way.
+ */
+class TileScheduler {
+
+    /**
+     * Renders a single pixel of the image
+     */
+    @FunctionalInterface
+    interface PixelRenderer {
+        /**
+         * Renders the pixel
+         *
+         * @param col pixel's column number (pixel index in row)
+         * @param row pixel's row number (pixel index in column)
+         */
+        void render(int col, int row);
+
+        /**
+         * Called by the render thread before it renders the pixels of a new tile
+         *
+         * @param col0 first column of the tile
+         * @param row0 first row of the tile
+         * @param col1 column after the tile
+         * @param row1 row after the tile
+         */
+        default void startTile(int col0, int row0, int col1, int row1) {
+        }
+    }
+
+    private final int nX;
+    private final int nY;
+    private final int tileSize;
+    private final int tilesX; //number of tiles in a row of tiles
+    private final int[] tiles; //indexes of the tiles (row * tilesX + column) in the order of the render
+
+    /**
+     * Constructor that divides the image into tiles and orders them
+     *
+     * @param nX       resolution on X axis (number of pixels in row)
+     * @param nY       resolution on Y axis (number of pixels in column)
+     * @param tileSize length of the side of a tile in pixels
+     * @param order    order of the tiles
+     */
+    TileScheduler(int nX, int nY, int tileSize, TileOrder order) {
+        if (tileSize <= 0)
+            throw new IllegalArgumentException("Tile size must be positive");
+        this.nX = nX;
+        this.nY = nY;
+        this.tileSize = tileSize;
+        this.tilesX = (nX + tileSize - 1) / tileSize;
+        int tilesY = (nY + tileSize - 1) / tileSize;
+        this.tiles = orderTiles(tilesX, tilesY, order);
+    }
+
+    /**
+     * Returns the tile indexes (row * tilesX + column) in the order of the render
+     *
+     * @param tilesX number of tiles in a row
+     * @param tilesY number of tiles in a column
+     * @param order  order of the tiles
+     * @return tile indexes
+     */
+    private static int[] orderTiles(int tilesX, int tilesY, TileOrder order) {
+        int count = tilesX * tilesY;
+        Integer[] tiles = new Integer[count];
+        for (int i = 0; i < count; ++i)
+            tiles[i] = i;
+
+        switch (order) {
+            case MORTON -> Arrays.sort(tiles, Comparator.comparingLong(t -> mortonIndex(t % tilesX, t / tilesX)));
+            case HILBERT -> {
+                int n = Integer.highestOneBit(Math.max(1, Math.max(tilesX, tilesY) - 1)) * 2;
+                Arrays.sort(tiles, Comparator.comparingLong(t -> hilbertIndex(n, t % tilesX, t / tilesX)));
+            }
+            case SPIRAL -> {
+                //doubled coordinates relative to the center, so that the center of an even grid is exact
+                Comparator<Integer> byRing = Comparator.comparingInt(t ->
+                        Math.max(Math.abs(2 * (t % tilesX) + 1 - tilesX), Math.abs(2 * (t / tilesX) + 1 - tilesY)));
+                Arrays.sort(tiles, byRing.thenComparingDouble(t ->
+                        Math.atan2(2 * (t / tilesX) + 1 - tilesY, 2 * (t % tilesX) + 1 - tilesX)));
+            }
+            default -> {
+                //scanline - the natural order
+            }
+        }
+
+        int[] result = new int[count];
+        for (int i = 0; i < count; ++i)
+            result[i] = tiles[i];
+        return result;
+    }
+
+    /**
+     * Position of a tile on the Z-order curve
+     *
+     * @param x tile column
+     * @param y tile row
+     * @return the index on the curve
+     */
+    static long mortonIndex(int x, int y) {
+        long index = 0;
+        for (int bit = 0; bit < 31; ++bit)
+            index |= ((long) (x >> bit & 1) << 2 * bit) | ((long) (y >> bit & 1) << 2 * bit + 1);
+        return index;
+    }
+
+    /**
+     * Position of a tile on the Hilbert curve that fills an n x n grid
+     *
+     * @param n size of the grid, a power of two
+     * @param x tile column
+     * @param y tile row
+     * @return the index on the curve
+     */
+    static long hilbertIndex(int n, int x, int y) {
+        long index = 0;
+        for (int s = n / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            index += (long) s * s * ((3 * rx) ^ ry);
+            //rotate the quadrant, so that the curve continues from the end of the previous quadrant
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = n - 1 - x;
+                    y = n - 1 - y;
+                }
+                int temp = x;
+                x = y;
+                y = temp;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of tiles
+     *
+     * @return number of tiles
+     */
+    int getTilesCount() {
+        return tiles.length;
+    }
+
+    /**
+     * Renders all the pixels of the tile in the given place of the order
+     *
+     * @param position place of the tile in the order
+     * @param renderer the pixel renderer
+     */
+    void renderTile(int position, PixelRenderer renderer) {
+        int tile = tiles[position];
+        int col0 = tile % tilesX * tileSize, row0 = tile / tilesX * tileSize;
+        int col1 = Math.min(col0 + tileSize, nX), row1 = Math.min(row0 + tileSize, nY);
+        renderer.startTile(col0, row0, col1, row1);
+        for (int row = row0; row < row1; ++row)
+            for (int col = col0; col < col1; ++col)
+                renderer.render(col, row);
+    }
+
+    /**
+     * Renders all the tiles - must be called from a thread of the pool, that takes part in the render
+     *
+     * @param renderer the pixel renderer
+     */
+    void render(PixelRenderer renderer) {
+        new TileRange(0, tiles.length, renderer).invoke();
+    }
+
+    /**
+     * Starts rendering all the tiles on the pool
+     *
+     * @param pool     the pool of the render threads
+     * @param renderer the pixel renderer
+     * @return the task of the whole render
+     */
+    ForkJoinTask<Void> submit(ForkJoinPool pool, PixelRenderer renderer) {
+        return pool.submit(new TileRange(0, tiles.length, renderer));
+    }
+
+    /**
+     * Range of tiles in the order, that is split in halves until a single tile is left
+     */
+    private class TileRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final PixelRenderer renderer;
+
+        TileRange(int from, int to, PixelRenderer renderer) {
+            this.from = from;
+            this.to = to;
+            this.renderer = renderer;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                renderTile(from, renderer);
+                return;
+            }
+            if (to <= from)
+                return;
+            int middle = (from + to) >>> 1;
+            invokeAll(new TileRange(from, middle, renderer), new TileRange(middle, to, renderer));
+        }
+    }
+}
@@ -0,0 +1,657 @@
+package scene;
+
+import geometries.TriangleMesh;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Loader of triangle meshes from Wavefront OBJ and PLY (binary and ascii) files.<br/>
+ * The file is streamed through a fixed buffer of a file channel and parsed byte by byte - no lines or
+ * tokens are turned into strings (except the PLY header) - and the coordinates and indexes go straight
+ * into the flat buffers of a {@link TriangleMesh}. The buffers of a PLY mesh are allocated by the counts
+ * of its header, so a big scanned asset of triangles is loaded with only the memory of the mesh itself.
+ * An OBJ file has no counts - its buffers grow by half and are trimmed at the end, which takes up to
+ * twice the memory of the mesh for a moment.<br/>
+ * Only the positions and the faces are loaded: normals, texture coordinates, colors, groups and materials
+ * are skipped. Faces with more than three vertices are split to a fan of triangles.<br/>
+ * A big mesh can be loaded through a cache directory, where the built mesh is kept by the hash of the content
+ * of its file - see {@link #load(Path, Path)}.
+ */
+public final class MeshLoader {
+    private static final int BUFFER_SIZE = 1 << 16;
+    //exact powers of ten for the fast path of the number parser
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    //types of PLY properties
+    private static final int INT8 = 0, UINT8 = 1, INT16 = 2, UINT16 = 3, INT32 = 4, UINT32 = 5,
+            FLOAT32 = 6, FLOAT64 = 7;
+    private static final int[] TYPE_SIZES = {1, 1, 2, 2, 4, 4, 4, 8};
+
+    //constants of the content hash
+    private static final long PRIME1 = 0x9E3779B185EBCA87L, PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final int HASH_CHUNK = 1 << 30; //a mapping is limited to 2GB, so a big file is hashed in parts
+
+    private MeshLoader() {
+    }
+
+    /**
+     * Loads a mesh, the format is chosen by the extension of the file (.obj or .ply)
+     *
+     * @param file path of the file
+     * @return the mesh
+     * @throws IllegalArgumentException if the extension is unknown or the file is malformed
+     * @throws IllegalStateException    if the file can't be read
+     */
+    public static TriangleMesh load(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".obj"))
+            return loadObj(file);
+        if (name.endsWith(".ply"))
+            return loadPly(file);
+        throw new IllegalArgumentException("Unknown mesh format " + file);
+    }
+
+    /**
+     * Loads a mesh through a cache directory. The cache file of a mesh is named by a 64-bit hash of the content
+     * of the mesh file, so a changed file gets a new cache file. If the cache file exists, the mesh and its
+     * hierarchy are read from it by memory mapping - without parsing and building. Otherwise the mesh is loaded
+     * and its cache file is written, into a temporary file that is renamed when it is complete.
+     * A damaged cache file (e.g. of an older version) is written again.
+     *
+     * @param file           path of the mesh file
+     * @param cacheDirectory directory of the cache files, created if it is missing
+     * @return the mesh
+     * @throws IllegalArgumentException if the extension is unknown or the file is malformed
+     * @throws IllegalStateException    if a file can't be read or written
+     */
+    public static TriangleMesh load(Path file, Path cacheDirectory) {
+        Path cache = cacheDirectory.resolve(String.format("%016x.mesh", contentHash(file)));
+        if (Files.isRegularFile(cache)) {
+            try {
+                return TriangleMesh.read(cache);
+            } catch (IllegalArgumentException e) {
+                //a damaged cache file is replaced below
+            }
+        }
+
+        TriangleMesh mesh = load(file);
+        Path temp = null;
+        try {
+            Files.createDirectories(cacheDirectory);
+            temp = Files.createTempFile(cacheDirectory, "mesh", ".tmp");
+            mesh.write(temp);
+            Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - can't write " + cache, e);
+        } finally {
+            if (temp != null)
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    //the temporary file is left behind
+                }
+        }
+        return mesh;
+    }
+
+    /**
+     * Calculates a 64-bit hash of the content of a file, together with its extension (the same bytes make a
+     * different mesh in another format). The file is memory mapped and mixed a long at a time in four
+     * independent lanes, so the hash runs at about the speed of the memory.
+     *
+     * @param file path of the file
+     * @return the hash
+     * @throws IllegalStateException if the file can't be read
+     */
+    static long contentHash(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            String name = file.getFileName().toString().toLowerCase();
+            long seed = size * PRIME1 ^ name.substring(name.lastIndexOf('.') + 1).hashCode();
+            long lane1 = seed + PRIME1 + PRIME2, lane2 = seed + PRIME2, lane3 = seed, lane4 = seed - PRIME1;
+            long tail = 0;
+            for (long position = 0; position < size; position += HASH_CHUNK) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(HASH_CHUNK, size - position)).order(ByteOrder.LITTLE_ENDIAN);
+                LongBuffer longs = buffer.asLongBuffer();
+                int n = longs.remaining();
+                int i = 0;
+                for (; i + 4 <= n; i += 4) {
+                    lane1 = round(lane1, longs.get(i));
+                    lane2 = round(lane2, longs.get(i + 1));
+                    lane3 = round(lane3, longs.get(i + 2));
+                    lane4 = round(lane4, longs.get(i + 3));
+                }
+                //the last longs and bytes of the chunk (a chunk is a whole number of longs, so only the last one has them)
+                for (; i < n; ++i)
+                    tail = round(tail, longs.get(i));
+                for (int b = n * Long.BYTES; b < buffer.limit(); ++b)
+                    tail = round(tail, buffer.get(b));
+            }
+            long hash = Long.rotateLeft(lane1, 1) + Long.rotateLeft(lane2, 7) + Long.rotateLeft(lane3, 12)
+                    + Long.rotateLeft(lane4, 18) + tail * PRIME1;
+            hash = (hash ^ hash >>> 33) * PRIME2;
+            hash = (hash ^ hash >>> 29) * PRIME1;
+            return hash ^ hash >>> 32;
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - can't read " + file, e);
+        }
+    }
+
+    /**
+     * Mixes a value into a lane of the hash
+     *
+     * @param lane  the lane
+     * @param value the value
+     * @return the new lane
+     */
+    private static long round(long lane, long value) {
+        return Long.rotateLeft(lane + value * PRIME2, 31) * PRIME1;
+    }
+
+    /**
+     * Loads a mesh from a Wavefront OBJ file - the "v" and "f" lines. Negative (relative) indexes
+     * and the v/vt/vn form of face vertices are supported.
+     *
+     * @param file path of the file
+     * @return the mesh
+     * @throws IllegalArgumentException if the file is malformed
+     * @throws IllegalStateException    if the file can't be read
+     */
+    public static TriangleMesh loadObj(Path file) {
+        try (Input in = new Input(file)) {
+            MeshBuilder mesh = new MeshBuilder(1024, 1024);
+            int[] polygon = new int[16];
+            for (int c = in.skipBlanks(); c != -1; c = in.skipBlanks()) {
+                if (c == 'v' || c == 'f') {
+                    in.read();
+                    if (isBlank(in.peek())) {
+                        if (c == 'v')
+                            mesh.addVertex(in.parseDouble(), in.parseDouble(), in.parseDouble());
+                        else
+                            polygon = readObjFace(in, mesh, polygon);
+                    }
+                }
+                in.skipLine();
+            }
+            return mesh.build();
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - can't read " + file, e);
+        }
+    }
+
+    /**
+     * Reads the vertices of an OBJ face and adds its triangles to the mesh
+     *
+     * @param in      the file, after the "f"
+     * @param mesh    the mesh
+     * @param polygon buffer of the vertex indexes
+     * @return the buffer, may be a bigger one
+     */
+    private static int[] readObjFace(Input in, MeshBuilder mesh, int[] polygon) throws IOException {
+        int size = 0;
+        for (int c = in.skipBlanks(); c != -1 && c != '\n' && c != '#' && c != '\\'; c = in.skipBlanks()) {
+            int index = (int) in.parseLong();
+            if (index == 0)
+                throw new IllegalArgumentException("Face refers to vertex 0");
+            if (size == polygon.length)
+                polygon = Arrays.copyOf(polygon, size * 2);
+            //indexes are counted from 1, negative ones from the last vertex
+            polygon[size++] = index > 0 ? index - 1 : mesh.vertexCount + index;
+            //skip the texture and normal indexes
+            while ((c = in.peek()) != -1 && !isBlank(c) && c != '\n')
+                in.read();
+        }
+        mesh.addPolygon(polygon, size);
+        return polygon;
+    }
+
+    /**
+     * Loads a mesh from a PLY file - the x, y, z properties of the "vertex" element and the
+     * "vertex_indices" list of the "face" element. Other elements and properties are skipped.
+     *
+     * @param file path of the file
+     * @return the mesh
+     * @throws IllegalArgumentException if the file is malformed
+     * @throws IllegalStateException    if the file can't be read
+     */
+    public static TriangleMesh loadPly(Path file) {
+        try (Input in = new Input(file)) {
+            if (!"ply".equals(in.readWord()))
+                throw new IllegalArgumentException("Not a PLY file " + file);
+            in.skipLine();
+
+            boolean ascii = false;
+            List<Element> elements = new ArrayList<>();
+            for (String keyword = in.readWord(); !"end_header".equals(keyword); keyword = in.readWord()) {
+                switch (keyword) {
+                    case "format" -> {
+                        String format = in.readWord();
+                        switch (format) {
+                            case "ascii" -> ascii = true;
+                            case "binary_little_endian" -> in.order(ByteOrder.LITTLE_ENDIAN);
+                            case "binary_big_endian" -> in.order(ByteOrder.BIG_ENDIAN);
+                            default -> throw new IllegalArgumentException("Unknown PLY format " + format);
+                        }
+                    }
+                    case "element" -> elements.add(new Element(in.readWord(), in.parseLong()));
+                    case "property" -> {
+                        if (elements.isEmpty())
+                            throw new IllegalArgumentException("PLY property out of an element");
+                        String type = in.readWord();
+                        Property property = "list".equals(type)
+                                ? new Property(typeOf(in.readWord()), typeOf(in.readWord()), in.readWord())
+                                : new Property(-1, typeOf(type), in.readWord());
+                        elements.get(elements.size() - 1).properties.add(property);
+                    }
+                    case "comment", "obj_info" -> {
+                    }
+                    case "" -> throw new IllegalArgumentException("PLY header without end_header");
+                    default -> throw new IllegalArgumentException("Unknown PLY header line " + keyword);
+                }
+                in.skipLine();
+            }
+            in.skipLine();
+
+            MeshBuilder mesh = null;
+            for (Element element : elements) {
+                if (element.name.equals("vertex"))
+                    mesh = readPlyVertices(in, element, ascii);
+                else if (element.name.equals("face") && mesh != null)
+                    readPlyFaces(in, element, ascii, mesh);
+                else
+                    for (long i = 0; i < element.count; ++i)
+                        for (Property property : element.properties)
+                            skipProperty(in, property, ascii);
+            }
+            if (mesh == null)
+                throw new IllegalArgumentException("PLY file without vertices " + file);
+            return mesh.build();
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - can't read " + file, e);
+        }
+    }
+
+    /**
+     * Reads the vertex element of a PLY file
+     *
+     * @return new mesh with the vertices
+     */
+    private static MeshBuilder readPlyVertices(Input in, Element element, boolean ascii) throws IOException {
+        int[] axis = new int[element.properties.size()]; //0, 1, 2 for x, y, z, -1 for other properties
+        for (int i = 0; i < axis.length; ++i)
+            axis[i] = switch (element.properties.get(i).name) {
+                case "x" -> 0;
+                case "y" -> 1;
+                case "z" -> 2;
+                default -> -1;
+            };
+        //the faces are allocated by the count of the face element
+        MeshBuilder mesh = new MeshBuilder(element.size(), 0);
+        double[] position = new double[3];
+        for (long i = 0; i < element.count; ++i) {
+            for (int j = 0; j < axis.length; ++j) {
+                Property property = element.properties.get(j);
+                if (axis[j] >= 0 && property.countType < 0)
+                    position[axis[j]] = in.readValue(property.type, ascii);
+                else
+                    skipProperty(in, property, ascii);
+            }
+            mesh.addVertex(position[0], position[1], position[2]);
+        }
+        return mesh;
+    }
+
+    /**
+     * Reads the face element of a PLY file into the mesh
+     */
+    private static void readPlyFaces(Input in, Element element, boolean ascii, MeshBuilder mesh) throws IOException {
+        int[] polygon = new int[16];
+        mesh.ensureFaces(element.size());
+        for (long i = 0; i < element.count; ++i)
+            for (Property property : element.properties) {
+                if (property.countType < 0
+                        || !property.name.equals("vertex_indices") && !property.name.equals("vertex_index")) {
+                    skipProperty(in, property, ascii);
+                    continue;
+                }
+                int size = (int) in.readValue(property.countType, ascii);
+                if (size > polygon.length)
+                    polygon = new int[size];
+                for (int j = 0; j < size; ++j)
+                    polygon[j] = (int) in.readValue(property.type, ascii);
+                mesh.addPolygon(polygon, size);
+            }
+    }
+
+    /**
+     * Reads a property of a PLY element and ignores it
+     */
+    private static void skipProperty(Input in, Property property, boolean ascii) throws IOException {
+        int size = property.countType < 0 ? 1 : (int) in.readValue(property.countType, ascii);
+        for (int i = 0; i < size; ++i)
+            in.readValue(property.type, ascii);
+    }
+
+    /**
+     * Returns the code of a PLY property type
+     *
+     * @param type name of the type
+     * @return the code of the type
+     */
+    private static int typeOf(String type) {
+        return switch (type) {
+            case "char", "int8" -> INT8;
+            case "uchar", "uint8" -> UINT8;
+            case "short", "int16" -> INT16;
+            case "ushort", "uint16" -> UINT16;
+            case "int", "int32" -> INT32;
+            case "uint", "uint32" -> UINT32;
+            case "float", "float32" -> FLOAT32;
+            case "double", "float64" -> FLOAT64;
+            default -> throw new IllegalArgumentException("Unknown PLY type " + type);
+        };
+    }
+
+    /**
+     * Checks for a space between tokens of a line
+     *
+     * @param c the character
+     * @return true if it is a space, a tab or a carriage return
+     */
+    private static boolean isBlank(int c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    /**
+     * Element of a PLY file
+     */
+    private static final class Element {
+        final String name;
+        final long count;
+        final List<Property> properties = new ArrayList<>();
+
+        Element(String name, long count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        /**
+         * Number of items of the element as array size
+         */
+        int size() {
+            if (count > Integer.MAX_VALUE / 9)
+                throw new IllegalArgumentException("Too many " + name + " items " + count);
+            return (int) count;
+        }
+    }
+
+    /**
+     * Property of a PLY element
+     */
+    private static final class Property {
+        final int countType; //type of the size of a list, -1 if the property is not a list
+        final int type; //type of the value or of the list items
+        final String name;
+
+        Property(int countType, int type, String name) {
+            this.countType = countType;
+            this.type = type;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Growing flat buffers of the mesh - buffers that are exactly full are given to the mesh as they are
+     */
+    private static final class MeshBuilder {
+        double[] vertices;
+        int vertexCount = 0;
+        int[] faces;
+        int faceCount = 0;
+
+        MeshBuilder(int vertexCapacity, int faceCapacity) {
+            vertices = new double[3 * Math.max(vertexCapacity, 1)];
+            faces = new int[3 * Math.max(faceCapacity, 1)];
+        }
+
+        void addVertex(double x, double y, double z) {
+            if (3 * vertexCount == vertices.length)
+                vertices = Arrays.copyOf(vertices, 3 * (vertexCount + (vertexCount >> 1) + 1));
+            vertices[3 * vertexCount] = x;
+            vertices[3 * vertexCount + 1] = y;
+            vertices[3 * vertexCount + 2] = z;
+            ++vertexCount;
+        }
+
+        void ensureFaces(int capacity) {
+            if (3 * capacity > faces.length)
+                faces = Arrays.copyOf(faces, 3 * capacity);
+        }
+
+        /**
+         * Adds a polygon as a fan of triangles around its first vertex
+         */
+        void addPolygon(int[] polygon, int size) {
+            if (size < 3)
+                throw new IllegalArgumentException("Face with less than 3 vertices");
+            for (int i = 2; i < size; ++i) {
+                if (3 * faceCount == faces.length)
+                    faces = Arrays.copyOf(faces, 3 * (faceCount + (faceCount >> 1) + 1));
+                faces[3 * faceCount] = polygon[0];
+                faces[3 * faceCount + 1] = polygon[i - 1];
+                faces[3 * faceCount + 2] = polygon[i];
+                ++faceCount;
+            }
+        }
+
+        TriangleMesh build() {
+            if (vertices.length > 3 * vertexCount)
+                vertices = Arrays.copyOf(vertices, 3 * vertexCount);
+            if (faces.length > 3 * faceCount)
+                faces = Arrays.copyOf(faces, 3 * faceCount);
+            return new TriangleMesh(vertices, faces);
+        }
+    }
+
+    /**
+     * Buffered reader of a file channel, that parses tokens in place
+     */
+    private static final class Input implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Input(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.limit(0);
+        }
+
+        void order(ByteOrder order) {
+            buffer.order(order);
+        }
+
+        /**
+         * Makes sure the buffer has enough bytes
+         *
+         * @param count number of bytes
+         * @return true if there are enough bytes, false at the end of the file
+         */
+        private boolean fill(int count) throws IOException {
+            while (buffer.remaining() < count) {
+                buffer.compact();
+                int read = channel.read(buffer);
+                buffer.flip();
+                if (read < 0)
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Returns the next byte without consuming it
+         *
+         * @return the byte, or -1 at the end of the file
+         */
+        int peek() throws IOException {
+            return buffer.hasRemaining() || fill(1) ? buffer.get(buffer.position()) & 0xFF : -1;
+        }
+
+        /**
+         * Consumes the next byte
+         *
+         * @return the byte, or -1 at the end of the file
+         */
+        int read() throws IOException {
+            return buffer.hasRemaining() || fill(1) ? buffer.get() & 0xFF : -1;
+        }
+
+        /**
+         * Skips the spaces and tabs
+         *
+         * @return the next byte, or -1 at the end of the file
+         */
+        int skipBlanks() throws IOException {
+            int c;
+            while (isBlank(c = peek()))
+                read();
+            return c;
+        }
+
+        /**
+         * Skips the rest of the line, including the line break
+         */
+        void skipLine() throws IOException {
+            int c;
+            do
+                c = read();
+            while (c != '\n' && c != -1);
+        }
+
+        /**
+         * Reads a word of the line
+         *
+         * @return the word, empty at the end of the line
+         */
+        String readWord() throws IOException {
+            StringBuilder word = new StringBuilder();
+            for (int c = skipBlanks(); c != -1 && c != '\n' && !isBlank(c); c = peek())
+                word.append((char) read());
+            return word.toString();
+        }
+
+        /**
+         * Reads a signed integer number
+         *
+         * @return the number
+         */
+        long parseLong() throws IOException {
+            int c = skipBlanks();
+            boolean negative = c == '-';
+            if (c == '-' || c == '+')
+                read();
+            long value = 0;
+            boolean empty = true;
+            for (c = peek(); c >= '0' && c <= '9'; c = peek()) {
+                value = value * 10 + (read() - '0');
+                empty = false;
+            }
+            if (empty)
+                throw new IllegalArgumentException("Expected a number");
+            return negative ? -value : value;
+        }
+
+        /**
+         * Reads a decimal number, with an optional exponent.
+         * The first 18 significant digits are kept, which is more than a double holds
+         *
+         * @return the number
+         */
+        double parseDouble() throws IOException {
+            int c = skipBlanks();
+            boolean negative = c == '-';
+            if (c == '-' || c == '+')
+                read();
+            long mantissa = 0;
+            int digits = 0, exponent = 0;
+            boolean empty = true, fraction = false;
+            for (c = peek(); c >= '0' && c <= '9' || c == '.' && !fraction; c = peek()) {
+                read();
+                if (c == '.') {
+                    fraction = true;
+                    continue;
+                }
+                empty = false;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0)
+                        ++digits;
+                    if (fraction)
+                        --exponent;
+                } else if (!fraction)
+                    ++exponent;
+            }
+            if (empty)
+                throw new IllegalArgumentException("Expected a number");
+            if (c == 'e' || c == 'E') {
+                read();
+                exponent += (int) parseLong();
+            }
+
+            double value;
+            if (mantissa == 0)
+                value = 0;
+            else if (mantissa < 1L << 53 && exponent >= -22 && exponent <= 22)
+                //both the mantissa and the power are exact, so the result is rounded only once
+                value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            else
+                value = Double.parseDouble(mantissa + "E" + exponent);
+            return negative ? -value : value;
+        }
+
+        /**
+         * Reads a value of a PLY property
+         *
+         * @param type  the type of the property
+         * @param ascii true if the file is in ascii format
+         * @return the value
+         */
+        double readValue(int type, boolean ascii) throws IOException {
+            if (ascii) {
+                //values of an ascii file may continue on the next line
+                while (peek() == '\n' || isBlank(peek()))
+                    read();
+                return parseDouble();
+            }
+            if (!fill(TYPE_SIZES[type]))
+                throw new IllegalArgumentException("Unexpected end of PLY file");
+            return switch (type) {
+                case INT8 -> buffer.get();
+                case UINT8 -> buffer.get() & 0xFF;
+                case INT16 -> buffer.getShort();
+                case UINT16 -> buffer.getShort() & 0xFFFF;
+                case INT32 -> buffer.getInt();
+                case UINT32 -> buffer.getInt() & 0xFFFFFFFFL;
+                case FLOAT32 -> buffer.getFloat();
+                default -> buffer.getDouble();
+            };
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
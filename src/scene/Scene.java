@@ -1,10 +1,13 @@
 package scene;
 
+import geometries.BVHBuilder;
 import geometries.Geometries;
+import geometries.TriangleMesh;
 import lighting.AmbientLight;
 import lighting.LightSource;
 import primitives.Color;
 
+import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -63,6 +66,18 @@ public class Scene {
         return this;
     }
 
+    /**
+     * Organizes the geometries of the scene in a bounding volume hierarchy that is built by the given algorithm.
+     * The linear builder fits scenes that are built again for every frame
+     *
+     * @param builder the build algorithm of the hierarchy
+     * @return this scene
+     */
+    public Scene setBVHBuilder(BVHBuilder builder) {
+        geometries.setBVH(true).setBVHBuilder(builder);
+        return this;
+    }
+
     /**
      * This function sets the lights of the scene to the given list of lights and returns the scene.
      *
@@ -73,4 +88,32 @@ public class Scene {
         this.lights = lights;
         return this;
     }
+
+    /**
+     * Loads a triangle mesh from an OBJ or PLY file and adds it to the geometries of the scene
+     *
+     * @param file path of the mesh file
+     * @return the mesh, to set its material
+     * @see MeshLoader
+     */
+    public TriangleMesh loadMesh(String file) {
+        TriangleMesh mesh = MeshLoader.load(Path.of(file));
+        geometries.add(mesh);
+        return mesh;
+    }
+
+    /**
+     * Loads a triangle mesh through a cache directory and adds it to the geometries of the scene.
+     * On later runs the built mesh is read from the cache instead of parsing the file and building its hierarchy.
+     *
+     * @param file           path of the mesh file
+     * @param cacheDirectory directory of the cache files
+     * @return the mesh, to set its material
+     * @see MeshLoader#load(Path, Path)
+     */
+    public TriangleMesh loadMesh(String file, String cacheDirectory) {
+        TriangleMesh mesh = MeshLoader.load(Path.of(file), Path.of(cacheDirectory));
+        geometries.add(mesh);
+        return mesh;
+    }
 }
@@ -0,0 +1,80 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing BoundingBox Class
+ *
+ * @author Mordechy Cohen
+ */
+class BoundingBoxTest {
+
+    /**
+     * Test method for {@link geometries.BoundingBox#intersects(primitives.Ray, double)}.
+     */
+    @Test
+    void testIntersects() {
+        BoundingBox box = new BoundingBox(0, 0, 0, 2, 2, 2);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Ray crosses the box
+        assertTrue(box.intersects(new Ray(new Point(-1, 1, 1), new Vector(1, 0.1, 0)), Double.POSITIVE_INFINITY),
+                "Ray crosses the box");
+        //TC02: Ray misses the box
+        assertFalse(box.intersects(new Ray(new Point(-1, 3, 1), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "Ray misses the box");
+        //TC03: Ray points away from the box
+        assertFalse(box.intersects(new Ray(new Point(-1, 1, 1), new Vector(-1, 0, 0)), Double.POSITIVE_INFINITY),
+                "Ray starts after the box");
+        //TC04: Ray starts inside the box
+        assertTrue(box.intersects(new Ray(new Point(1, 1, 1), new Vector(1, 2, 3)), Double.POSITIVE_INFINITY),
+                "Ray starts inside the box");
+        //TC05: The box is farther than the maximal distance
+        assertFalse(box.intersects(new Ray(new Point(-5, 1, 1), new Vector(1, 0, 0)), 4),
+                "Box is beyond the maximal distance");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Flat box (of a triangle parallel to the view plane)
+        BoundingBox flat = new BoundingBox(0, 0, -1, 2, 2, -1);
+        assertTrue(flat.intersects(new Ray(new Point(1, 1, 0), new Vector(0, 0, -1)), Double.POSITIVE_INFINITY),
+                "Ray crosses a flat box");
+    }
+
+    /**
+     * Test method for {@link Intersectable#getBoundingBox()} of the geometries.
+     */
+    @Test
+    void testGetBoundingBox() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Sphere
+        BoundingBox box = new Sphere(new Point(1, 2, 3), 1).getBoundingBox();
+        assertEquals(new Point(0, 1, 2), box.getMin(), "Wrong sphere box");
+        assertEquals(new Point(2, 3, 4), box.getMax(), "Wrong sphere box");
+
+        //TC02: Triangle
+        box = new Triangle(new Point(0, 0, 1), new Point(1, 0, 0), new Point(0, 2, 0)).getBoundingBox();
+        assertEquals(new Point(0, 0, 0), box.getMin(), "Wrong triangle box");
+        assertEquals(new Point(1, 2, 1), box.getMax(), "Wrong triangle box");
+
+        //TC03: Cylinder along y axis
+        box = new Cylinder(new Ray(new Point(1, 0, 0), new Vector(0, 1, 0)), 1d, 2d).getBoundingBox();
+        assertEquals(new Point(0, 0, -1), box.getMin(), "Wrong cylinder box");
+        assertEquals(new Point(2, 2, 1), box.getMax(), "Wrong cylinder box");
+
+        //TC04: Geometries is the union of the boxes
+        box = new Geometries(new Sphere(new Point(1, 2, 3), 1), new Sphere(new Point(-1, 0, 0), 1)).getBoundingBox();
+        assertEquals(new Point(-2, -1, -1), box.getMin(), "Wrong geometries box");
+        assertEquals(new Point(2, 3, 4), box.getMax(), "Wrong geometries box");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Infinite geometries have no box
+        assertNull(new Plane(new Point(0, 0, 0), new Vector(0, 0, 1)).getBoundingBox(), "Plane has a box");
+        assertNull(new Geometries(new Sphere(new Point(1, 2, 3), 1),
+                new Plane(new Point(0, 0, 0), new Vector(0, 0, 1))).getBoundingBox(), "Infinite geometries has a box");
+    }
+}
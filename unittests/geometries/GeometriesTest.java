@@ -1,6 +1,8 @@
 package geometries;
 
 import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -53,4 +55,131 @@ class GeometriesTest {
                 new Vector(1, 0, 0)));
         assertEquals(2, result.size(), "Wrong number of points");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Geometries#setBoxCulling(boolean)}.
+     */
+    @Test
+    void testBoxCulling() {
+        Geometries geos = new Geometries(
+                new Sphere(new Point(2, 0, 0.5), 1d),
+                new Triangle(new Point(5, 0, 0), new Point(6, 4, 0), new Point(10, 0, 2)),
+                new Plane(new Point(11, 0, 0), new Point(11, 5, 0), new Point(11, 0, 5)));
+        Ray ray = new Ray(new Point(10.5, 1.5, 1), new Vector(1, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: The ray misses the boxes of the sphere and the triangle, only the plane is tested exactly
+        assertEquals(1, geos.findIntersections(ray).size(), "Wrong number of points");
+        assertEquals(1, geos.getExactTests(), "Wrong number of exact tests");
+        assertEquals(2, geos.getCulledTests(), "Wrong number of saved tests");
+
+        //TC02: Without culling all the geometries are tested exactly, with the same result
+        geos.resetTestCounters();
+        geos.setBoxCulling(false);
+        assertEquals(1, geos.findIntersections(ray).size(), "Wrong number of points");
+        assertEquals(3, geos.getExactTests(), "Wrong number of exact tests");
+        assertEquals(0, geos.getCulledTests(), "Wrong number of saved tests");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#findClosestGeoIntersection(Ray)}.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        Geometries geos = new Geometries();
+
+        // =============== Boundary Values Tests ==================
+        //TC01: Empty collection
+        assertNull(geos.findClosestGeoIntersection(new Ray(new Point(2, 2, 2), new Vector(1, 1, 1))));
+
+        Sphere sphere = new Sphere(new Point(2, 0, 0.5), 1d);
+        Triangle triangle = new Triangle(new Point(5, 0, 0), new Point(6, 4, 0), new Point(10, 0, 2));
+        Plane plane = new Plane(new Point(11, 0, 0), new Point(11, 5, 0), new Point(11, 0, 5));
+        geos.add(plane, triangle, sphere);
+
+        //TC02: No shape is intersected
+        assertNull(geos.findClosestGeoIntersection(new Ray(new Point(3, 2, 2), new Vector(0, 1, 1))));
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC03: All shapes are intersected - the near point of the sphere is the closest
+        Intersectable.GeoPoint closest = geos.findClosestGeoIntersection(new Ray(new Point(0, 0.9, 0.5),
+                new Vector(1, 0, 0)));
+        assertEquals(sphere, closest.geometry, "Wrong closest geometry");
+        assertEquals(new Point(2 - Math.sqrt(1 - 0.81), 0.9, 0.5), closest.point, "Wrong closest point");
+
+        //TC04: The maximal distance leaves only the sphere
+        assertEquals(sphere, geos.findClosestGeoIntersection(new Ray(new Point(2, 0.9, 0.5),
+                new Vector(1, 0, 0)), 1).geometry, "Wrong closest geometry within distance");
+
+        //TC05: Ray starts after the sphere - the triangle is the closest
+        assertEquals(triangle, geos.findClosestGeoIntersection(new Ray(new Point(4, 1, 1),
+                new Vector(1, 0, 0))).geometry, "Wrong closest geometry");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#findTransparency(Ray, double, double)}.
+     */
+    @Test
+    void testFindTransparency() {
+        Geometries geos = new Geometries(
+                new Sphere(new Point(2, 0, 0.5), 1d).setMaterial(new Material().setkT(new Double3(0.5))),
+                new Triangle(new Point(5, 0, 0), new Point(6, 4, 0), new Point(10, 0, 2))
+                        .setMaterial(new Material().setkT(new Double3(0.8))),
+                new Plane(new Point(11, 0, 0), new Point(11, 5, 0), new Point(11, 0, 5)));
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Nothing blocks the ray
+        assertEquals(Double3.ONE, geos.findTransparency(new Ray(new Point(3, 2, 2), new Vector(0, 1, 1)),
+                Double.POSITIVE_INFINITY, 0.001), "Unblocked ray is shaded");
+
+        //TC02: Transparent occluders - both sphere intersections and the triangle
+        assertEquals(new Double3(0.5 * 0.5 * 0.8), geos.findTransparency(new Ray(new Point(0, 0.9, 0.5),
+                new Vector(1, 0, 0)), 10, 0.001), "Wrong transparency of transparent occluders");
+
+        //TC03: The opaque plane blocks the light
+        assertEquals(Double3.ZERO, geos.findTransparency(new Ray(new Point(0, 0.9, 0.5),
+                new Vector(1, 0, 0)), Double.POSITIVE_INFINITY, 0.001), "Opaque occluder doesn't block");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: The transparency drops below the minimal factor
+        assertEquals(Double3.ZERO, geos.findTransparency(new Ray(new Point(0, 0.9, 0.5),
+                new Vector(1, 0, 0)), 10, 0.3), "Transparency below minimal factor");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#findClosestHit(Ray, HitRecord)}.
+     */
+    @Test
+    void testFindClosestHit() {
+        Sphere sphere = new Sphere(new Point(2, 0, 0.5), 1d);
+        Triangle triangle = new Triangle(new Point(5, 0, 0), new Point(6, 4, 0), new Point(10, 0, 2));
+        Plane plane = new Plane(new Point(11, 0, 0), new Point(11, 5, 0), new Point(11, 0, 5));
+        Geometries geos = new Geometries(plane, triangle, sphere);
+        HitRecord hit = new HitRecord();
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: All shapes are intersected - the near point of the sphere is recorded
+        assertTrue(geos.findClosestHit(new Ray(new Point(0, 0.9, 0.5), new Vector(1, 0, 0)), hit), "No hit");
+        assertEquals(sphere, hit.geometry, "Wrong closest geometry");
+        assertEquals(2 - Math.sqrt(1 - 0.81), hit.t, 1e-10, "Wrong closest distance");
+
+        //TC02: The record keeps a closer hit of a previous query
+        assertFalse(geos.findClosestHit(new Ray(new Point(4, 1, 1), new Vector(1, 0, 0)), hit),
+                "Farther hit replaced the recorded one");
+        assertEquals(sphere, hit.geometry, "Recorded hit was changed");
+
+        //TC03: Triangle hit - barycentric coordinates of the hit point
+        hit.reset(Double.POSITIVE_INFINITY);
+        assertTrue(triangle.findClosestHit(new Ray(new Point(7, 1, 1), new Vector(0, 0, -1)), hit), "No hit");
+        Point p = new Point(5, 0, 0).add(new Vector(1, 4, 0).scale(hit.u)).add(new Vector(5, 0, 2).scale(hit.v));
+        assertEquals(7, p.getX(), 1e-10, "Wrong barycentric coordinates");
+        assertEquals(1, p.getY(), 1e-10, "Wrong barycentric coordinates");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Nothing within the maximal distance of the record
+        hit.reset(0.5);
+        assertFalse(geos.findClosestHit(new Ray(new Point(0, 0.9, 0.5), new Vector(1, 0, 0)), hit),
+                "Hit beyond the maximal distance");
+        assertNull(hit.geometry, "Hit beyond the maximal distance");
+    }
+}
@@ -0,0 +1,141 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing Instance Class
+ *
+ * @author Mordechy Cohen
+ */
+class InstanceTest {
+
+    /**
+     * Compares the closest intersections of two intersectables that should be the same surface in the scene
+     *
+     * @param expected the surface that is placed in the scene directly
+     * @param result   the instanced surface
+     * @param ray      the ray
+     */
+    private void assertSameHit(Intersectable expected, Intersectable result, Ray ray) {
+        GeoPoint expectedPoint = expected.findClosestGeoIntersection(ray);
+        GeoPoint resultPoint = result.findClosestGeoIntersection(ray);
+        assertEquals(expectedPoint == null, resultPoint == null, "Wrong hit for " + ray);
+        if (expectedPoint == null)
+            return;
+        assertEquals(expectedPoint.point, resultPoint.point, "Wrong point for " + ray);
+        assertEquals(expectedPoint.getNormal(), resultPoint.getNormal(), "Wrong normal for " + ray);
+
+        HitRecord expectedHit = new HitRecord(), resultHit = new HitRecord();
+        assertTrue(result.findClosestHit(ray, resultHit), "Wrong hit record for " + ray);
+        expected.findClosestHit(ray, expectedHit);
+        assertEquals(expectedHit.t, resultHit.t, 1e-9, "Wrong distance for " + ray);
+        assertEquals(expected.findGeoIntersections(ray).size(), result.findGeoIntersections(ray).size(),
+                "Wrong number of intersections for " + ray);
+    }
+
+    /**
+     * Test method for {@link geometries.Instance#findClosestHit(Ray, HitRecord)}.
+     */
+    @Test
+    void testFindIntersections() {
+        Transform transform = Transform.scaling(2)
+                .then(Transform.rotation(new Vector(1, 1, 1), 40))
+                .then(Transform.translation(new Vector(3, -1, -10)));
+        Point p0 = new Point(0, 0, 10);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Uniformly scaled sphere
+        Instance sphere = new Instance(new Sphere(new Point(0, 0, 0), 1), transform);
+        Sphere baked = new Sphere(new Point(3, -1, -10), 2);
+        for (int i = 0; i < 20; ++i)
+            for (int j = 0; j < 20; ++j)
+                assertSameHit(baked, sphere, new Ray(p0, new Vector(0.151 + i * 0.002, -0.049 - j * 0.002, -1)));
+
+        //TC02: Triangle that is stretched along one axis - the normal is not just rotated
+        Transform stretch = Transform.scaling(1, 3, 1).then(Transform.rotation(new Vector(0, 1, 0), 30));
+        Point a = new Point(0, 0, -5), b = new Point(4, 0, -6), c = new Point(0, 4, -4);
+        Instance triangle = new Instance(new Triangle(a, b, c), stretch);
+        Triangle bakedTriangle = new Triangle(stretch.apply(a), stretch.apply(b), stretch.apply(c));
+        Ray ray = new Ray(new Point(0, 0, 0), stretch.apply(new Point(1, 1, -5)).subtract(new Point(0, 0, 0)));
+        assertSameHit(bakedTriangle, triangle, ray);
+
+        //TC03: Transparency is the same
+        Geometry glass = new Sphere(new Point(0, 0, 0), 1).setMaterial(new Material().setkT(new Double3(0.5)));
+        Instance glassInstance = new Instance(glass, transform);
+        Geometry bakedGlass = new Sphere(new Point(3, -1, -10), 2).setMaterial(new Material().setkT(new Double3(0.5)));
+        ray = new Ray(p0, new Point(3.1, -1, -10).subtract(p0));
+        assertEquals(bakedGlass.findTransparency(ray, 100, 0.001), glassInstance.findTransparency(ray, 100, 0.001),
+                "Wrong transparency");
+        assertEquals(new Double3(0.25), glassInstance.findTransparency(ray, 100, 0.001), "Light passes two surfaces");
+        assertEquals(Double3.ONE, glassInstance.findTransparency(ray, 17, 0.001), "Light is before the instance");
+
+        //TC04: Instance of an instance
+        Instance nested = new Instance(new Instance(new Sphere(new Point(0, 0, 0), 1), Transform.scaling(2)),
+                Transform.translation(new Vector(3, -1, -10)));
+        assertSameHit(baked, nested, new Ray(p0, new Vector(0.2, -0.1, -1)));
+
+        //TC05: An opaque instance that blocks a shadow ray is its occluder in the scene
+        Intersectable.takeOccluder();
+        assertEquals(Double3.ZERO, sphere.findTransparency(ray, 100, 0.001), "Opaque instance lets light through");
+        assertSame(sphere, Intersectable.takeOccluder(), "Wrong occluder");
+        assertNull(Intersectable.takeOccluder(), "Occluder is not cleared");
+        assertEquals(new Double3(0.25), glassInstance.findTransparency(ray, 100, 0.001), "Light passes two surfaces");
+        assertNull(Intersectable.takeOccluder(), "Transparent instance is an occluder");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Ray that misses the instance
+        assertNull(sphere.findClosestGeoIntersection(new Ray(p0, new Vector(1, 0, 0))), "Ray misses the instance");
+        //TC12: Hit beyond the maximal distance
+        assertNull(sphere.findClosestGeoIntersection(ray, 17), "Hit is beyond the maximal distance");
+    }
+
+    /**
+     * Test method for {@link geometries.Instance#Instance(Intersectable, Transform)} - many instances of a shared
+     * collection in a hierarchy find the same intersections as the copies of the collection
+     */
+    @Test
+    void testSharedChild() {
+        Random random = new Random(8035);
+        Intersectable[] triangles = new Intersectable[50];
+        for (int i = 0; i < triangles.length; ++i) {
+            Point p = new Point(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2);
+            triangles[i] = new Triangle(p, p.add(new Vector(0.5, 0, 0)), p.add(new Vector(0, 0.5, 0.1)));
+        }
+        Geometries child = new Geometries(triangles).setBVH(true);
+
+        Geometries instances = new Geometries().setBVH(true);
+        Geometries copies = new Geometries();
+        for (int i = 0; i < 100; ++i) {
+            Transform transform = Transform.rotation(new Vector(0, 1, 1), random.nextDouble() * 360)
+                    .then(Transform.translation(new Vector(random.nextDouble() * 60 - 30,
+                            random.nextDouble() * 60 - 30, -random.nextDouble() * 60)));
+            instances.add(new Instance(child, transform));
+            for (Intersectable item : triangles) {
+                Triangle triangle = (Triangle) item;
+                copies.add(new Triangle(transform.apply(triangle.vertices.get(0)),
+                        transform.apply(triangle.vertices.get(1)), transform.apply(triangle.vertices.get(2))));
+            }
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Rays through the field of instances
+        Point p0 = new Point(0, 0, 50);
+        for (int i = 0; i < 40; ++i)
+            for (int j = 0; j < 40; ++j) {
+                Ray ray = new Ray(p0, new Vector(i * 0.03 - 0.6, j * 0.03 - 0.6, -1));
+                GeoPoint expected = copies.findClosestGeoIntersection(ray);
+                GeoPoint result = instances.findClosestGeoIntersection(ray);
+                assertEquals(expected == null, result == null, "Wrong hit for " + ray);
+                if (expected != null) {
+                    assertEquals(expected.point, result.point, "Wrong point for " + ray);
+                    assertEquals(expected.getNormal(), result.getNormal(), "Wrong normal for " + ray);
+                }
+            }
+    }
+}
@@ -0,0 +1,63 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing MortonCodes Class
+ *
+ * @author Mordechy Cohen
+ */
+class MortonCodesTest {
+
+    /**
+     * Test method for {@link geometries.MortonCodes#encode(double, double, double)}.
+     */
+    @Test
+    void testEncode() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Every three bits are the halves of the next octant on x, y, z
+        assertEquals(0b110_001L << 57, MortonCodes.encode(0.5, 0.5, 0.25), "Wrong octants");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Corners of the box
+        assertEquals(0, MortonCodes.encode(0, 0, 0), "Wrong code of the lowest corner");
+        assertEquals((1L << 63) - 1, MortonCodes.encode(1, 1, 1), "Wrong code of the highest corner");
+    }
+
+    /**
+     * Test method for {@link geometries.MortonCodes#sort(long[], int[])}.
+     */
+    @Test
+    void testSort() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Big array, that is sorted in parallel chunks
+        Random random = new Random(7364);
+        int n = 100_000;
+        long[] codes = new long[n];
+        int[] values = new int[n];
+        for (int i = 0; i < n; ++i) {
+            codes[i] = random.nextLong() >>> 1;
+            values[i] = i;
+        }
+        long[] expected = codes.clone();
+        long[] original = codes.clone();
+        Arrays.sort(expected);
+        MortonCodes.sort(codes, values);
+        assertArrayEquals(expected, codes, "Codes are not sorted");
+        for (int i = 0; i < n; ++i)
+            assertEquals(original[values[i]], codes[i], "Value moved without its code");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Equal codes keep their order
+        codes = new long[]{5, 3, 5, 3, 5};
+        values = new int[]{0, 1, 2, 3, 4};
+        MortonCodes.sort(codes, values);
+        assertArrayEquals(new long[]{3, 3, 5, 5, 5}, codes, "Codes are not sorted");
+        assertArrayEquals(new int[]{1, 3, 0, 2, 4}, values, "Sort is not stable");
+    }
+}
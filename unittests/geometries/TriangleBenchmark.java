@@ -0,0 +1,97 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+
+/**
+ * Benchmark of Möller–Trumbore against the plane and side test of {@link Triangle}, on random triangles and rays.
+ * It is not a unit test (the times depend on the machine), so it is run by its main method:
+ * both the closest hit query and the intersection point query are timed, after a warm up of the JIT.
+ * The unit test that both algorithms find the same hits is {@link TriangleTest}.
+ *
+ * @author Mordechy Cohen
+ */
+public class TriangleBenchmark {
+    private static final int ROUNDS = 8; //the first half of the rounds warm up the JIT
+
+    private TriangleBenchmark() {
+    }
+
+    /**
+     * Times the two algorithms and prints the times
+     *
+     * @param args number of triangles and number of rays, 1000 and 1000 by default
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int m = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        Random random = new Random(8035);
+        Triangle[] classic = new Triangle[n], mollerTrumbore = new Triangle[n];
+        for (int i = 0; i < n; ++i) {
+            Point p1 = new Point(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, -5 - random.nextDouble());
+            Point p2 = p1.add(new Vector(random.nextDouble() + 0.5, random.nextDouble(), 0.3));
+            Point p3 = p1.add(new Vector(random.nextDouble(), random.nextDouble() + 0.5, -0.3));
+            classic[i] = new Triangle(p1, p2, p3);
+            mollerTrumbore[i] = new Triangle(p1, p2, p3).setMollerTrumbore(true);
+        }
+        Ray[] rays = new Ray[m];
+        for (int i = 0; i < m; ++i)
+            rays[i] = new Ray(new Point(0, 0, 0),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+
+        double queries = (double) n * m * (ROUNDS / 2);
+        System.out.printf("closest hit: side test %.1f ns, Möller–Trumbore %.1f ns per query%n",
+                timeHits(classic, rays) / queries, timeHits(mollerTrumbore, rays) / queries);
+        System.out.printf("intersection point: side test %.1f ns, Möller–Trumbore %.1f ns per query%n",
+                timePoints(classic, rays) / queries, timePoints(mollerTrumbore, rays) / queries);
+    }
+
+    /**
+     * Time of the closest hit queries of all the rays with all the triangles, after a warm up
+     *
+     * @param triangles the triangles
+     * @param rays      the rays
+     * @return the time in nanoseconds
+     */
+    private static long timeHits(Triangle[] triangles, Ray[] rays) {
+        HitRecord hit = new HitRecord();
+        long start = 0;
+        for (int round = 0; round < ROUNDS; ++round) {
+            if (round == ROUNDS / 2)
+                start = System.nanoTime();
+            for (Ray ray : rays)
+                for (Triangle triangle : triangles) {
+                    hit.reset(Double.POSITIVE_INFINITY);
+                    triangle.findClosestHit(ray, hit);
+                }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Time of the intersection point queries of all the rays with all the triangles, after a warm up
+     *
+     * @param triangles the triangles
+     * @param rays      the rays
+     * @return the time in nanoseconds
+     */
+    private static long timePoints(Triangle[] triangles, Ray[] rays) {
+        long start = 0, found = 0;
+        for (int round = 0; round < ROUNDS; ++round) {
+            if (round == ROUNDS / 2)
+                start = System.nanoTime();
+            for (Ray ray : rays)
+                for (Triangle triangle : triangles)
+                    if (triangle.findClosestGeoIntersection(ray) != null)
+                        ++found;
+        }
+        long time = System.nanoTime() - start;
+        //the hits are used, so the queries are not removed by the JIT
+        if (found < 0)
+            throw new IllegalStateException();
+        return time;
+    }
+}
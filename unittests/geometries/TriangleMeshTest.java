@@ -0,0 +1,264 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing TriangleMesh Class
+ *
+ * @author Mordechy Cohen
+ */
+class TriangleMeshTest {
+
+    /**
+     * Unit cube [0, 1]^3 - vertex i is at (i & 1, i >> 1 & 1, i >> 2 & 1)
+     */
+    private final TriangleMesh cube = new TriangleMesh(
+            new double[]{0, 0, 0, 1, 0, 0, 0, 1, 0, 1, 1, 0, 0, 0, 1, 1, 0, 1, 0, 1, 1, 1, 1, 1},
+            new int[]{0, 2, 1, 1, 2, 3, 4, 5, 6, 5, 7, 6, 0, 1, 4, 1, 5, 4,
+                    2, 6, 3, 3, 6, 7, 0, 4, 2, 2, 4, 6, 1, 3, 5, 3, 7, 5});
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#TriangleMesh(double[], int[])}.
+     */
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Correct mesh
+        assertEquals(12, cube.getFacesCount(), "Wrong number of faces");
+        assertEquals(8, cube.getVerticesCount(), "Wrong number of vertices");
+
+        //TC02: Face refers to a missing vertex
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 0, 1, 0},
+                new int[]{0, 1, 3}), "Constructed a mesh with a missing vertex");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Partial face
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 0, 1, 0},
+                new int[]{0, 1}), "Constructed a mesh with a partial face");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findIntersections(Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Ray crosses the cube
+        List<Point> result = cube.findIntersections(new Ray(new Point(0.5, 0.3, -1), new Vector(0, 0, 1)));
+        assertEquals(2, result.size(), "Wrong number of points");
+        assertTrue(result.contains(new Point(0.5, 0.3, 0)) && result.contains(new Point(0.5, 0.3, 1)),
+                "Wrong intersection points");
+
+        //TC02: Ray misses the cube
+        assertNull(cube.findIntersections(new Ray(new Point(2, 0.3, -1), new Vector(0, 0, 1))),
+                "Ray out of the cube");
+
+        //TC03: Ray starts inside the cube
+        assertEquals(List.of(new Point(0.5, 0.3, 1)),
+                cube.findIntersections(new Ray(new Point(0.5, 0.3, 0.5), new Vector(0, 0, 1))), "Wrong point");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Ray through the diagonal edge between the two bottom faces - there is no crack
+        Intersectable.GeoPoint closest = cube.findClosestGeoIntersection(new Ray(new Point(0.5, 0.5, -1),
+                new Vector(0, 0, 1)));
+        assertEquals(new Point(0.5, 0.5, 0), closest.point, "Ray through an edge");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#getNormal(Intersectable.GeoPoint)}.
+     */
+    @Test
+    void testGetNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Normal of the face that was hit
+        Intersectable.GeoPoint gp = cube.findClosestGeoIntersection(new Ray(new Point(0.2, 0.7, -1),
+                new Vector(0, 0, 1)));
+        assertEquals(new Vector(0, 0, -1), gp.getNormal(), "Wrong normal of the face");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#getNormal(Point)}.
+     */
+    @Test
+    void testGetNormalOfPoint() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Point on a face
+        assertEquals(new Vector(0, 0, 1), cube.getNormal(new Point(0.3, 0.6, 1)), "Wrong normal of a point on the top");
+        assertEquals(new Vector(1, 0, 0), cube.getNormal(new Point(1, 0.2, 0.7)), "Wrong normal of a point on a side");
+
+        //TC02: Point off the mesh - the normal of the nearest face
+        assertEquals(new Vector(0, -1, 0), cube.getNormal(new Point(0.4, -3, 0.5)), "Wrong normal of the nearest face");
+        assertEquals(new Vector(0, 1, 0), cube.getNormal(new Point(0.5, 0.9, 0.5)), "Wrong normal inside the cube");
+
+        //TC03: Nearest face of a bigger mesh, against the distances of all the faces
+        Random random = new Random(8035);
+        int n = 300;
+        double[] vertices = new double[9 * n];
+        int[] faces = new int[3 * n];
+        for (int i = 0; i < 3 * n; ++i) {
+            faces[i] = i;
+            //small faces around random centers
+            if (i % 3 == 0)
+                for (int j = 0; j < 3; ++j)
+                    vertices[3 * i + j] = random.nextDouble() * 20 - 10;
+            else
+                for (int j = 0; j < 3; ++j)
+                    vertices[3 * i + j] = vertices[3 * (i - i % 3) + j] + random.nextDouble() * 2 - 1;
+        }
+        TriangleMesh mesh = new TriangleMesh(vertices, faces);
+        for (int k = 0; k < 50; ++k) {
+            Point p = new Point(random.nextDouble() * 24 - 12, random.nextDouble() * 24 - 12,
+                    random.nextDouble() * 24 - 12);
+            double nearest = distance(mesh, mesh.nearestFace(p), p);
+            for (int i = 0; i < n; ++i)
+                assertTrue(nearest <= distance(mesh, i, p) + 0.2, "Face " + i + " is nearer to " + p);
+        }
+    }
+
+    /**
+     * Distance of a point from a face, by sampling the face on a grid of barycentric coordinates
+     *
+     * @param mesh the mesh
+     * @param face index of the face
+     * @param p    the point
+     * @return the distance, up to the step of the grid
+     */
+    private static double distance(TriangleMesh mesh, int face, Point p) {
+        Point a = mesh.getVertex(face, 0), b = mesh.getVertex(face, 1), c = mesh.getVertex(face, 2);
+        int steps = 30;
+        double result = Double.POSITIVE_INFINITY;
+        for (int i = 0; i <= steps; ++i)
+            for (int j = 0; i + j <= steps; ++j) {
+                double u = (double) i / steps, v = (double) j / steps, w = 1 - u - v;
+                Point q = new Point(a.getX() * w + b.getX() * u + c.getX() * v, a.getY() * w + b.getY() * u + c.getY() * v,
+                        a.getZ() * w + b.getZ() * u + c.getZ() * v);
+                result = Math.min(result, q.distance(p));
+            }
+        return result;
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findClosestHit(Ray, HitRecord)} -
+     * the mesh finds the same closest hits as separate triangles, with every build of its hierarchy
+     */
+    @Test
+    void testFindClosestHit() {
+        Random random = new Random(5782);
+        //more faces than a sub-tree that is built by a single thread
+        int n = 3000;
+        double[] vertices = randomFaces(random, n);
+        int[] faces = new int[3 * n];
+        for (int i = 0; i < 3 * n; ++i)
+            faces[i] = i;
+        Geometries triangles = triangles(vertices, n);
+        TriangleMesh mesh = new TriangleMesh(vertices, faces);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Rays in a grid
+        assertSameHits(triangles, mesh, "SAH mesh");
+
+        //TC02: Hierarchy built from Morton codes
+        TriangleMesh linear = new TriangleMesh(vertices, faces, BVHBuilder.LBVH);
+        assertSameHits(triangles, linear, "LBVH mesh");
+        assertEquals(mesh.getFacesCount(), linear.getBVHStatistics().getItems(), "Faces missing from the tree");
+
+        //TC03: Mesh in a hierarchy - the traversal of the mesh continues on the stacks of the outer one
+        Geometries scene = new Geometries(mesh, new Sphere(new Point(0, 0, 60), 1)).setBVH(true);
+        assertSameHits(triangles, scene, "Mesh in a hierarchy");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#refit()}.
+     */
+    @Test
+    void testRefit() {
+        Random random = new Random(7364);
+        int n = 2000;
+        double[] vertices = randomFaces(random, n);
+        int[] faces = new int[3 * n];
+        for (int i = 0; i < 3 * n; ++i)
+            faces[i] = i;
+        TriangleMesh mesh = new TriangleMesh(vertices, faces);
+        Geometries scene = new Geometries(mesh).setBVH(true);
+        BVHStatistics built = mesh.getBVHStatistics();
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Small moves - the boxes are refitted and the tree is kept
+        for (int i = 0; i < vertices.length; ++i)
+            vertices[i] += random.nextDouble() * 0.2 - 0.1;
+        assertFalse(scene.refit(), "Small moves must not rebuild the tree");
+        BVHStatistics refitted = mesh.getBVHStatistics();
+        assertEquals(built.getNodes(), refitted.getNodes(), "Refit changed the tree");
+        assertEquals(built.getBuildTime(), refitted.getBuildTime(), "Refit changed the build time");
+        assertTrue(refitted.getRefitTime() > 0, "Refit time was not measured");
+        assertSameHits(triangles(vertices, n), scene, "Refitted mesh");
+
+        //TC02: The faces are scrambled - the tree is too expensive and is built again
+        for (int i = 0; i < vertices.length; ++i)
+            vertices[i] = random.nextDouble() * 20 - 10;
+        assertTrue(mesh.refit(), "A scrambled tree must be built again");
+        assertEquals(0, mesh.getBVHStatistics().getRefitTime(), "A new tree was not refitted");
+        assertSameHits(triangles(vertices, n), mesh, "Built again");
+    }
+
+    /**
+     * Creates the vertices of random small faces, three separate vertices for every face
+     *
+     * @param random the random numbers
+     * @param n      number of faces
+     * @return the vertices
+     */
+    private static double[] randomFaces(Random random, int n) {
+        double[] vertices = new double[9 * n];
+        for (int i = 0; i < n; ++i) {
+            double x = random.nextDouble() * 20 - 10, y = random.nextDouble() * 20 - 10, z = -random.nextDouble() * 20;
+            double[] face = {x, y, z, x + 2, y + random.nextDouble(), z + 0.5, x + random.nextDouble(), y + 2, z - 0.5};
+            System.arraycopy(face, 0, vertices, 9 * i, 9);
+        }
+        return vertices;
+    }
+
+    /**
+     * Creates a separate triangle for every face
+     *
+     * @param vertices the vertices, three for every face
+     * @param n        number of faces
+     * @return the triangles, without a hierarchy
+     */
+    private static Geometries triangles(double[] vertices, int n) {
+        Geometries triangles = new Geometries();
+        for (int i = 0, v = 0; i < n; ++i, v += 9)
+            triangles.add(new Triangle(new Point(vertices[v], vertices[v + 1], vertices[v + 2]),
+                    new Point(vertices[v + 3], vertices[v + 4], vertices[v + 5]),
+                    new Point(vertices[v + 6], vertices[v + 7], vertices[v + 8])));
+        return triangles;
+    }
+
+    /**
+     * Checks that the closest hits of rays in a grid are the same as the closest hits with the triangles
+     *
+     * @param triangles the triangles
+     * @param result    the intersectable to check
+     * @param message   what is checked
+     */
+    private static void assertSameHits(Geometries triangles, Intersectable result, String message) {
+        HitRecord expectedHit = new HitRecord(), resultHit = new HitRecord();
+        for (int i = 0; i < 50; ++i)
+            for (int j = 0; j < 50; ++j) {
+                Ray ray = new Ray(new Point(0, 0, 30), new Vector(i * 0.02 - 0.5, j * 0.02 - 0.5, -1));
+                expectedHit.reset(Double.POSITIVE_INFINITY);
+                resultHit.reset(Double.POSITIVE_INFINITY);
+                assertEquals(triangles.findClosestHit(ray, expectedHit), result.findClosestHit(ray, resultHit),
+                        message + ": wrong hit for " + ray);
+                assertEquals(expectedHit.t, resultHit.t, 1e-9, message + ": wrong distance for " + ray);
+            }
+    }
+}
@@ -6,6 +6,7 @@ import primitives.Ray;
 import primitives.Vector;
 
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -81,4 +82,111 @@ class TriangleTest {
         assertNull(result, "Wrong number of points");
     }
 
-}
\ No newline at end of file
+    /**
+     * Test method for {@link geometries.Triangle#setMollerTrumbore(boolean)} -
+     * the same intersections as the side test, with the barycentric coordinates of the hit.
+     */
+    @Test
+    void testMollerTrumbore() {
+        Triangle triangle = new Triangle(
+                new Point(1, 1, 0),
+                new Point(2, 2, 0),
+                new Point(3, 1, 0)).setMollerTrumbore(true);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Inside triangle
+        assertEquals(List.of(new Point(2, 1.5, 0)), triangle.findIntersections(new Ray(new Point(2, 0.5, -1),
+                new Vector(0, 1, 1))), "Ray crosses plane in wrong spot");
+        HitRecord hit = new HitRecord();
+        assertTrue(triangle.findClosestHit(new Ray(new Point(2, 1.5, -1), new Vector(0, 0, 1)), hit),
+                "No hit inside the triangle");
+        assertEquals(1, hit.t, 1e-10, "Wrong distance");
+        assertEquals(0.5, hit.u, 1e-10, "Wrong weight of the second vertex");
+        assertEquals(0.25, hit.v, 1e-10, "Wrong weight of the third vertex");
+
+        //TC02: Outside against edge
+        assertNull(triangle.findIntersections(new Ray(new Point(1, 1, -1), new Vector(0, 1, 1))),
+                "Wrong number of points");
+
+        //TC03: Outside against vertex
+        assertNull(triangle.findIntersections(new Ray(new Point(2, 1, -1), new Vector(0, 2, 1))),
+                "Wrong number of points");
+
+        //TC04: Triangle behind the ray
+        assertNull(triangle.findIntersections(new Ray(new Point(2, 1.5, 1), new Vector(0, 0, 1))),
+                "Wrong number of points");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: On edge
+        assertNull(triangle.findIntersections(new Ray(new Point(2, 0, -1), new Vector(0, 1, 1))),
+                "Wrong number of points");
+
+        //TC12: In vertex
+        assertNull(triangle.findIntersections(new Ray(new Point(1, 0, -1), new Vector(0, 1, 1))),
+                "Wrong number of points");
+
+        //TC13: On edge's continuation
+        assertNull(triangle.findIntersections(new Ray(new Point(0, 0, -1), new Vector(0, 1, 1))),
+                "Wrong number of points");
+
+        //TC14: Ray parallel to the triangle
+        assertNull(triangle.findIntersections(new Ray(new Point(2, 0, 1), new Vector(0, 1, 0))),
+                "Wrong number of points");
+
+        //TC15: Intersection beyond the maximal distance
+        assertNull(triangle.findGeoIntersections(new Ray(new Point(2, 1.5, -1), new Vector(0, 0, 1)), 0.5),
+                "Intersection beyond the maximal distance");
+    }
+
+    /**
+     * Test method for {@link Triangle#setMollerTrumbore(boolean)} -
+     * the same hits as the plane and side test, on random triangles and rays.
+     */
+    @Test
+    void testMollerTrumboreRandom() {
+        Random random = new Random(8035);
+        int n = 200;
+        Triangle[] classic = new Triangle[n], mollerTrumbore = new Triangle[n];
+        for (int i = 0; i < n; ++i) {
+            Point p1 = new Point(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, -5 - random.nextDouble());
+            Point p2 = p1.add(new Vector(random.nextDouble() + 0.5, random.nextDouble(), 0.3));
+            Point p3 = p1.add(new Vector(random.nextDouble(), random.nextDouble() + 0.5, -0.3));
+            classic[i] = new Triangle(p1, p2, p3);
+            mollerTrumbore[i] = new Triangle(p1, p2, p3).setMollerTrumbore(true);
+        }
+        Ray[] rays = new Ray[100];
+        for (int i = 0; i < rays.length; ++i)
+            rays[i] = new Ray(new Point(0, 0, 0),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Same hits
+        HitRecord expected = new HitRecord(), result = new HitRecord();
+        for (Ray ray : rays)
+            for (int i = 0; i < n; ++i) {
+                expected.reset(Double.POSITIVE_INFINITY);
+                result.reset(Double.POSITIVE_INFINITY);
+                assertEquals(classic[i].findClosestHit(ray, expected), mollerTrumbore[i].findClosestHit(ray, result),
+                        "Different hit of " + ray);
+                assertEquals(expected.t, result.t, 1e-9, "Different distance for " + ray);
+                assertEquals(expected.u, result.u, 1e-9, "Different u for " + ray);
+                assertEquals(expected.v, result.v, 1e-9, "Different v for " + ray);
+            }
+
+        //TC02: The intersection points of both algorithms carry the barycentric coordinates of the hit
+        for (Ray ray : rays)
+            for (int i = 0; i < n; ++i) {
+                Intersectable.GeoPoint classicPoint = classic[i].findClosestGeoIntersection(ray);
+                Intersectable.GeoPoint point = mollerTrumbore[i].findClosestGeoIntersection(ray);
+                assertEquals(classicPoint == null, point == null, "Different intersection of " + ray);
+                if (point == null)
+                    continue;
+                result.reset(Double.POSITIVE_INFINITY);
+                mollerTrumbore[i].findClosestHit(ray, result);
+                assertEquals(result.u, point.u, 1e-9, "Wrong u of the intersection for " + ray);
+                assertEquals(result.v, point.v, 1e-9, "Wrong v of the intersection for " + ray);
+                assertEquals(result.u, classicPoint.u, 1e-9, "Wrong u of the side test intersection for " + ray);
+                assertEquals(result.v, classicPoint.v, 1e-9, "Wrong v of the side test intersection for " + ray);
+            }
+    }
+}
@@ -0,0 +1,133 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing UniformGrid Class
+ *
+ * @author Mordechy Cohen
+ */
+class UniformGridTest {
+
+    /**
+     * Sphere that counts its intersection tests
+     */
+    private static class CountingSphere extends Sphere {
+        int tests = 0;
+
+        CountingSphere(Point center, double radius) {
+            super(center, radius);
+        }
+
+        @Override
+        protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+            ++tests;
+            return super.findClosestHitHelper(ray, hit);
+        }
+
+        @Override
+        public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+            ++tests;
+            return super.findGeoIntersectionsHelper(ray, maxDistance);
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.UniformGrid#UniformGrid(Intersectable...)}.
+     */
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Spheres in a cube - about cubic cells, a few for every sphere
+        Random random = new Random(8035);
+        Intersectable[] spheres = new Intersectable[1000];
+        for (int i = 0; i < spheres.length; ++i)
+            spheres[i] = new Sphere(new Point(random.nextDouble() * 100, random.nextDouble() * 100,
+                    random.nextDouble() * 100), 1);
+        int[] resolution = new UniformGrid(spheres).getResolution();
+        assertEquals(resolution[0], resolution[1], "Cells are not cubes");
+        assertEquals(resolution[0], resolution[2], "Cells are not cubes");
+        assertTrue(resolution[0] >= 15 && resolution[0] <= 17, "Wrong resolution " + resolution[0]);
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Flat grid of triangles in the xy plane
+        resolution = new UniformGrid(new Triangle(new Point(0, 0, 0), new Point(10, 0, 0), new Point(0, 10, 0)),
+                new Triangle(new Point(10, 10, 0), new Point(20, 10, 0), new Point(10, 20, 0))).getResolution();
+        assertEquals(1, resolution[2], "A flat axis must have a single cell");
+        assertTrue(resolution[0] > 1 && resolution[1] > 1, "Flat grid is not divided");
+    }
+
+    /**
+     * Test method for {@link geometries.UniformGrid#findClosestHit(Ray, HitRecord)} - the grid finds
+     * the same intersections as the linear scan
+     */
+    @Test
+    void testFindIntersections() {
+        Random random = new Random(7364);
+        Intersectable[] geometries = new Intersectable[1001];
+        for (int i = 0; i < 1000; ++i)
+            geometries[i] = new Sphere(new Point(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50,
+                    -random.nextDouble() * 100), 0.5 + random.nextDouble() * 2)
+                    .setMaterial(new Material().setkT(new Double3(i % 2 == 0 ? 0 : 0.8)));
+        geometries[1000] = new Plane(new Point(0, 0, -150), new Vector(0, 0, 1));
+        Geometries linear = new Geometries(geometries);
+        UniformGrid grid = new UniformGrid(geometries);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Rays from out of the grid and from inside it
+        HitRecord expected = new HitRecord(), result = new HitRecord();
+        for (Point p0 : new Point[]{new Point(0, 0, 100), new Point(1, 2, -50)})
+            for (int i = 0; i < 40; ++i)
+                for (int j = 0; j < 40; ++j) {
+                    Ray ray = new Ray(p0, new Vector(i * 0.05 - 1, j * 0.05 - 1, -1));
+                    expected.reset(Double.POSITIVE_INFINITY);
+                    result.reset(Double.POSITIVE_INFINITY);
+                    assertEquals(linear.findClosestHit(ray, expected), grid.findClosestHit(ray, result),
+                            "Wrong hit for " + ray);
+                    assertSame(expected.geometry, result.geometry, "Wrong closest geometry for " + ray);
+                    assertEquals(expected.t, result.t, 1e-9, "Wrong distance for " + ray);
+
+                    List<GeoPoint> points = linear.findGeoIntersections(ray, 120);
+                    List<GeoPoint> gridPoints = grid.findGeoIntersections(ray, 120);
+                    assertEquals(points == null ? 0 : points.size(), gridPoints == null ? 0 : gridPoints.size(),
+                            "Wrong number of intersections for " + ray);
+                    assertEquals(linear.findTransparency(ray, 120, 0.001), grid.findTransparency(ray, 120, 0.001),
+                            "Wrong transparency for " + ray);
+                }
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Ray along a border of the cells
+        Ray ray = new Ray(new Point(-50, -50, 1), new Vector(0, 0, -1));
+        assertEquals(linear.findClosestGeoIntersection(ray), grid.findClosestGeoIntersection(ray), "Ray on a border");
+    }
+
+    /**
+     * Test method for {@link geometries.UniformGrid#findClosestHit(Ray, HitRecord)} - mailboxing
+     */
+    @Test
+    void testMailboxing() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: A big sphere over many cells is tested once per ray
+        CountingSphere big = new CountingSphere(new Point(0, 0, 0), 20);
+        Intersectable[] geometries = new Intersectable[200];
+        geometries[0] = big;
+        Random random = new Random(5782);
+        for (int i = 1; i < geometries.length; ++i)
+            geometries[i] = new Sphere(new Point(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50,
+                    random.nextDouble() * 100 - 50), 1);
+        UniformGrid grid = new UniformGrid(geometries);
+        HitRecord hit = new HitRecord();
+        //the walk goes over several cells of the sphere before it passes the hit
+        grid.findClosestHit(new Ray(new Point(-60, 0.5, 0.5), new Vector(1, 0, 0)), hit);
+        assertEquals(1, big.tests, "Sphere was tested more than once");
+        grid.findGeoIntersections(new Ray(new Point(-60, 0.5, 0.5), new Vector(1, 0, 0)));
+        assertEquals(2, big.tests, "Sphere was tested more than once");
+    }
+}
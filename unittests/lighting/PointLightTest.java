@@ -0,0 +1,93 @@
+package lighting;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Point;
+import primitives.Vector;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing PointLight Class
+ *
+ * @author Mordechy Cohen
+ */
+class PointLightTest {
+
+    /**
+     * Test method for {@link lighting.PointLight#getSampleL(Point, int)}.
+     */
+    @Test
+    void testGetSampleL() {
+        PointLight light = new PointLight(new Color(100, 100, 100), new Point(0, 10, 0), 2);
+        Point p = new Point(3, -20, 4);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Default lattice - about 700 samples, all of them on the disk of the light
+        int count = light.getSampleCount();
+        assertTrue(count > 650 && count < 750, "Wrong number of samples " + count);
+        List<Vector> list = light.getListL(p);
+        assertEquals(count, list.size(), "List and samples differ");
+        for (int i = 0; i < count; ++i) {
+            Vector l = light.getSampleL(p, i);
+            assertEquals(1, l.length(), 1e-12, "Direction is not normalized");
+            assertEquals(list.get(i), l, "List and samples differ");
+            //go back from the point along the direction to the height of the samples - it must be in the light
+            if (i < count - 1) {
+                Point sample = p.add(l.scale(-(p.getY() - 10.1) / l.getY()));
+                assertTrue(sample.distance(new Point(0, 10, 0)) <= 2 + 1e-9, "Sample is out of the light");
+            }
+        }
+
+        //TC02: Configured number of samples
+        light.setSoftShadowSamples(100);
+        assertTrue(light.getSampleCount() > 80 && light.getSampleCount() < 120,
+                "Wrong number of samples " + light.getSampleCount());
+
+        // =============== Boundary Values Tests ==================
+        //TC11: The last sample is the center
+        assertEquals(light.getL(p), light.getSampleL(p, light.getSampleCount() - 1), "Last sample is not the center");
+        //TC12: Single sample is a hard shadow
+        assertEquals(1, light.setSoftShadowSamples(1).getSampleCount(), "Wrong number of samples");
+        //TC13: Light without a radius
+        assertEquals(1, new PointLight(new Color(100, 100, 100), new Point(0, 10, 0)).getSampleCount(),
+                "Light without radius has samples");
+        assertThrows(IllegalArgumentException.class, () -> light.setSoftShadowSamples(0), "No samples");
+    }
+
+    /**
+     * Test method for {@link lighting.PointLight#countSamples(int, int, int, int)}.
+     */
+    @Test
+    void testCountSamples() {
+        PointLight light = new PointLight(new Color(100, 100, 100), new Point(0, 10, 0), 2).setSoftShadowSamples(200);
+        Point p = new Point(3, -20, 4);
+        int k = light.getSampleGrid();
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Every lattice point is counted once, and the samples are the lattice points in the disk by rows
+        assertEquals(light.getSampleCount() - 1, light.countSamples(0, 0, k, k), "Wrong number of samples");
+        int sample = 0;
+        for (int i = 0; i < k; ++i)
+            for (int j = 0; j < k; ++j)
+                if (light.countSamples(i, j, i + 1, j + 1) == 1)
+                    assertEquals(light.getSampleL(p, sample++), light.getGridL(p, i, j), "Wrong lattice point");
+        assertEquals(light.getSampleCount() - 1, sample, "Samples are not on the lattice");
+
+        //TC02: Quarters of the lattice
+        int m = k / 2;
+        assertEquals(light.countSamples(0, 0, k, k), light.countSamples(0, 0, m, m) + light.countSamples(m, 0, k, m)
+                + light.countSamples(0, m, m, k) + light.countSamples(m, m, k, k), "Quarters differ from the lattice");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Empty rectangle
+        assertEquals(0, light.countSamples(3, 3, 3, k), "Empty rectangle has samples");
+        //TC12: Corner of the lattice is out of the disk
+        assertEquals(0, light.countSamples(0, 0, 1, 1), "Corner has samples");
+        //TC13: Light without a radius has no lattice
+        assertEquals(0, new PointLight(new Color(100, 100, 100), new Point(0, 10, 0)).getSampleGrid(),
+                "Light without radius has a lattice");
+    }
+}
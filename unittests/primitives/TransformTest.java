@@ -0,0 +1,53 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing Transform Class
+ *
+ * @author Mordechy Cohen
+ */
+class TransformTest {
+
+    /**
+     * Test method for {@link primitives.Transform#apply(primitives.Point)}.
+     */
+    @Test
+    void testApply() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Scaling, rotation and translation one after the other
+        Transform transform = Transform.scaling(2)
+                .then(Transform.rotation(new Vector(0, 0, 1), 90))
+                .then(Transform.translation(new Vector(1, 2, 3)));
+        assertEquals(new Point(1, 4, 3), transform.apply(new Point(1, 0, 0)), "Wrong transformed point");
+        assertEquals(new Vector(0, 2, 0), transform.apply(new Vector(1, 0, 0)), "Wrong transformed direction");
+
+        //TC02: The inverse moves the point back
+        Point p = new Point(3, -1, 7);
+        assertEquals(p, transform.applyInverse(transform.apply(p)), "Wrong inverse point");
+        Vector v = new Vector(-2, 5, 1);
+        assertEquals(v, transform.applyInverse(transform.apply(v)), "Wrong inverse direction");
+
+        //TC03: Scaling by zero
+        assertThrows(IllegalArgumentException.class, () -> Transform.scaling(1, 0, 1), "Scaling by zero");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Identity
+        assertEquals(p, Transform.IDENTITY.apply(p), "Identity moved the point");
+    }
+
+    /**
+     * Test method for {@link primitives.Transform#applyToNormal(primitives.Vector)}.
+     */
+    @Test
+    void testApplyToNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Non-uniform scaling keeps the normal orthogonal to the surface
+        Transform transform = Transform.scaling(1, 4, 1).then(Transform.rotation(new Vector(1, 1, 0), 30));
+        Vector tangent = new Vector(1, -1, 0), normal = new Vector(1, 1, 0);
+        assertEquals(0, transform.apply(tangent).dotProduct(transform.applyToNormal(normal)), 1e-10,
+                "Transformed normal is not orthogonal to the surface");
+    }
+}
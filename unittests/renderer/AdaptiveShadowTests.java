@@ -0,0 +1,77 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the adaptive soft shadows of {@link RayTracerBasic} - the shadows must be the same as the shadows of
+ * the whole lattice of the light, with fewer shadow rays where the light is not in penumbra
+ *
+ * @author Mordechy Cohen
+ */
+class AdaptiveShadowTests {
+    private final RayTracerBasic full;
+    private final RayTracerBasic adaptive;
+
+    /**
+     * An opaque sphere halfway between a plane and a light with a radius of 20, over the plane.
+     * The occluder cache counts every shadow ray as a hit or a miss, so it counts the shadow rays.
+     */
+    AdaptiveShadowTests() {
+        Scene scene = new Scene("Adaptive shadows scene");
+        scene.geometries.add(new Sphere(new Point(0, 0, 0), 30).setMaterial(new Material().setKd(0.5)),
+                new Plane(new Point(0, -100, 0), new Vector(0, 1, 0)).setMaterial(new Material().setKd(0.5)));
+        scene.lights.add(new PointLight(new Color(800, 800, 800), new Point(0, 100, 0), 20).setKl(1E-3));
+        full = new RayTracerBasic(scene);
+        adaptive = new RayTracerBasic(scene).setAdaptiveShadows(true);
+    }
+
+    /**
+     * Traces a ray to a point of the plane with both tracers, compares the colors and returns the shadow rays
+     *
+     * @param x place of the point on the plane
+     * @return the number of shadow rays of the adaptive tracer and of the full tracer
+     */
+    private long[] shadowRays(double x) {
+        Ray ray = new Ray(new Point(x, -90, 100), new Vector(0, -1, -10));
+        full.resetOccluderCounters();
+        adaptive.resetOccluderCounters();
+        Color expected = full.traceRay(ray), result = adaptive.traceRay(ray);
+        assertEquals(expected.getRed(), result.getRed(), expected.getRed() * 0.02 + 1e-10, "Wrong shadow at " + x);
+        assertEquals(expected.getGreen(), result.getGreen(), expected.getGreen() * 0.02 + 1e-10, "Wrong shadow at " + x);
+        assertEquals(expected.getBlue(), result.getBlue(), expected.getBlue() * 0.02 + 1e-10, "Wrong shadow at " + x);
+        return new long[]{adaptive.getOccluderHits() + adaptive.getOccluderMisses(),
+                full.getOccluderHits() + full.getOccluderMisses()};
+    }
+
+    /**
+     * Test method for {@link RayTracerBasic#setAdaptiveShadows(boolean)}.
+     */
+    @Test
+    void testAdaptiveShadows() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Fully lit point - only the probed corners are traced
+        long[] lit = shadowRays(150);
+        assertTrue(lit[0] * 10 < lit[1], "Too many shadow rays in light: " + lit[0] + " of " + lit[1]);
+
+        //TC02: Point in umbra - only the probed corners are traced
+        long[] umbra = shadowRays(0);
+        assertTrue(umbra[0] * 10 < umbra[1], "Too many shadow rays in umbra: " + umbra[0] + " of " + umbra[1]);
+        assertEquals(0, adaptive.traceRay(new Ray(new Point(0, -90, 100), new Vector(0, -1, -10))).getRed(), 1e-10,
+                "The point is not in umbra");
+
+        //TC03: Point in penumbra - the squares on the edge of the shadow are divided down to single samples
+        long[] penumbra = shadowRays(60);
+        assertTrue(penumbra[0] > lit[0], "Penumbra was not divided");
+        assertTrue(penumbra[0] < penumbra[1], "Too many shadow rays in penumbra: " + penumbra[0] + " of " + penumbra[1]);
+        double litRed = full.traceRay(new Ray(new Point(150, -90, 100), new Vector(0, -1, -10))).getRed();
+        double penumbraRed = full.traceRay(new Ray(new Point(60, -90, 100), new Vector(0, -1, -10))).getRed();
+        assertTrue(penumbraRed > 0 && penumbraRed < litRed * 0.9, "The point is not in penumbra");
+    }
+}
@@ -0,0 +1,273 @@
+package renderer;
+
+import geometries.*;
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the bounding volume hierarchy of {@link Geometries} finds exactly the same
+ * intersections (and the same closest intersection) as the linear scan, on the scenes of the renderer tests
+ *
+ * @author Mordechy Cohen
+ */
+class BVHTests {
+
+    /**
+     * Casts a ray through every pixel of the camera and compares the intersections of both
+     * collections of the same geometries - with and without the hierarchy
+     *
+     * @param camera     the camera of the scene
+     * @param geometries the geometries of the scene
+     */
+    private void compareWithLinearScan(Camera camera, Intersectable... geometries) {
+        compareWithLinearScan(camera, BVHBuilder.SAH, geometries);
+    }
+
+    /**
+     * Casts a ray through every pixel of the camera and compares the intersections of both
+     * collections of the same geometries - with a hierarchy of the given builder and without a hierarchy
+     *
+     * @param camera     the camera of the scene
+     * @param builder    the build algorithm of the hierarchy
+     * @param geometries the geometries of the scene
+     */
+    private void compareWithLinearScan(Camera camera, BVHBuilder builder, Intersectable... geometries) {
+        Geometries linear = new Geometries(geometries);
+        Geometries bvh = new Geometries(geometries).setBVH(true).setBVHBuilder(builder);
+        final int n = 50;
+        for (int i = 0; i < n; ++i)
+            for (int j = 0; j < n; ++j) {
+                Ray ray = camera.constructRayThroughPixel(n, n, j, i);
+                List<GeoPoint> expected = linear.findGeoIntersections(ray);
+                assertEquals(sorted(ray, expected), sorted(ray, bvh.findGeoIntersections(ray)),
+                        "BVH intersections differ from linear scan for " + ray);
+                GeoPoint closest = ray.findClosestGeoPoint(expected);
+                assertEquals(closest, linear.findClosestGeoIntersection(ray), "Wrong closest intersection for " + ray);
+                assertEquals(closest, bvh.findClosestGeoIntersection(ray), "Wrong BVH closest intersection for " + ray);
+                HitRecord hit = new HitRecord();
+                assertEquals(closest != null, bvh.findClosestHit(ray, hit), "Wrong BVH closest hit for " + ray);
+                assertEquals(closest == null ? null : closest.geometry, hit.geometry, "Wrong BVH closest hit for " + ray);
+                assertEquals(linear.findTransparency(ray, Double.POSITIVE_INFINITY, 0.001),
+                        bvh.findTransparency(ray, Double.POSITIVE_INFINITY, 0.001), "Wrong BVH transparency for " + ray);
+            }
+    }
+
+    /**
+     * Sorts the intersections by their distance from the ray head
+     *
+     * @param ray    the ray
+     * @param points intersections, may be null
+     * @return sorted intersections, or null
+     */
+    private List<GeoPoint> sorted(Ray ray, List<GeoPoint> points) {
+        if (points == null)
+            return null;
+        List<GeoPoint> result = new LinkedList<>(points);
+        result.sort(Comparator.comparingDouble(gp -> gp.point.distance(ray.getP0())));
+        return result;
+    }
+
+    /**
+     * Scene of {@link RenderTests#basicRenderTwoColorTest()}
+     */
+    @Test
+    void basicRenderScene() {
+        compareWithLinearScan(new Camera(Point.ZERO, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                        .setViewPlaneDistance(100).setViewPlaneSize(500, 500), //
+                new Sphere(new Point(0, 0, -100), 50d),
+                new Triangle(new Point(-100, 0, -100), new Point(0, 100, -100), new Point(-100, 100, -100)),
+                new Triangle(new Point(-100, 0, -100), new Point(0, -100, -100), new Point(-100, -100, -100)),
+                new Triangle(new Point(100, 0, -100), new Point(0, -100, -100), new Point(100, -100, -100)));
+    }
+
+    /**
+     * Scene of {@link ReflectionRefractionTests#twoSpheresOnMirrors()}
+     */
+    @Test
+    void twoSpheresOnMirrorsScene() {
+        compareWithLinearScan(new Camera(new Point(0, 0, 10000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                        .setViewPlaneSize(2500, 2500).setViewPlaneDistance(10000), //
+                new Sphere(new Point(-950, -900, -1000), 400d),
+                new Sphere(new Point(-950, -900, -1000), 200d),
+                new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500), new Point(670, 670, 3000)),
+                new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500),
+                        new Point(-1500, -1500, -2000)));
+    }
+
+    /**
+     * Scene of {@link ShadowTests#trianglesSphere()}
+     */
+    @Test
+    void trianglesSphereScene() {
+        compareWithLinearScan(new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                        .setViewPlaneSize(200, 200).setViewPlaneDistance(1000), //
+                new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135), new Point(75, 75, -150)),
+                new Triangle(new Point(-150, -150, -115), new Point(-70, 70, -140), new Point(75, 75, -150)),
+                new Sphere(new Point(0, 0, -115), 30d));
+    }
+
+    /**
+     * Scene of {@link FinalShow#finalShow()} - infinite planes are kept out of the hierarchy
+     */
+    @Test
+    void finalShowScene() {
+        compareWithLinearScan(new Camera(new Point(100, 100, 1500), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                        .setViewPlaneSize(200, 200).setViewPlaneDistance(1000), //
+                new Plane(new Point(-150, -150, -200), new Point(150, -150, -200), new Point(75, 75, -200)),
+                new Plane(new Point(0, 300, 10), new Point(0, 300, -200), new Point(0, 0, -200)),
+                new Plane(new Point(0, 0, 10), new Point(300, 0, -200), new Point(0, 0, -200)),
+                new Plane(new Point(300, 0, 20), new Point(200, 0, -200), new Point(200, 300, -200)),
+                new Sphere(new Point(100, 100, -150), 30));
+    }
+
+    /**
+     * Many small random spheres and triangles, so that the hierarchy is deep
+     */
+    @Test
+    void randomSoupScene() {
+        Random random = new Random(5782);
+        Intersectable[] geometries = new Intersectable[2000];
+        for (int i = 0; i < geometries.length; ++i) {
+            Point p = new Point(random.nextDouble() * 200 - 100, random.nextDouble() * 200 - 100,
+                    -random.nextDouble() * 200);
+            geometries[i] = (i % 2 == 0 ? new Sphere(p, 1 + random.nextDouble() * 4)
+                    : new Triangle(p, p.add(new Vector(5, random.nextDouble(), 1)),
+                    p.add(new Vector(random.nextDouble(), 5, -1))))
+                    .setMaterial(new Material().setkT(new Double3(i % 3 == 0 ? 0 : 0.9)));
+        }
+        compareWithLinearScan(new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setViewPlaneSize(200, 200).setViewPlaneDistance(1000), geometries);
+
+        //nested collections with their own hierarchy
+        Geometries nested = new Geometries(geometries[0], geometries[1], geometries[2]).setBVH(true);
+        compareWithLinearScan(new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setViewPlaneSize(200, 200).setViewPlaneDistance(1000), nested, geometries[3], geometries[4]);
+    }
+
+    /**
+     * Test method for {@link Geometries#getBVHStatistics()} - a tree that is built in parallel is complete and
+     * much cheaper than the linear scan
+     */
+    @Test
+    void buildStatistics() {
+        Random random = new Random(8035);
+        Geometries geometries = new Geometries(new Plane(new Point(0, 0, -300), new Vector(0, 0, 1))).setBVH(true);
+        for (int i = 0; i < 5000; ++i)
+            geometries.add(new Sphere(new Point(random.nextDouble() * 200 - 100, random.nextDouble() * 200 - 100,
+                    -random.nextDouble() * 200), 1 + random.nextDouble()));
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Statistics of the hierarchy
+        BVHStatistics statistics = geometries.getBVHStatistics();
+        assertEquals(5000, statistics.getItems(), "Every sphere must be in a leaf");
+        assertEquals(1, statistics.getUnbounded(), "The plane must be kept out of the tree");
+        assertEquals(2 * statistics.getLeaves() - 1, statistics.getNodes(), "Every inner node must have two children");
+        assertTrue(statistics.getDepth() > 10 && statistics.getDepth() < 40, "Wrong depth " + statistics.getDepth());
+        assertTrue(statistics.getSahCost() < 100, "The tree is not much cheaper than the linear scan " + statistics);
+
+        //TC02: No hierarchy
+        assertNull(new Geometries().getBVHStatistics(), "Statistics without a hierarchy");
+    }
+
+    /**
+     * The random soup of {@link #randomSoupScene()} with the linear (Morton code) hierarchy,
+     * and with many intersectables in the same place
+     */
+    @Test
+    void linearBuilderScene() {
+        Random random = new Random(5782);
+        Intersectable[] geometries = new Intersectable[3000];
+        for (int i = 0; i < geometries.length; ++i) {
+            Point p = i >= 2500 ? new Point(10, 10, -50) : new Point(random.nextDouble() * 200 - 100,
+                    random.nextDouble() * 200 - 100, -random.nextDouble() * 200);
+            geometries[i] = (i % 2 == 0 ? new Sphere(p, 1 + random.nextDouble() * 4)
+                    : new Triangle(p, p.add(new Vector(5, random.nextDouble(), 1)),
+                    p.add(new Vector(random.nextDouble(), 5, -1))))
+                    .setMaterial(new Material().setkT(new Double3(i % 3 == 0 ? 0 : 0.9)));
+        }
+        compareWithLinearScan(new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setViewPlaneSize(200, 200).setViewPlaneDistance(1000), BVHBuilder.LBVH, geometries);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: The linear tree is complete, and not much more expensive than the SAH tree
+        BVHStatistics linear = new Geometries(geometries).setBVH(true).setBVHBuilder(BVHBuilder.LBVH)
+                .getBVHStatistics();
+        BVHStatistics sah = new Geometries(geometries).setBVH(true).getBVHStatistics();
+        assertEquals(3000, linear.getItems(), "Every intersectable must be in a leaf");
+        assertEquals(2 * linear.getLeaves() - 1, linear.getNodes(), "Every inner node must have two children");
+        assertTrue(linear.getSahCost() < 2 * sah.getSahCost(), "Linear tree is too expensive: " + linear + ", " + sah);
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#refit()} - instances that move between frames
+     */
+    @Test
+    void refitScene() {
+        Random random = new Random(7364);
+        Intersectable sphere = new Sphere(new Point(0, 0, 0), 1);
+        Instance[] instances = new Instance[2000];
+        Vector[] places = new Vector[instances.length];
+        for (int i = 0; i < instances.length; ++i) {
+            places[i] = new Vector(random.nextDouble() * 200 - 100, random.nextDouble() * 200 - 100,
+                    -random.nextDouble() * 200 - 1);
+            instances[i] = new Instance(sphere, Transform.translation(places[i]));
+        }
+        Geometries geometries = new Geometries(instances).setBVH(true);
+        BVHStatistics built = geometries.getBVHStatistics();
+        Camera camera = new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setViewPlaneSize(200, 200).setViewPlaneDistance(1000);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Small moves - the boxes are refitted and the tree is kept
+        for (int i = 0; i < instances.length; ++i)
+            instances[i].setTransform(Transform.translation(places[i].add(new Vector(random.nextDouble() * 2 - 1,
+                    random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1))));
+        assertFalse(geometries.refit(), "Small moves must not rebuild the tree");
+        BVHStatistics refitted = geometries.getBVHStatistics();
+        assertEquals(built.getNodes(), refitted.getNodes(), "Refit changed the tree");
+        assertEquals(built.getBuildTime(), refitted.getBuildTime(), "Refit changed the build time");
+        assertEquals(0, built.getRefitTime(), "Refit time of a tree that was not refitted");
+        assertTrue(refitted.getRefitTime() > 0, "Refit time was not measured");
+        assertTrue(refitted.getSahCost() < 1.5 * built.getSahCost(), "Refitted tree is too expensive " + refitted);
+        assertSameClosest(camera, new Geometries(instances), geometries);
+
+        //TC02: Every instance jumps to another place - the tree is built again
+        for (Instance instance : instances)
+            instance.setTransform(Transform.translation(new Vector(random.nextDouble() * 200 - 100,
+                    random.nextDouble() * 200 - 100, -random.nextDouble() * 200 - 1)));
+        assertTrue(geometries.refit(), "A scrambled tree must be built again");
+        assertSameClosest(camera, new Geometries(instances), geometries);
+
+        //TC03: Threshold below 1
+        assertThrows(IllegalArgumentException.class, () -> geometries.setRebuildThreshold(0.5), "Threshold below 1");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Refit before the first build
+        assertFalse(new Geometries(instances).setBVH(true).refit(), "Nothing to refit");
+    }
+
+    /**
+     * Casts a ray through every pixel of the camera and compares the closest intersections of two collections
+     *
+     * @param camera   the camera of the scene
+     * @param expected the collection without a hierarchy
+     * @param result   the collection with a hierarchy
+     */
+    private void assertSameClosest(Camera camera, Geometries expected, Geometries result) {
+        final int n = 50;
+        for (int i = 0; i < n; ++i)
+            for (int j = 0; j < n; ++j) {
+                Ray ray = camera.constructRayThroughPixel(n, n, j, i);
+                assertEquals(expected.findClosestGeoIntersection(ray), result.findClosestGeoIntersection(ray),
+                        "Wrong closest intersection for " + ray);
+            }
+    }
+}
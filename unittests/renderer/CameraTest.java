@@ -1,11 +1,14 @@
 package renderer;
 
 import org.junit.jupiter.api.Test;
+import geometries.Sphere;
+import primitives.Color;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
+import scene.Scene;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Testing Camera Class
@@ -56,4 +59,175 @@ class CameraTest {
 
     }
 
+    /**
+     * Image writer that keeps the written colors, so that renders can be compared
+     */
+    private static class RecordingImageWriter extends ImageWriter {
+        final int[] pixels;
+
+        RecordingImageWriter(int nX, int nY) {
+            super("recording", nX, nY);
+            pixels = new int[nX * nY];
+        }
+
+        @Override
+        public void writePixel(int xIndex, int yIndex, Color color) {
+            pixels[yIndex * getNx() + xIndex] = color.getColor().getRGB();
+        }
+    }
+
+    /**
+     * Camera of a small sphere scene, with adaptive supersampling (that has no random samples)
+     *
+     * @param imageWriter the image writer
+     * @return the camera
+     */
+    private Camera adaptiveCamera(ImageWriter imageWriter) {
+        Scene scene = new Scene("Async scene");
+        scene.geometries.add(new Sphere(new Point(0, 0, -100), 50d).setEmission(new Color(java.awt.Color.BLUE)));
+        return new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setViewPlaneDistance(100).setViewPlaneSize(200, 200) //
+                .setRayTracer(new RayTracerBasic(scene)).setAdaptiveSSAA(2).setImageWriter(imageWriter);
+    }
+
+    /**
+     * Test method for {@link Camera#renderImageAsync()}.
+     */
+    @Test
+    void renderImageAsync() {
+        RecordingImageWriter expected = new RecordingImageWriter(40, 40);
+        adaptiveCamera(expected).renderImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: Two jobs at once - the adaptive job is not affected by the other one, and has its own progress
+        RecordingImageWriter adaptive = new RecordingImageWriter(40, 40);
+        RenderJob adaptiveJob = adaptiveCamera(adaptive).setMultithreading(2).renderImageAsync();
+        RenderJob otherJob = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setViewPlaneDistance(100).setViewPlaneSize(200, 200).setSSAA(4) //
+                .setRayTracer(new RayTracerBasic(new Scene("Other scene"))) //
+                .setImageWriter(new RecordingImageWriter(30, 30)).setMultithreading(2).renderImageAsync();
+
+        assertSame(adaptive, adaptiveJob.getImage().join(), "Wrong image of the job");
+        otherJob.getImage().join();
+        assertArrayEquals(expected.pixels, adaptive.pixels, "Concurrent render changed the image");
+        assertEquals(1600, adaptiveJob.getProgress().getPixelsDone(), "Wrong progress of the job");
+        assertEquals(100, adaptiveJob.getProgress().getPercentage(), 1e-10, "Wrong progress of the job");
+        assertEquals(900, otherJob.getProgress().getTotalPixels(), "Wrong progress of the other job");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: Missing resources are reported when the job is started
+        assertThrows(UnsupportedOperationException.class, () -> new Camera(ZERO_POINT, new Vector(0, 0, -1),
+                new Vector(0, 1, 0)).renderImageAsync(), "Job without resources was started");
+    }
+
+    /**
+     * Test method for {@link Camera#renderImage()} - without supersampling the rays through the centers of
+     * the pixels are made a row or a tile at a time
+     */
+    @Test
+    void renderPixelCenters() {
+        Scene scene = new Scene("Center scene");
+        scene.geometries.add(new Sphere(new Point(0, 0, -100), 50d).setEmission(new Color(java.awt.Color.BLUE)));
+        RayTracerBasic rayTracer = new RayTracerBasic(scene);
+        Camera camera = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setViewPlaneDistance(100).setViewPlaneSize(200, 200).setRayTracer(rayTracer);
+        //the color of the ray through the center of every pixel
+        int[] expected = new int[40 * 30];
+        for (int i = 0; i < 30; ++i)
+            for (int j = 0; j < 40; ++j)
+                expected[i * 40 + j] = rayTracer.traceRay(camera.constructRayThroughPixel(40, 30, j, i))
+                        .getColor().getRGB();
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: Single thread, a row at a time
+        RecordingImageWriter single = new RecordingImageWriter(40, 30);
+        camera.setImageWriter(single).renderImage();
+        assertArrayEquals(expected, single.pixels, "Wrong colors of the pixel centers in a single thread");
+
+        // EP02: Tiles that don't divide the image
+        RecordingImageWriter tiles = new RecordingImageWriter(40, 30);
+        camera.setImageWriter(tiles).setTileSize(7).setMultithreading(2).renderImageAsync().getImage().join();
+        assertArrayEquals(expected, tiles.pixels, "Wrong colors of the pixel centers in tiles");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: A single sample is not supersampling, no samples is an error
+        RecordingImageWriter one = new RecordingImageWriter(40, 30);
+        camera.setImageWriter(one).setSSAA(1).renderImageAsync().getImage().join();
+        assertArrayEquals(expected, one.pixels, "A single sample is not the pixel center");
+        assertThrows(IllegalArgumentException.class, () -> camera.setSSAA(0), "Zero samples");
+    }
+
+    /**
+     * Test method for {@link Pixel#getCornerCacheHitRate()}.
+     */
+    @Test
+    void cornerCacheHitRate() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: Empty scene - no pixel is divided, every corner of a tile is traced once
+        RenderJob job = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setViewPlaneDistance(100).setViewPlaneSize(200, 200).setAdaptiveSSAA(2) //
+                .setRayTracer(new RayTracerBasic(new Scene("Empty scene"))) //
+                .setImageWriter(new RecordingImageWriter(40, 40)).setTileSize(16).renderImageAsync();
+        job.getImage().join();
+        Pixel progress = job.getProgress();
+        assertEquals(4 * 1600, progress.getCornerCacheLookups(), "Wrong number of corner lookups");
+        // tiles of 16, 16 and 8 pixels on each axis have 17 + 17 + 9 corners
+        assertEquals(4 * 1600 - 43 * 43, progress.getCornerCacheHits(), "Wrong number of corner cache hits");
+        assertEquals(1 - 43 * 43 / 6400d, progress.getCornerCacheHitRate(), 1e-10, "Wrong corner cache hit rate");
+
+        // EP02: Single thread - every row keeps the corners it shares with the previous row
+        Camera camera = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setViewPlaneDistance(100).setViewPlaneSize(200, 200).setAdaptiveSSAA(2) //
+                .setRayTracer(new RayTracerBasic(new Scene("Empty scene"))) //
+                .setImageWriter(new RecordingImageWriter(40, 40)).renderImage();
+        progress = camera.getLastRender().getProgress();
+        assertEquals(4 * 1600, progress.getCornerCacheLookups(), "Wrong number of corner lookups in a single thread");
+        assertEquals(4 * 1600 - 41 * 41, progress.getCornerCacheHits(), "Wrong number of hits in a single thread");
+    }
+
+    /**
+     * Test method for {@link Camera#setVarianceSSAA(double, int)}.
+     */
+    @Test
+    void varianceSSAA() {
+        Scene scene = new Scene("Variance scene");
+        scene.geometries.add(new Sphere(new Point(0, 0, -100), 50d).setEmission(new Color(java.awt.Color.BLUE)));
+        Camera camera = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setViewPlaneDistance(100).setViewPlaneSize(200, 200).setSampler(new SobolSampler()) //
+                .setRayTracer(new RayTracerBasic(scene)).setVarianceSSAA(0.01, 64);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: Flat pixels take one batch of samples, the pixels on the edge of the sphere take more
+        RecordingImageWriter first = new RecordingImageWriter(40, 40);
+        camera.setImageWriter(first).renderImage();
+        SampleBuffer buffer = camera.getLastRender().getSampleBuffer();
+        assertEquals(8, buffer.getCount(20, 20), "Wrong number of samples inside the sphere");
+        assertEquals(8, buffer.getCount(0, 0), "Wrong number of samples of the background");
+        // the edge of the sphere crosses the row of the center at 100 - 100 * tan(30) = 42.3 on the view plane
+        assertTrue(buffer.getCount(8, 20) > 8, "The edge of the sphere has no extra samples");
+        assertTrue(buffer.getTotalCount() < 1600 * 16, "The samples are not spent on the edge");
+
+        // EP02: The samples are seeded by the pixel, so the render is the same every time
+        RecordingImageWriter second = new RecordingImageWriter(40, 40);
+        camera.setImageWriter(second).setMultithreading(2).renderImageAsync().getImage().join();
+        assertArrayEquals(first.pixels, second.pixels, "Variance driven render is not deterministic");
+
+        // EP03: The camera is changed and starts another job while the job runs - the job keeps its own settings
+        RecordingImageWriter third = new RecordingImageWriter(40, 40);
+        RenderJob job = camera.setImageWriter(third).renderImageAsync();
+        RenderJob other = camera.setVarianceSSAA(0.5, 16).setSampler(null) //
+                .setImageWriter(new RecordingImageWriter(20, 20)).renderImageAsync();
+        job.getImage().join();
+        other.getImage().join();
+        assertArrayEquals(first.pixels, third.pixels, "Changing the camera changed the running job");
+        assertNotSame(job.getSampleBuffer(), other.getSampleBuffer(), "The jobs share a sample buffer");
+        assertEquals(buffer.getTotalCount(), job.getSampleBuffer().getTotalCount(), "Wrong samples of the job");
+        assertEquals(buffer.getCount(8, 20), job.getSampleBuffer().getCount(8, 20), "Wrong samples of the job");
+        assertEquals(400, other.getProgress().getTotalPixels(), "Wrong progress of the other job");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: Bad parameters
+        assertThrows(IllegalArgumentException.class, () -> camera.setVarianceSSAA(0, 64), "Zero target error");
+        assertThrows(IllegalArgumentException.class, () -> camera.setVarianceSSAA(0.01, 1), "Single sample");
+    }
 }
@@ -0,0 +1,90 @@
+package renderer;
+
+import geometries.HitRecord;
+import geometries.Intersectable.GeoPoint;
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Micro benchmark of the lazy normal of {@link GeoPoint} - counts how many intersections of a sphere
+ * are created in a frame, and for how many of them a normal (one {@link Vector#normalize()} each) is calculated
+ *
+ * @author Mordechy Cohen
+ */
+class LazyNormalTests {
+
+    /**
+     * Sphere that counts its intersections and its normal calculations
+     */
+    private static class CountingSphere extends Sphere {
+        long intersections = 0;
+        long normals = 0;
+
+        CountingSphere(Point center, double radius) {
+            super(center, radius);
+        }
+
+        @Override
+        public Vector getNormal(Point point) {
+            ++normals;
+            return super.getNormal(point);
+        }
+
+        @Override
+        public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+            List<GeoPoint> result = super.findGeoIntersectionsHelper(ray, maxDistance);
+            if (result != null)
+                intersections += result.size();
+            return result;
+        }
+
+        @Override
+        protected boolean findClosestHitHelper(Ray ray, HitRecord hit) {
+            boolean result = super.findClosestHitHelper(ray, hit);
+            if (result)
+                ++intersections;
+            return result;
+        }
+    }
+
+    /**
+     * A transparent sphere that casts a shadow on two triangles - the far hits and the shadow hits of the sphere
+     * don't need a normal
+     */
+    @Test
+    void normalsPerFrame() {
+        CountingSphere sphere = new CountingSphere(new Point(0, 0, -115), 30);
+        sphere.setEmission(new Color(java.awt.Color.BLUE))
+                .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30).setkT(new Double3(0.5)));
+
+        Scene scene = new Scene("Lazy normal scene")
+                .setAmbientLight(new AmbientLight(new Color(java.awt.Color.WHITE), new Double3(0.15)));
+        scene.geometries.add(sphere,
+                new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135), new Point(75, 75, -150)) //
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60)), //
+                new Triangle(new Point(-150, -150, -115), new Point(-70, 70, -140), new Point(75, 75, -150)) //
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60)));
+        scene.lights.add(new PointLight(new Color(700, 400, 400), new Point(40, 40, 115)).setKl(4E-4).setKq(2E-5));
+
+        new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setViewPlaneSize(200, 200).setViewPlaneDistance(1000) //
+                .setImageWriter(new ImageWriter("lazy normal", 100, 100)) //
+                .setRayTracer(new RayTracerBasic(scene)).setSampler(new StratifiedSampler()) //
+                .renderImage();
+
+        assertTrue(sphere.normals > 0, "The sphere was not shaded");
+        //the shadow hits and the far hits of the sphere are not shaded, so less than half of the intersections
+        //need a normal
+        assertTrue(sphere.normals * 2 < sphere.intersections,
+                "Normals are calculated for unshaded intersections: " + sphere.normals + " of " + sphere.intersections);
+    }
+}
@@ -0,0 +1,54 @@
+package renderer;
+
+import geometries.Instance;
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the occluder cache of {@link RayTracerBasic} - the shadows must be the same with and without the cache,
+ * and the shadow rays in the umbra are stopped by the cached occluders
+ *
+ * @author Mordechy Cohen
+ */
+class OccluderCacheTests {
+
+    /**
+     * An opaque sphere and an opaque instanced sphere over a plane, with a transparent triangle between them
+     */
+    @Test
+    void sameShadows() {
+        Scene scene = new Scene("Occluder cache scene")
+                .setAmbientLight(new AmbientLight(new Color(java.awt.Color.WHITE), new Double3(0.15)));
+        Material material = new Material().setKd(0.5).setKs(0.5).setShininess(30);
+        scene.geometries.add(new Sphere(new Point(-30, -30, -100), 25).setMaterial(material),
+                new Instance(new Sphere(new Point(0, 0, 0), 1).setMaterial(material),
+                        Transform.scaling(20).then(Transform.translation(new Vector(40, 30, -120)))),
+                new Triangle(new Point(-80, 60, -140), new Point(80, 60, -140), new Point(0, -20, -140))
+                        .setMaterial(new Material().setKd(0.5).setkT(new Double3(0.5))),
+                new Plane(new Point(0, 0, -200), new Vector(0, 0, 1)).setMaterial(new Material().setKd(0.5)));
+        scene.lights.add(new SpotLight(new Color(700, 400, 400), new Point(0, 0, 100), new Vector(0, 0, -1), 10)
+                .setKl(4E-4).setKq(2E-5));
+
+        RayTracerBasic cached = new RayTracerBasic(scene);
+        RayTracerBasic uncached = new RayTracerBasic(scene).setOccluderCache(false);
+        Point p0 = new Point(0, 0, 1000);
+        for (int i = 0; i < 50; ++i)
+            for (int j = 0; j < 50; ++j) {
+                Ray ray = new Ray(p0, new Vector(i * 4 - 99.5, j * 4 - 99.5, -1000));
+                assertEquals(uncached.traceRay(ray).getColor(), cached.traceRay(ray).getColor(), "Wrong color for " + ray);
+            }
+
+        assertTrue(cached.getOccluderHits() > 0, "The cached occluders are not used");
+        assertEquals(0, uncached.getOccluderHits() + uncached.getOccluderMisses(), "Cache is used when it is off");
+        cached.resetOccluderCounters();
+        assertEquals(0, cached.getOccluderHits(), "Counters are not reset");
+    }
+}
@@ -0,0 +1,87 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing RayGenerator Class
+ *
+ * @author Mordechy Cohen
+ */
+class RayGeneratorTest {
+    static final Point ZERO_POINT = new Point(0, 0, 0);
+    private final Camera camera = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, -1, 0))
+            .setViewPlaneDistance(10).setViewPlaneSize(8, 6);
+    private final RayGenerator generator = new RayGenerator(camera.getP0(), camera.getvTo(), camera.getvUp(),
+            camera.getvRight(), 10, 8, 6, 4, 3);
+
+    /**
+     * Test method for {@link RayGenerator#constructPixelRay(int, int)}.
+     */
+    @Test
+    void testConstructPixelRay() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: Same rays as the camera for every pixel
+        for (int i = 0; i < 3; ++i)
+            for (int j = 0; j < 4; ++j) {
+                assertEquals(camera.constructRayThroughPixel1(4, 3, j, i), generator.constructPixelRay(j, i),
+                        "Bad ray of pixel " + j + "," + i);
+            }
+    }
+
+    /**
+     * Test method for {@link RayGenerator#constructPixelRays(int, int, int, int)}.
+     */
+    @Test
+    void testConstructPixelRays() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: Same rays as one at a time for a tile, row by row
+        Ray[] rays = generator.constructPixelRays(1, 1, 4, 3);
+        assertEquals(6, rays.length, "Wrong number of rays");
+        for (int i = 1; i < 3; ++i)
+            for (int j = 1; j < 4; ++j)
+                assertEquals(generator.constructPixelRay(j, i), rays[(i - 1) * 3 + j - 1], "Bad ray of pixel " + j + "," + i);
+
+        // =============== Boundary Values Tests ==================
+        // BV01: Empty region
+        assertEquals(0, generator.constructPixelRays(2, 0, 2, 3).length, "Rays of an empty region");
+    }
+
+    /**
+     * Test method for {@link RayGenerator#constructRay(double, double)}.
+     */
+    @Test
+    void testConstructRay() {
+        // =============== Boundary Values Tests ==================
+        // BV01: Top left corner of the view plane (the camera looks at -z with -y up, so its right is -x)
+        assertEquals(new Ray(ZERO_POINT, new Vector(4, -3, -10)), generator.constructRay(0, 0), "Bad corner ray");
+
+        // BV02: Bottom right corner of the view plane
+        assertEquals(new Ray(ZERO_POINT, new Vector(-4, 3, -10)), generator.constructRay(4, 3), "Bad corner ray");
+    }
+
+    /**
+     * Test method for {@link RayGenerator#constructSampleRays(int, int, int, Sampler)}.
+     */
+    @Test
+    void testConstructSampleRays() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: All the samples pass through the pixel (pixel 1,2 is x in [0, 2], y in [1, 3] on the plane),
+        // with random places and with every sampler
+        Sampler[] samplers = {null, new StratifiedSampler(), new HaltonSampler(), new SobolSampler(),
+                new BlueNoiseSampler()};
+        for (Sampler sampler : samplers) {
+            Ray[] rays = generator.constructSampleRays(1, 2, 64, sampler);
+            assertEquals(64, rays.length, "Wrong number of samples");
+            for (Ray ray : rays) {
+                Point p = ray.getPoint(-10 / ray.getDir().getZ());
+                assertTrue(p.getX() >= -1e-10 && p.getX() <= 2 + 1e-10 && p.getY() >= 1 - 1e-10 && p.getY() <= 3 + 1e-10,
+                        "Sample out of the pixel " + p);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing SampleBuffer Class
+ *
+ * @author Mordechy Cohen
+ */
+class SampleBufferTest {
+
+    /**
+     * Test method for {@link SampleBuffer#add(int, int, Color)}.
+     */
+    @Test
+    void testAdd() {
+        SampleBuffer buffer = new SampleBuffer(3, 2);
+        Random random = new Random(7364);
+        double[] values = new double[100];
+        double sum = 0;
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = 100 + random.nextDouble() * 50;
+            sum += values[i];
+            buffer.add(2, 1, new Color(values[i], 10, 0));
+        }
+        double mean = sum / values.length, squares = 0;
+        for (double value : values)
+            squares += (value - mean) * (value - mean);
+        double variance = squares / (values.length - 1);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Mean and variance of the samples
+        assertEquals(100, buffer.getCount(2, 1), "Wrong number of samples");
+        assertEquals(mean, buffer.getMean(2, 1).getRed(), 1e-3, "Wrong mean");
+        assertEquals(10, buffer.getMean(2, 1).getGreen(), 1e-5, "Wrong mean of a constant component");
+        assertEquals(variance, buffer.getVariance(2, 1), variance * 1e-4, "Wrong variance");
+        assertEquals(Math.sqrt(variance / 100) / mean, buffer.getRelativeError(2, 1), 1e-5, "Wrong relative error");
+        //TC02: Other pixels are not changed
+        assertEquals(0, buffer.getCount(1, 1), "Sample was added to another pixel");
+        assertEquals(100, buffer.getTotalCount(), "Wrong total number of samples");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: A single sample has no error estimate
+        buffer.add(0, 0, new Color(50, 50, 50));
+        assertEquals(0, buffer.getVariance(0, 0), "Single sample has a variance");
+        assertEquals(Double.POSITIVE_INFINITY, buffer.getRelativeError(0, 0), "Single sample has an error");
+        //TC12: The same color has no error
+        buffer.add(0, 0, new Color(50, 50, 50));
+        assertEquals(0, buffer.getRelativeError(0, 0), "Same samples have an error");
+    }
+}
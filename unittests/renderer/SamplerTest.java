@@ -0,0 +1,105 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the samplers
+ *
+ * @author Mordechy Cohen
+ */
+class SamplerTest {
+
+    /**
+     * Counts the samples of a pixel in the cells of a grid on a pair of dimensions
+     *
+     * @param sampler   the sampler
+     * @param pixel     the pixel
+     * @param count     number of samples
+     * @param dimension first dimension of the pair
+     * @param grid      cells along a side of the grid
+     * @return number of samples in every cell
+     */
+    private int[] cells(Sampler sampler, long pixel, int count, int dimension, int grid) {
+        int[] cells = new int[grid * grid];
+        for (int i = 0; i < count; ++i) {
+            double u = sampler.get(pixel, i, count, dimension), v = sampler.get(pixel, i, count, dimension + 1);
+            assertTrue(u >= 0 && u < 1 && v >= 0 && v < 1, "Sample out of the unit square");
+            ++cells[(int) (u * grid) * grid + (int) (v * grid)];
+        }
+        return cells;
+    }
+
+    /**
+     * Test method for {@link Sampler#get(long, int, int, int)}.
+     */
+    @Test
+    void testGet() {
+        Sampler[] samplers = {new StratifiedSampler(), new HaltonSampler(), new SobolSampler(), new BlueNoiseSampler()};
+        long pixel = Sampler.pixel(17, 5);
+
+        // ============ Equivalence Partitions Tests ==============
+        for (Sampler sampler : samplers) {
+            String name = sampler.getClass().getSimpleName();
+            //TC01: The samples are a function of the pixel
+            for (int d = 0; d < 6; ++d)
+                assertEquals(sampler.get(pixel, 3, 16, d), sampler.get(pixel, 3, 16, d), name + " is not deterministic");
+            //TC02: Another pixel gets other samples
+            assertNotEquals(sampler.get(pixel, 3, 16, 0), sampler.get(Sampler.pixel(18, 5), 3, 16, 0),
+                    name + " repeats the pixel");
+            //TC03: The samples are spread - no cell of a 4 x 4 grid gets more than 3 of 16 samples,
+            //in the place in the pixel and in a later pair of dimensions
+            for (int d = 0; d < 6; d += 2)
+                for (int cell : cells(sampler, pixel, 16, d, 4))
+                    assertTrue(cell <= 3, name + " clumps the samples");
+        }
+
+        //TC04: Stratified and Sobol samples are in every cell of the grid
+        for (Sampler sampler : new Sampler[]{new StratifiedSampler(), new SobolSampler()})
+            for (int d = 0; d < 6; d += 2)
+                for (int cell : cells(sampler, pixel, 64, d, 8))
+                    assertEquals(1, cell, sampler.getClass().getSimpleName() + " is not stratified");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Single sample
+        for (Sampler sampler : samplers) {
+            double u = sampler.get(pixel, 0, 1, 0);
+            assertTrue(u >= 0 && u < 1, "Sample out of the unit interval");
+        }
+        //TC12: Pixel key
+        assertEquals(-3, Sampler.col(Sampler.pixel(-3, 7)), "Wrong column");
+        assertEquals(7, Sampler.row(Sampler.pixel(-3, 7)), "Wrong row");
+    }
+
+    /**
+     * Test method for {@link RayTracerBasic#setSampler(Sampler)} - soft shadows from a sampler
+     */
+    @Test
+    void testSoftShadows() {
+        Scene scene = new Scene("Sampled shadow scene");
+        scene.geometries.add(new Sphere(new Point(0, 0, -100), 30).setMaterial(new Material().setKd(0.5)),
+                new Plane(new Point(0, 0, -200), new Vector(0, 0, 1)).setMaterial(new Material().setKd(0.5)));
+        scene.lights.add(new PointLight(new Color(400, 400, 400), new Point(30, 20, 100), 25).setSoftShadowSamples(64));
+        RayTracerBasic lattice = new RayTracerBasic(scene);
+        RayTracerBasic sampled = new RayTracerBasic(scene).setSampler(new SobolSampler());
+        Point p0 = new Point(0, 0, 1000);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: A pixel in the penumbra gets the same color every time, close to the lattice
+        Ray ray = new Ray(p0, new Vector(-50.3, -40.3, -1000));
+        long pixel = Sampler.pixel(10, 20);
+        java.awt.Color color = sampled.traceRay(ray, pixel, 0, 1).getColor();
+        assertEquals(color, sampled.traceRay(ray, pixel, 0, 1).getColor(), "Sampled shadow is not deterministic");
+        assertEquals(lattice.traceRay(ray).getColor().getRed(), color.getRed(), 10, "Wrong sampled shadow");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: A ray without its pixel uses the lattice
+        assertEquals(lattice.traceRay(ray).getColor(), sampled.traceRay(ray).getColor(), "Ray without pixel is sampled");
+    }
+}
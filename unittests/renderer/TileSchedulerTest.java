@@ -0,0 +1,93 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing TileScheduler Class
+ *
+ * @author Mordechy Cohen
+ */
+class TileSchedulerTest {
+
+    /**
+     * Counts how many times every pixel was rendered by the scheduler
+     *
+     * @param scheduler the scheduler
+     * @param nX        resolution on X axis
+     * @param nY        resolution on Y axis
+     * @param threads   number of threads, 0 for rendering the tiles one by one on this thread
+     * @return render count of every pixel
+     */
+    private AtomicIntegerArray render(TileScheduler scheduler, int nX, int nY, int threads) {
+        AtomicIntegerArray counts = new AtomicIntegerArray(nX * nY);
+        TileScheduler.PixelRenderer renderer = (col, row) -> counts.incrementAndGet(row * nX + col);
+        if (threads == 0)
+            for (int i = 0; i < scheduler.getTilesCount(); ++i)
+                scheduler.renderTile(i, renderer);
+        else {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            scheduler.submit(pool, renderer).join();
+            pool.shutdown();
+        }
+        return counts;
+    }
+
+    /**
+     * Test method for {@link TileScheduler#renderTile(int, TileScheduler.PixelRenderer)}.
+     */
+    @Test
+    void testRenderTile() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Every order covers every pixel exactly once, with partial tiles on the edges
+        for (TileOrder order : TileOrder.values()) {
+            AtomicIntegerArray counts = render(new TileScheduler(37, 21, 8, order), 37, 21, 0);
+            for (int i = 0; i < counts.length(); ++i)
+                assertEquals(1, counts.get(i), order + " order doesn't render pixel " + i + " once");
+        }
+
+        //TC02: The spiral starts at the central tile
+        TileScheduler spiral = new TileScheduler(30, 30, 10, TileOrder.SPIRAL);
+        spiral.renderTile(0, (col, row) -> assertTrue(col >= 10 && col < 20 && row >= 10 && row < 20,
+                "Spiral doesn't start at the center"));
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Tile larger than the image
+        AtomicIntegerArray counts = render(new TileScheduler(5, 3, 16, TileOrder.HILBERT), 5, 3, 0);
+        for (int i = 0; i < counts.length(); ++i)
+            assertEquals(1, counts.get(i), "Pixel " + i + " isn't rendered once");
+    }
+
+    /**
+     * Test method for {@link TileScheduler#submit(ForkJoinPool, TileScheduler.PixelRenderer)}.
+     */
+    @Test
+    void testSubmit() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Several threads render every pixel exactly once
+        AtomicIntegerArray counts = render(new TileScheduler(100, 60, 7, TileOrder.MORTON), 100, 60, 4);
+        for (int i = 0; i < counts.length(); ++i)
+            assertEquals(1, counts.get(i), "Pixel " + i + " isn't rendered once");
+    }
+
+    /**
+     * Test method for {@link TileScheduler#hilbertIndex(int, int, int)}.
+     */
+    @Test
+    void testHilbertIndex() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Consecutive cells of the curve are neighbours
+        int n = 8;
+        int[][] cells = new int[n * n][];
+        for (int x = 0; x < n; ++x)
+            for (int y = 0; y < n; ++y)
+                cells[(int) TileScheduler.hilbertIndex(n, x, y)] = new int[]{x, y};
+        for (int i = 1; i < cells.length; ++i)
+            assertEquals(1, Math.abs(cells[i][0] - cells[i - 1][0]) + Math.abs(cells[i][1] - cells[i - 1][1]),
+                    "Hilbert cells " + (i - 1) + " and " + i + " aren't neighbours");
+    }
+}
@@ -0,0 +1,236 @@
+package scene;
+
+import geometries.Intersectable.GeoPoint;
+import geometries.TriangleMesh;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing MeshLoader Class
+ *
+ * @author Mordechy Cohen
+ */
+class MeshLoaderTest {
+
+    /**
+     * Writes a temporary file
+     *
+     * @param suffix  extension of the file
+     * @param content content of the file
+     * @return path of the file
+     */
+    private static Path write(String suffix, byte[] content) throws IOException {
+        Path file = Files.createTempFile("mesh", suffix);
+        file.toFile().deleteOnExit();
+        return Files.write(file, content);
+    }
+
+    /**
+     * Test method for {@link scene.MeshLoader#loadObj(Path)}.
+     */
+    @Test
+    void testLoadObj() throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Square as a quad, with comments, normals and texture indexes
+        Path file = write(".obj", ("""
+                # unit square
+                o square
+                v 0 0 0
+                v 1.0 0 0\r
+                v 1 1e0 -0.0
+                vn 0 0 1
+                vt 0.5 0.5
+
+                v 0.0 1. 0 1.0
+                f 1/1/1 2/1/1 3//1 4 # quad
+                """).getBytes(StandardCharsets.US_ASCII));
+        TriangleMesh mesh = MeshLoader.load(file);
+        assertEquals(4, mesh.getVerticesCount(), "Wrong number of vertices");
+        assertEquals(2, mesh.getFacesCount(), "Wrong number of faces");
+        assertEquals(new Point(0, 0, 0), mesh.getVertex(1, 0), "Wrong fan of the quad");
+        assertEquals(new Point(1, 1, 0), mesh.getVertex(1, 1), "Wrong fan of the quad");
+        assertEquals(new Point(0, 1, 0), mesh.getVertex(1, 2), "Wrong fan of the quad");
+
+        //TC02: Relative indexes and numbers with exponents
+        mesh = MeshLoader.loadObj(write(".obj", "v 1.5e2 -2.5E-1 3\nv 0 0 0\nv 0 1 0\nf -3 -2 -1\n"
+                .getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(new Point(150, -0.25, 3), mesh.getVertex(0, 0), "Wrong relative vertex");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Face with two vertices
+        assertThrows(IllegalArgumentException.class, () -> MeshLoader.loadObj(write(".obj",
+                "v 0 0 0\nv 1 0 0\nf 1 2\n".getBytes(StandardCharsets.US_ASCII))), "Loaded a face of two vertices");
+
+        //TC12: Face refers to a missing vertex
+        assertThrows(IllegalArgumentException.class, () -> MeshLoader.loadObj(write(".obj",
+                "v 0 0 0\nv 1 0 0\nf 1 2 3\n".getBytes(StandardCharsets.US_ASCII))), "Loaded a missing vertex");
+
+        //TC13: Unknown format
+        assertThrows(IllegalArgumentException.class, () -> MeshLoader.load(write(".stl", new byte[0])),
+                "Loaded an unknown format");
+    }
+
+    /**
+     * Test method for {@link scene.MeshLoader#loadPly(Path)}.
+     */
+    @Test
+    void testLoadPly() throws IOException {
+        String header = """
+                ply
+                format %s 1.0
+                comment unit square
+                element vertex 4
+                property float x
+                property float y
+                property float z
+                property uchar red
+                element face 1
+                property list uchar int vertex_indices
+                property int flags
+                end_header
+                """;
+        float[][] vertices = {{0, 0, 0}, {1, 0, 0}, {1, 1, 0}, {0, 1, 0.5f}};
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Binary file, in both byte orders
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+            byte[] text = String.format(header, order == ByteOrder.LITTLE_ENDIAN
+                    ? "binary_little_endian" : "binary_big_endian").getBytes(StandardCharsets.US_ASCII);
+            ByteBuffer content = ByteBuffer.allocate(text.length + 4 * 13 + 1 + 16 + 4).order(order);
+            content.put(text);
+            for (float[] vertex : vertices)
+                content.putFloat(vertex[0]).putFloat(vertex[1]).putFloat(vertex[2]).put((byte) 255);
+            content.put((byte) 4).putInt(0).putInt(1).putInt(2).putInt(3).putInt(7);
+
+            TriangleMesh mesh = MeshLoader.loadPly(write(".ply", content.array()));
+            assertEquals(4, mesh.getVerticesCount(), "Wrong number of vertices");
+            assertEquals(2, mesh.getFacesCount(), "Wrong number of faces");
+            assertEquals(new Point(0, 1, 0.5), mesh.getVertex(1, 2), "Wrong vertex in " + order);
+        }
+
+        //TC02: Ascii file
+        TriangleMesh mesh = MeshLoader.load(write(".ply", (String.format(header, "ascii")
+                + "0 0 0 255\n1 0 0 255\n1 1 0 255\n0 1 0.5 255\n4 0 1 2 3 7\n").getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(2, mesh.getFacesCount(), "Wrong number of faces");
+        assertEquals(new Point(1, 1, 0), mesh.getVertex(0, 2), "Wrong vertex");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: File ends in the middle of the faces
+        byte[] truncated = String.format(header, "binary_little_endian").getBytes(StandardCharsets.US_ASCII);
+        assertThrows(IllegalArgumentException.class, () -> MeshLoader.loadPly(write(".ply", truncated)),
+                "Loaded a truncated file");
+    }
+
+    /**
+     * Test method for {@link scene.MeshLoader#load(Path, Path)}.
+     */
+    @Test
+    void testLoadWithCache() throws IOException {
+        //a grid of 20 x 20 squares
+        StringBuilder obj = new StringBuilder();
+        for (int i = 0; i <= 20; ++i)
+            for (int j = 0; j <= 20; ++j)
+                obj.append("v ").append(i).append(' ').append(j).append(' ').append((i * j) % 3).append('\n');
+        for (int i = 0; i < 20; ++i)
+            for (int j = 0; j < 20; ++j) {
+                int a = i * 21 + j + 1;
+                obj.append("f ").append(a).append(' ').append(a + 21).append(' ').append(a + 22).append(' ')
+                        .append(a + 1).append('\n');
+            }
+        Path file = write(".obj", obj.toString().getBytes(StandardCharsets.US_ASCII));
+        Path cache = Files.createTempDirectory("meshcache");
+        TriangleMesh expected = MeshLoader.load(file);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: The first load writes the cache file, the second one reads it
+        TriangleMesh first = MeshLoader.load(file, cache);
+        assertEquals(1, cacheFiles(cache), "Cache file was not written");
+        TriangleMesh cached = MeshLoader.load(file, cache);
+        assertEquals(1, cacheFiles(cache), "Cache file was written again");
+        assertEquals(expected.getFacesCount(), cached.getFacesCount(), "Wrong number of faces");
+        assertEquals(expected.getVerticesCount(), cached.getVerticesCount(), "Wrong number of vertices");
+        assertEquals(expected.getBoundingBox().toString(), cached.getBoundingBox().toString(), "Wrong box");
+        for (int i = 0; i < 30; ++i)
+            for (int j = 0; j < 30; ++j) {
+                Ray ray = new Ray(new Point(i * 0.7 - 0.3, j * 0.7 - 0.3, 10), new Vector(0.01, 0.02, -1));
+                GeoPoint expectedPoint = first.findClosestGeoIntersection(ray);
+                GeoPoint cachedPoint = cached.findClosestGeoIntersection(ray);
+                assertEquals(expectedPoint == null, cachedPoint == null, "Wrong hit of the cached mesh for " + ray);
+                if (expectedPoint != null) {
+                    assertEquals(expectedPoint.point, cachedPoint.point, "Wrong point of the cached mesh for " + ray);
+                    assertEquals(expectedPoint.face, cachedPoint.face, "Wrong face of the cached mesh for " + ray);
+                }
+            }
+
+        //TC02: A changed file gets another cache file
+        Files.write(file, (obj + "v 0 0 5\n").getBytes(StandardCharsets.US_ASCII));
+        assertEquals(expected.getVerticesCount() + 1, MeshLoader.load(file, cache).getVerticesCount(),
+                "Mesh was read from the old cache file");
+        assertEquals(2, cacheFiles(cache), "Cache file of the changed mesh was not written");
+
+        // =============== Boundary Values Tests ==================
+        //TC11: Damaged cache file is written again
+        try (Stream<Path> files = Files.list(cache)) {
+            for (Path cacheFile : files.toList())
+                Files.write(cacheFile, new byte[]{1, 2, 3});
+        }
+        assertEquals(expected.getVerticesCount() + 1, MeshLoader.load(file, cache).getVerticesCount(),
+                "Damaged cache file was read");
+        assertThrows(IllegalArgumentException.class, () -> TriangleMesh.read(write(".mesh", new byte[64])),
+                "Read a file that is not a mesh file");
+
+        //TC12: Cache file of the right size with a damaged face, face order or node is written again
+        Path cacheFile;
+        try (Stream<Path> files = Files.list(cache)) {
+            //the cache file of the old mesh is still the damaged one
+            cacheFile = files.filter(path -> path.toFile().length() > 3).findFirst().orElseThrow();
+        }
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(cacheFile)).order(ByteOrder.LITTLE_ENDIAN);
+        int vertexLength = header.getInt(8), faceLength = header.getInt(12), nodes = header.getInt(16);
+        int facesPlace = 24 + Double.BYTES * vertexLength;
+        int orderPlace = facesPlace + Integer.BYTES * faceLength;
+        //the link of the root - its children, or its faces if it is a leaf
+        int nodesPlace = orderPlace + Integer.BYTES * (faceLength / 3 + 6);
+        for (int place : new int[]{facesPlace, orderPlace, nodesPlace}) {
+            byte[] damaged = Files.readAllBytes(cacheFile);
+            ByteBuffer.wrap(damaged).order(ByteOrder.LITTLE_ENDIAN).putInt(place, 1_000_000);
+            Files.write(cacheFile, damaged);
+            assertThrows(IllegalArgumentException.class, () -> TriangleMesh.read(cacheFile),
+                    "Read a damaged mesh file");
+            assertEquals(expected.getVerticesCount() + 1, MeshLoader.load(file, cache).getVerticesCount(),
+                    "Damaged cache file was read");
+            assertEquals(expected.getVerticesCount() + 1, TriangleMesh.read(cacheFile).getVerticesCount(),
+                    "Damaged cache file was not written again");
+        }
+
+        try (Stream<Path> files = Files.walk(cache)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+
+    /**
+     * Counts the cache files in a directory
+     *
+     * @param directory the directory
+     * @return number of files
+     */
+    private static long cacheFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}